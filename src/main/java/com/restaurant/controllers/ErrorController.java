@@ -2,7 +2,16 @@ package com.restaurant.controllers;
 
 import com.restaurant.domain.dtos.ErrorDto;
 import com.restaurant.exceptions.BaseException;
+import com.restaurant.exceptions.ConcurrentUpdateException;
+import com.restaurant.exceptions.InvalidCursorException;
+import com.restaurant.exceptions.InvalidPatchException;
+import com.restaurant.exceptions.InvalidSearchRequestException;
+import com.restaurant.exceptions.InvalidSortPropertyException;
+import com.restaurant.exceptions.InvalidTileException;
+import com.restaurant.exceptions.MissingGeoCoordinatesException;
+import com.restaurant.exceptions.RestaurantNotFoundException;
 import com.restaurant.exceptions.StorageException;
+import com.restaurant.exceptions.WritesSuspendedException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -49,6 +58,114 @@ public class ErrorController {
         return new ResponseEntity<>(errorDto, HttpStatus.INTERNAL_SERVER_ERROR);
     }
 
+    @ExceptionHandler(InvalidSortPropertyException.class)
+    public ResponseEntity<ErrorDto> handleInvalidSortPropertyException(InvalidSortPropertyException ex) {
+        log.error("Caught InvalidSortPropertyException", ex);
+
+        ErrorDto errorDto = ErrorDto.builder()
+                .status(HttpStatus.BAD_REQUEST.value())
+                .message(ex.getMessage())
+                .build();
+
+        return new ResponseEntity<>(errorDto, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<ErrorDto> handleInvalidCursorException(InvalidCursorException ex) {
+        log.error("Caught InvalidCursorException", ex);
+
+        ErrorDto errorDto = ErrorDto.builder()
+                .status(HttpStatus.BAD_REQUEST.value())
+                .message(ex.getMessage())
+                .build();
+
+        return new ResponseEntity<>(errorDto, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(InvalidSearchRequestException.class)
+    public ResponseEntity<ErrorDto> handleInvalidSearchRequestException(InvalidSearchRequestException ex) {
+        log.error("Caught InvalidSearchRequestException", ex);
+
+        ErrorDto errorDto = ErrorDto.builder()
+                .status(HttpStatus.BAD_REQUEST.value())
+                .message(ex.getMessage())
+                .build();
+
+        return new ResponseEntity<>(errorDto, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(InvalidPatchException.class)
+    public ResponseEntity<ErrorDto> handleInvalidPatchException(InvalidPatchException ex) {
+        log.error("Caught InvalidPatchException", ex);
+
+        ErrorDto errorDto = ErrorDto.builder()
+                .status(HttpStatus.BAD_REQUEST.value())
+                .message(ex.getMessage())
+                .build();
+
+        return new ResponseEntity<>(errorDto, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(RestaurantNotFoundException.class)
+    public ResponseEntity<ErrorDto> handleRestaurantNotFoundException(RestaurantNotFoundException ex) {
+        log.error("Caught RestaurantNotFoundException", ex);
+
+        ErrorDto errorDto = ErrorDto.builder()
+                .status(HttpStatus.NOT_FOUND.value())
+                .message(ex.getMessage())
+                .build();
+
+        return new ResponseEntity<>(errorDto, HttpStatus.NOT_FOUND);
+    }
+
+    @ExceptionHandler(MissingGeoCoordinatesException.class)
+    public ResponseEntity<ErrorDto> handleMissingGeoCoordinatesException(MissingGeoCoordinatesException ex) {
+        log.error("Caught MissingGeoCoordinatesException", ex);
+
+        ErrorDto errorDto = ErrorDto.builder()
+                .status(HttpStatus.BAD_REQUEST.value())
+                .message(ex.getMessage())
+                .build();
+
+        return new ResponseEntity<>(errorDto, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(InvalidTileException.class)
+    public ResponseEntity<ErrorDto> handleInvalidTileException(InvalidTileException ex) {
+        log.error("Caught InvalidTileException", ex);
+
+        ErrorDto errorDto = ErrorDto.builder()
+                .status(HttpStatus.BAD_REQUEST.value())
+                .message(ex.getMessage())
+                .build();
+
+        return new ResponseEntity<>(errorDto, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(ConcurrentUpdateException.class)
+    public ResponseEntity<ErrorDto> handleConcurrentUpdateException(ConcurrentUpdateException ex) {
+        log.warn("Caught ConcurrentUpdateException", ex);
+
+        ErrorDto errorDto = ErrorDto.builder()
+                .status(HttpStatus.CONFLICT.value())
+                .message("The resource was modified concurrently, please retry")
+                .build();
+
+        return new ResponseEntity<>(errorDto, HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(WritesSuspendedException.class)
+    public ResponseEntity<ErrorDto> handleWritesSuspendedException(WritesSuspendedException ex) {
+        log.warn("Caught WritesSuspendedException", ex);
+
+        ErrorDto errorDto = ErrorDto.builder()
+                .status(HttpStatus.SERVICE_UNAVAILABLE.value())
+                .message("Changes are temporarily suspended, please retry")
+                .build();
+
+        return new ResponseEntity<>(errorDto, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
     // Handle our base application exception
     @ExceptionHandler(BaseException.class)
     public ResponseEntity<ErrorDto> handleBaseException(BaseException ex) {
@@ -0,0 +1,46 @@
+package com.restaurant.controllers;
+
+import com.restaurant.services.CatalogExportService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.zip.GZIPOutputStream;
+
+@RestController
+@RequestMapping("/api/admin/export")
+@RequiredArgsConstructor
+public class ExportController {
+
+    private static final MediaType GZIP = MediaType.parseMediaType("application/gzip");
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+
+    private final CatalogExportService catalogExportService;
+
+    /**
+     * The whole catalog as gzip-compressed NDJSON, compressed and sent while it is read.
+     */
+    @GetMapping
+    public ResponseEntity<StreamingResponseBody> exportRestaurants(
+            @RequestParam(defaultValue = "false") boolean includeReviews) {
+
+        StreamingResponseBody body = output -> {
+            try (GZIPOutputStream gzip = new GZIPOutputStream(output, GZIP_BUFFER_SIZE)) {
+                catalogExportService.exportRestaurants(gzip, includeReviews);
+            }
+        };
+
+        return ResponseEntity.ok()
+                .contentType(GZIP)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename("restaurants.ndjson.gz").build().toString())
+                .body(body);
+    }
+}
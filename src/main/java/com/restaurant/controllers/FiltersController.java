@@ -1,11 +1,10 @@
 package com.restaurant.controllers;
 
+import com.restaurant.domain.dtos.FacetBucket;
 import com.restaurant.domain.entities.Feature;
-import com.restaurant.domain.entities.Restaurant;
-import com.restaurant.repositories.RestaurantRepository;
+import com.restaurant.services.FacetCatalogService;
 import com.restaurant.services.FeatureService;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -18,20 +17,16 @@ import java.util.List;
 @RequiredArgsConstructor
 public class FiltersController {
 
-    private final RestaurantRepository restaurantRepository;
+    private final FacetCatalogService facetCatalogService;
     private final FeatureService featureService;
 
     @GetMapping("/cuisines")
     public ResponseEntity<List<String>> getCuisineTypes() {
-        var res = restaurantRepository.findAll();
-
-        return ResponseEntity.ok(res
+        return ResponseEntity.ok(facetCatalogService.getCuisineTypes()
                 .stream()
-                .map(Restaurant::getCuisineType)
-                .distinct()
+                .map(FacetBucket::getValue)
                 .toList()
         );
-
     }
 
     @GetMapping("/features")
@@ -45,11 +40,13 @@ public class FiltersController {
     }
 
     @GetMapping("/neighborhoods")
-    public ResponseEntity<?> getNeighborhoods() {
-        var pageRequest = PageRequest.of(0, 10);
-//        var res = restaurantRepository.findAll(pageRequest);
-        return ResponseEntity.ok(List.of());
+    public ResponseEntity<List<FacetBucket>> getNeighborhoods() {
+        return ResponseEntity.ok(facetCatalogService.getCities());
+    }
 
+    @GetMapping("/price-ranges")
+    public ResponseEntity<List<FacetBucket>> getPriceRanges() {
+        return ResponseEntity.ok(facetCatalogService.getPriceRanges());
     }
 
 }
@@ -0,0 +1,27 @@
+package com.restaurant.controllers;
+
+import com.restaurant.domain.dtos.OmniboxTerm;
+import com.restaurant.services.OmniboxService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/omnibox")
+@RequiredArgsConstructor
+public class OmniboxController {
+
+    private final OmniboxService omniboxService;
+
+    @GetMapping
+    public ResponseEntity<List<OmniboxTerm>> lookup(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(omniboxService.lookup(q, limit));
+    }
+}
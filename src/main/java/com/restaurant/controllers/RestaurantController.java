@@ -1,24 +1,53 @@
 package com.restaurant.controllers;
 
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.restaurant.domain.BoundingBox;
+import com.restaurant.domain.GeoLocation;
 import com.restaurant.domain.RestaurantCreateUpdateRequest;
+import com.restaurant.domain.RestaurantImportFormat;
+import com.restaurant.domain.RestaurantProjection;
+import com.restaurant.domain.RestaurantSearchCriteria;
+import com.restaurant.domain.RestaurantSummary;
+import com.restaurant.domain.dtos.CursorPage;
+import com.restaurant.domain.dtos.FacetedPage;
+import com.restaurant.domain.dtos.RestaurantBatch;
+import com.restaurant.domain.dtos.RestaurantBatchRequestDto;
+import com.restaurant.domain.dtos.RestaurantClusterDto;
 import com.restaurant.domain.dtos.RestaurantCreateUpdateRequestDto;
 import com.restaurant.domain.dtos.RestaurantDto;
+import com.restaurant.domain.dtos.RestaurantImportReport;
+import com.restaurant.domain.dtos.RestaurantSearchParamsDto;
+import com.restaurant.domain.dtos.RestaurantSuggestionDto;
 import com.restaurant.domain.dtos.RestaurantSummaryDto;
 import com.restaurant.domain.entities.Restaurant;
+import com.restaurant.exceptions.InvalidSearchRequestException;
 import com.restaurant.exceptions.InvalidSortPropertyException;
+import com.restaurant.exceptions.MissingGeoCoordinatesException;
 import com.restaurant.mappers.RestaurantMapper;
+import com.restaurant.services.RestaurantImportService;
+import com.restaurant.services.RestaurantPatchService;
 import com.restaurant.services.RestaurantService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
+import java.util.function.Function;
 
 @RestController
 @RequestMapping(path = "/api/restaurants")
@@ -28,11 +57,24 @@ public class RestaurantController {
     private static final String DEFAULT_SIZE = "20";
     private static final String DEFAULT_SORT = "DESC";
     private static final String DEFAULT_SORT_CRITERIA = "averageRating";
+    private static final String DEFAULT_SUGGESTIONS = "5";
+    private static final String TEXT_CSV_VALUE = "text/csv";
+    private static final String MERGE_PATCH_VALUE = "application/merge-patch+json";
+    private static final MediaType TEXT_CSV = MediaType.parseMediaType(TEXT_CSV_VALUE);
+    private static final MediaType VECTOR_TILE = MediaType.parseMediaType("application/vnd.mapbox-vector-tile");
+    private static final CacheControl TILE_CACHE_CONTROL = CacheControl.maxAge(Duration.ofHours(1))
+            .staleWhileRevalidate(Duration.ofDays(1))
+            .cachePublic();
+    // Open-now tiles go stale by the minute and rating-filtered ones with every review, so neither is shared.
+    private static final CacheControl VOLATILE_TILE_CACHE_CONTROL = CacheControl.maxAge(Duration.ofMinutes(1))
+            .cachePrivate();
 
     private static final Set<String> ALLOWED_SORT_FIELDS = Set.of(
             "averageRating"
     );
     private final RestaurantService restaurantService;
+    private final RestaurantImportService restaurantImportService;
+    private final RestaurantPatchService restaurantPatchService;
     private final RestaurantMapper restaurantMapper;
 
     @PostMapping
@@ -47,43 +89,125 @@ public class RestaurantController {
         return ResponseEntity.ok(createdRestaurantDto);
     }
 
+    /**
+     * Creates restaurants from an NDJSON or CSV body, read as it arrives; see {@link RestaurantImportFormat}.
+     */
+    @PostMapping(path = "/import", consumes = {MediaType.APPLICATION_NDJSON_VALUE, TEXT_CSV_VALUE})
+    public RestaurantImportReport importRestaurants(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            InputStream body) {
+
+        RestaurantImportFormat format = TEXT_CSV.includes(contentType)
+                ? RestaurantImportFormat.CSV
+                : RestaurantImportFormat.NDJSON;
+        return restaurantImportService.importRestaurants(body, format);
+    }
+
     @GetMapping("/filter")
     public Page<RestaurantSummaryDto> searchRestaurants(
-            @RequestParam(required = false) String cuisineTypes,
-            @RequestParam(required = false) String name,
-            @RequestParam(required = false) Float minRating,
-            @RequestParam(required = false) Double latitude,
-            @RequestParam(required = false) Double longitude,
-            @RequestParam(required = false) Double maxDistanceKm,
-            @RequestParam(required = false) String priceRanges,
-            @RequestParam(required = false) String features,
-            @RequestParam(defaultValue = "false") boolean filterOpenNow,
-            @RequestParam(defaultValue = "false") boolean requirePhotos,
-            @RequestParam(required = false) String createdById,
-            @RequestParam(required = false) String address,
+            RestaurantSearchParamsDto params,
             @RequestParam(defaultValue = DEFAULT_PAGE) int page,
             @RequestParam(defaultValue = DEFAULT_SIZE) int size,
             @RequestParam(defaultValue = DEFAULT_SORT) String sort,
             @RequestParam(defaultValue = DEFAULT_SORT_CRITERIA) String sortCriteria) {
 
-        if (!ALLOWED_SORT_FIELDS.contains(sortCriteria)) {
-            throw new InvalidSortPropertyException("Invalid sort property: " + sortCriteria);
-        }
+        checkSortCriteria(sortCriteria);
         Sort.Direction sortDirection = Sort.Direction.fromString(sort);
         PageRequest pageRequest = PageRequest.of(
                 Math.max(0, page - 1), size, Sort.by(sortDirection, sortCriteria)
         );
 
-        Page<Restaurant> searchResults = restaurantService.searchRestaurants(
-                pageRequest, parseMultipleValueRequest(cuisineTypes), name, minRating, latitude, longitude, maxDistanceKm,
-                filterOpenNow, requirePhotos, createdById, address,
-                parseMultipleValueRequest(priceRanges),
-                parseMultipleValueRequest(features)
+        Page<RestaurantSummary> searchResults = restaurantService.searchRestaurants(
+                pageRequest, toSearchCriteria(params)
         );
 
         return searchResults.map(restaurantMapper::toSummaryDto);
     }
 
+    @GetMapping(path = "/filter", params = {"facets=true", "scroll!=true"})
+    public FacetedPage<RestaurantSummaryDto> searchRestaurantsWithFacets(
+            RestaurantSearchParamsDto params,
+            @RequestParam(defaultValue = DEFAULT_PAGE) int page,
+            @RequestParam(defaultValue = DEFAULT_SIZE) int size,
+            @RequestParam(defaultValue = DEFAULT_SORT) String sort,
+            @RequestParam(defaultValue = DEFAULT_SORT_CRITERIA) String sortCriteria) {
+
+        checkSortCriteria(sortCriteria);
+        PageRequest pageRequest = PageRequest.of(
+                Math.max(0, page - 1), size, Sort.by(Sort.Direction.fromString(sort), sortCriteria)
+        );
+
+        return restaurantService.searchRestaurantsWithFacets(pageRequest, toSearchCriteria(params))
+                .map(restaurantMapper::toSummaryDto);
+    }
+
+    @GetMapping(path = "/filter", params = "scroll=true")
+    public CursorPage<RestaurantSummaryDto> scrollRestaurants(
+            RestaurantSearchParamsDto params,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") boolean pointInTime,
+            @RequestParam(defaultValue = DEFAULT_SIZE) int size,
+            @RequestParam(defaultValue = DEFAULT_SORT) String sort,
+            @RequestParam(defaultValue = DEFAULT_SORT_CRITERIA) String sortCriteria,
+            @RequestParam(defaultValue = "false") boolean facets) {
+
+        if (facets) {
+            // Facets count the whole result, which a cursor page does not know; fail rather than drop them.
+            throw new InvalidSearchRequestException("facets are not supported with scroll=true");
+        }
+        checkSortCriteria(sortCriteria);
+
+        Sort order = Sort.by(Sort.Direction.fromString(sort), sortCriteria);
+        return restaurantService.scrollRestaurants(toSearchCriteria(params), order, cursor, size, pointInTime)
+                .map(restaurantMapper::toSummaryDto);
+    }
+
+    @GetMapping("/clusters")
+    public List<RestaurantClusterDto> clusterRestaurants(
+            RestaurantSearchParamsDto params,
+            @RequestParam int zoom) {
+
+        return restaurantService.clusterRestaurants(toSearchCriteria(params), zoom)
+                .stream()
+                .map(restaurantMapper::toClusterDto)
+                .toList();
+    }
+
+    @GetMapping(path = "/tiles/{z}/{x}/{y}.mvt", produces = "application/vnd.mapbox-vector-tile")
+    public ResponseEntity<byte[]> getTile(
+            RestaurantSearchParamsDto params,
+            @PathVariable int z,
+            @PathVariable int x,
+            @PathVariable int y) {
+
+        byte[] tile = restaurantService.getTile(toSearchCriteria(params), z, x, y);
+
+        boolean volatileFilters = params.isFilterOpenNow() || params.getMinRating() != null;
+        return ResponseEntity.ok()
+                .contentType(VECTOR_TILE)
+                .cacheControl(volatileFilters ? VOLATILE_TILE_CACHE_CONTROL : TILE_CACHE_CONTROL)
+                .body(tile);
+    }
+
+    @GetMapping("/suggest")
+    public List<RestaurantSuggestionDto> suggestRestaurants(
+            @RequestParam String prefix,
+            @RequestParam(required = false) String cuisineType,
+            @RequestParam(required = false) Double latitude,
+            @RequestParam(required = false) Double longitude,
+            @RequestParam(defaultValue = DEFAULT_SUGGESTIONS) int size) {
+
+        if ((latitude == null) != (longitude == null)) {
+            throw new MissingGeoCoordinatesException();
+        }
+        GeoLocation near = latitude == null ? null : new GeoLocation(latitude, longitude);
+
+        return restaurantService.suggestRestaurants(prefix, cuisineType, near, size)
+                .stream()
+                .map(restaurantMapper::toSuggestionDto)
+                .toList();
+    }
+
     @GetMapping
     public Page<RestaurantSummaryDto> getAllRestaurants(
             @RequestParam(defaultValue = "1") int page,
@@ -104,6 +228,19 @@ public class RestaurantController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    /**
+     * Resolves many ids in one round trip. Restaurants come back in request order, duplicates once, and ids
+     * with no restaurant are listed in {@code missingIds} instead of failing the request.
+     */
+    @PostMapping("/batch")
+    public RestaurantBatch<?> getRestaurantsByIds(@Valid @RequestBody RestaurantBatchRequestDto request) {
+        List<String> ids = List.copyOf(new LinkedHashSet<>(request.getIds()));
+        if (request.getProjection() == RestaurantProjection.DETAIL) {
+            return toBatch(ids, restaurantService.getRestaurantsByIds(ids), restaurantMapper::toRestaurantDto);
+        }
+        return toBatch(ids, restaurantService.getRestaurantSummariesByIds(ids), restaurantMapper::toSummaryDto);
+    }
+
     @PutMapping(path = "/{restaurant_id}")
     public ResponseEntity<RestaurantDto> updateRestaurant(
             @PathVariable("restaurant_id") String restaurantId,
@@ -117,12 +254,82 @@ public class RestaurantController {
         return ResponseEntity.ok(restaurantMapper.toRestaurantDto(updatedRestaurant));
     }
 
+    /**
+     * Updates only the fields present in a JSON Merge Patch body; {@code null} removes an optional field.
+     */
+    @PatchMapping(path = "/{restaurant_id}", consumes = {MERGE_PATCH_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<Void> patchRestaurant(
+            @PathVariable("restaurant_id") String restaurantId,
+            @RequestBody ObjectNode patch
+    ) {
+        restaurantPatchService.patchRestaurant(restaurantId, patch);
+        return ResponseEntity.noContent().build();
+    }
+
     @DeleteMapping(path = "/{restaurant_id}")
     public ResponseEntity<Void> deleteRestaurant(@PathVariable("restaurant_id") String restaurantId) {
         restaurantService.deleteRestaurant(restaurantId);
         return ResponseEntity.noContent().build();
     }
 
+    private static <T, R> RestaurantBatch<R> toBatch(List<String> ids,
+                                                     List<Optional<T>> found,
+                                                     Function<T, R> toDto) {
+        List<R> restaurants = new ArrayList<>(ids.size());
+        List<String> missingIds = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i++) {
+            Optional<T> restaurant = found.get(i);
+            if (restaurant.isPresent()) {
+                restaurants.add(toDto.apply(restaurant.get()));
+            } else {
+                missingIds.add(ids.get(i));
+            }
+        }
+        return new RestaurantBatch<>(restaurants, missingIds);
+    }
+
+    private static void checkSortCriteria(String sortCriteria) {
+        if (!ALLOWED_SORT_FIELDS.contains(sortCriteria)) {
+            throw new InvalidSortPropertyException("Invalid sort property: " + sortCriteria);
+        }
+    }
+
+    private RestaurantSearchCriteria toSearchCriteria(RestaurantSearchParamsDto params) {
+        return RestaurantSearchCriteria.builder()
+                .cuisineTypes(parseMultipleValueRequest(params.getCuisineTypes()))
+                .name(params.getName())
+                .minRating(params.getMinRating())
+                .latitude(params.getLatitude())
+                .longitude(params.getLongitude())
+                .maxDistanceKm(params.getMaxDistanceKm())
+                .filterOpenNow(params.isFilterOpenNow())
+                .openAt(params.getOpenAt())
+                .requirePhotos(params.isRequirePhotos())
+                .createdById(params.getCreatedById())
+                .address(params.getAddress())
+                .priceRanges(parseMultipleValueRequest(params.getPriceRanges()))
+                .features(parseMultipleValueRequest(params.getFeatures()))
+                .viewport(toViewport(params))
+                .sortByViewportCenter(params.isSortByViewportCenter())
+                .build();
+    }
+
+    private static BoundingBox toViewport(RestaurantSearchParamsDto params) {
+        List<Double> corners = Arrays.asList(
+                params.getTopLeftLat(), params.getTopLeftLon(), params.getBottomRightLat(), params.getBottomRightLon()
+        );
+        if (corners.stream().allMatch(Objects::isNull)) {
+            return null;
+        }
+        if (corners.stream().anyMatch(Objects::isNull)) {
+            throw new MissingGeoCoordinatesException();
+        }
+        return new BoundingBox(
+                new GeoLocation(params.getTopLeftLat(), params.getTopLeftLon()),
+                new GeoLocation(params.getBottomRightLat(), params.getBottomRightLon())
+        );
+    }
+
     List<String> parseMultipleValueRequest(String request) {
         try {
 
@@ -1,6 +1,7 @@
 package com.restaurant.controllers;
 
 import com.restaurant.domain.ReviewCreateUpdateRequest;
+import com.restaurant.domain.dtos.CursorPage;
 import com.restaurant.domain.dtos.ReviewCreateUpdateRequestDto;
 import com.restaurant.domain.dtos.ReviewDto;
 import com.restaurant.domain.dtos.ReviewWithRestaurantDto;
@@ -20,8 +21,6 @@ import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-
 @RestController
 @RequestMapping(path = "/api")
 @RequiredArgsConstructor
@@ -61,18 +60,19 @@ public class ReviewController {
     }
 
     @GetMapping("/user/reviews")
-    public ResponseEntity<List<ReviewWithRestaurantDto>> listUserReview(
+    public ResponseEntity<CursorPage<ReviewWithRestaurantDto>> listUserReview(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
             @AuthenticationPrincipal Jwt jwt) {
 
         var user = User.jwtToUser(jwt);
 
         var reviews = reviewService
-                .listUserReviews(user).stream()
+                .listUserReviews(user, cursor, size)
                 .map(r -> new ReviewWithRestaurantDto(
-                        restaurantMapper.toRestaurantDto(r.getRestaurant()),
+                        restaurantMapper.toHeaderDto(r.getRestaurant()),
                         reviewMapper.toDto(r.getReview())
-                ))
-                .toList();
+                ));
         return ResponseEntity.ok(reviews);
     }
 
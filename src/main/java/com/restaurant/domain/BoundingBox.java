@@ -0,0 +1,18 @@
+package com.restaurant.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A map viewport, given by its north-west and south-east corners.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BoundingBox {
+    private GeoLocation topLeft;
+    private GeoLocation bottomRight;
+}
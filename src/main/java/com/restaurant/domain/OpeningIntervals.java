@@ -0,0 +1,95 @@
+package com.restaurant.domain;
+
+import com.restaurant.domain.entities.MinuteRange;
+import com.restaurant.domain.entities.OperatingHours;
+import com.restaurant.domain.entities.TimeRange;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Derives the week's opening intervals from {@link OperatingHours} as minutes from Monday 00:00 in the
+ * restaurant's local time, so "open at T" is a single lookup of T's minute-of-week.
+ * <p>
+ * A close time at or before the open time runs past midnight into the next day (Sunday night wraps to
+ * Monday morning); equal open and close times mean open around the clock. The closing minute itself is
+ * excluded.
+ */
+public final class OpeningIntervals {
+
+    public static final int MINUTES_PER_DAY = 24 * 60;
+    public static final int MINUTES_PER_WEEK = 7 * MINUTES_PER_DAY;
+
+    private OpeningIntervals() {
+    }
+
+    public static List<MinuteRange> of(OperatingHours operatingHours) {
+        if (operatingHours == null) {
+            return List.of();
+        }
+
+        TimeRange[] days = {
+                operatingHours.getMonday(),
+                operatingHours.getTuesday(),
+                operatingHours.getWednesday(),
+                operatingHours.getThursday(),
+                operatingHours.getFriday(),
+                operatingHours.getSaturday(),
+                operatingHours.getSunday()
+        };
+
+        List<int[]> intervals = new ArrayList<>();
+        for (int day = 0; day < days.length; day++) {
+            addDay(intervals, day, days[day]);
+        }
+        return merge(intervals);
+    }
+
+    public static int minuteOfWeek(LocalDateTime localTime) {
+        int day = localTime.getDayOfWeek().getValue() - DayOfWeek.MONDAY.getValue();
+        return day * MINUTES_PER_DAY + localTime.getHour() * 60 + localTime.getMinute();
+    }
+
+    private static void addDay(List<int[]> intervals, int day, TimeRange timeRange) {
+        if (timeRange == null || timeRange.getOpenTime() == null || timeRange.getCloseTime() == null) {
+            return;
+        }
+
+        int open = minuteOfDay(timeRange.getOpenTime());
+        int close = minuteOfDay(timeRange.getCloseTime());
+        int start = day * MINUTES_PER_DAY + open;
+        int end = day * MINUTES_PER_DAY + (close > open ? close : close + MINUTES_PER_DAY);
+
+        if (end <= MINUTES_PER_WEEK) {
+            intervals.add(new int[]{start, end - 1});
+        } else {
+            intervals.add(new int[]{start, MINUTES_PER_WEEK - 1});
+            intervals.add(new int[]{0, end - MINUTES_PER_WEEK - 1});
+        }
+    }
+
+    private static int minuteOfDay(String time) {
+        LocalTime localTime = LocalTime.parse(time.length() == 4 ? "0" + time : time);
+        return localTime.getHour() * 60 + localTime.getMinute();
+    }
+
+    private static List<MinuteRange> merge(List<int[]> intervals) {
+        intervals.sort(Comparator.comparingInt(interval -> interval[0]));
+
+        List<MinuteRange> merged = new ArrayList<>();
+        MinuteRange current = null;
+        for (int[] interval : intervals) {
+            if (current != null && interval[0] <= current.getLte() + 1) {
+                current.setLte(Math.max(current.getLte(), interval[1]));
+            } else {
+                current = new MinuteRange(interval[0], interval[1]);
+                merged.add(current);
+            }
+        }
+        return merged;
+    }
+}
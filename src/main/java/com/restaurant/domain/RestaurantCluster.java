@@ -0,0 +1,25 @@
+package com.restaurant.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One {@code geotile_grid} cell of a map viewport: how many restaurants it holds and where their centroid is.
+ * {@link #restaurants} is only filled for cells small enough to draw as individual pins.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class RestaurantCluster {
+    private String key;
+    private long count;
+    private GeoLocation centroid;
+    @Builder.Default
+    private List<RestaurantSummary> restaurants = new ArrayList<>();
+}
@@ -0,0 +1,53 @@
+package com.restaurant.domain;
+
+import com.restaurant.domain.entities.Photo;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+
+import java.util.List;
+
+/**
+ * Read-only slice of a restaurant (its id, name and first photo) for listings that only need to say which
+ * restaurant an item belongs to.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class RestaurantHeader {
+
+    // Loaded into a Stored with _source filtering. That cannot slice an array, so the photos arrive whole and
+    // all but the first are dropped by of().
+    public static final String[] SOURCE_FIELDS = {"name", "photos"};
+
+    @Id
+    private String id;
+
+    private String name;
+
+    private Photo photo;
+
+    public static RestaurantHeader of(Stored stored) {
+        List<Photo> photos = stored.getPhotos();
+        return new RestaurantHeader(stored.getId(), stored.getName(),
+                photos == null || photos.isEmpty() ? null : photos.get(0));
+    }
+
+    /**
+     * The {@link #SOURCE_FIELDS} of a restaurant document, as read.
+     */
+    @Data
+    @NoArgsConstructor
+    public static class Stored {
+
+        @Id
+        private String id;
+
+        private String name;
+
+        private List<Photo> photos;
+    }
+}
@@ -0,0 +1,10 @@
+package com.restaurant.domain;
+
+/**
+ * Formats accepted by the restaurant import. Rows have the shape of a create request: NDJSON holds one
+ * request object per line; CSV has a header row naming the fields, with nested fields dotted
+ * ({@code address.city}, {@code operatingHours.monday.openTime}) and photo ids separated by {@code |}.
+ */
+public enum RestaurantImportFormat {
+    NDJSON, CSV
+}
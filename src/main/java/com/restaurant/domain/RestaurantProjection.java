@@ -0,0 +1,9 @@
+package com.restaurant.domain;
+
+/**
+ * How much of each restaurant a batch lookup returns: the list-view {@link RestaurantSummary} fields, or the
+ * full document as served by {@code GET /api/restaurants/{id}}.
+ */
+public enum RestaurantProjection {
+    SUMMARY, DETAIL
+}
@@ -0,0 +1,41 @@
+package com.restaurant.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder(toBuilder = true)
+public class RestaurantSearchCriteria {
+    private List<String> cuisineTypes;
+    private String name;
+    private Float minRating;
+    private Double latitude;
+    private Double longitude;
+    private Double maxDistanceKm;
+    private boolean filterOpenNow;
+
+    /**
+     * Restaurant-local time the results must be open at. Search entry points resolve {@code filterOpenNow}
+     * into this field before building the query.
+     */
+    private LocalDateTime openAt;
+    private boolean requirePhotos;
+    private String createdById;
+    private String address;
+    private List<String> priceRanges;
+    private List<String> features;
+
+    /**
+     * Map viewport the results must lie in; with {@link #sortByViewportCenter} results are also ordered by
+     * distance from its center, unless {@link #latitude}/{@link #longitude} name an explicit origin.
+     */
+    private BoundingBox viewport;
+    private boolean sortByViewportCenter;
+}
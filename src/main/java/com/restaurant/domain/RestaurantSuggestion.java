@@ -0,0 +1,32 @@
+package com.restaurant.domain;
+
+import com.restaurant.domain.entities.Address;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+
+/**
+ * One completion of a search-box prefix: the matched input (a restaurant name or city) and the restaurant
+ * it was indexed for, read from the suggestion's {@code _source} with {@link #SOURCE_FIELDS}.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class RestaurantSuggestion {
+
+    public static final String[] SOURCE_FIELDS = {"name", "cuisineType", "address.city"};
+
+    @Id
+    private String id;
+
+    private String text;
+
+    private String name;
+
+    private String cuisineType;
+
+    private Address address;
+}
@@ -0,0 +1,49 @@
+package com.restaurant.domain;
+
+import com.restaurant.domain.entities.Address;
+import com.restaurant.domain.entities.Photo;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.elasticsearch.annotations.Field;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read projection of a restaurant for list and search results. Only {@link #SOURCE_FIELDS} are requested
+ * from {@code _source}, so hits stay the same size however many favorites a restaurant collects.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class RestaurantSummary {
+
+    public static final String[] SOURCE_FIELDS = {
+            "name", "cuisineType", "averageRating", "ratingCount", "website", "address", "photos", "priceRange"
+    };
+
+    @Id
+    private String id;
+
+    private String name;
+
+    private String cuisineType;
+
+    private Float averageRating;
+
+    @Field(name = "ratingCount")
+    private Integer reviewCount;
+
+    private String website;
+
+    private Address address;
+
+    @Builder.Default
+    private List<Photo> photos = new ArrayList<>();
+
+    private Integer priceRange;
+}
@@ -0,0 +1,45 @@
+package com.restaurant.domain;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.restaurant.exceptions.InvalidCursorException;
+
+import java.io.IOException;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Opaque position in a {@code search_after} scroll: the sort values of the last hit a client has seen and,
+ * when the scroll is pinned to a snapshot, the point-in-time id. Serialized as base64url JSON so clients
+ * pass it back without interpreting it.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record SearchCursor(List<Object> searchAfter, String pitId) {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    public SearchCursor(List<Object> searchAfter) {
+        this(searchAfter, null);
+    }
+
+    public static SearchCursor decode(String cursor) {
+        try {
+            SearchCursor decoded = MAPPER.readValue(Base64.getUrlDecoder().decode(cursor), SearchCursor.class);
+            if (decoded.searchAfter() == null || decoded.searchAfter().isEmpty()) {
+                throw new InvalidCursorException("Invalid cursor: " + cursor);
+            }
+            return decoded;
+        } catch (IllegalArgumentException | IOException e) {
+            throw new InvalidCursorException("Invalid cursor: " + cursor);
+        }
+    }
+
+    public String encode() {
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(MAPPER.writeValueAsBytes(this));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unable to encode search cursor", e);
+        }
+    }
+}
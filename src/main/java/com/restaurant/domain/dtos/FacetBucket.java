@@ -0,0 +1,11 @@
+package com.restaurant.domain.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class FacetBucket {
+    private String value;
+    private long count;
+}
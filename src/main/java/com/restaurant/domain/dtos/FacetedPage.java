@@ -0,0 +1,25 @@
+package com.restaurant.domain.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.springframework.data.domain.Page;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+@Data
+@AllArgsConstructor
+public class FacetedPage<T> {
+    private Page<T> results;
+
+    /**
+     * Buckets per facet name ({@code cuisineType}, {@code features}, {@code priceRange}, {@code averageRating},
+     * {@code city}), counted over the hits matching every other active filter.
+     */
+    private Map<String, List<FacetBucket>> facets;
+
+    public <R> FacetedPage<R> map(Function<? super T, ? extends R> mapper) {
+        return new FacetedPage<>(results.map(mapper), facets);
+    }
+}
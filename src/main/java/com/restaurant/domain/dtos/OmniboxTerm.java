@@ -0,0 +1,20 @@
+package com.restaurant.domain.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class OmniboxTerm {
+
+    public enum Type {
+        CUISINE, FEATURE, CITY
+    }
+
+    private Type type;
+    private String value;
+    /**
+     * Restaurants with this cuisine or in this city; 0 for features, which are not counted.
+     */
+    private long count;
+}
@@ -0,0 +1,20 @@
+package com.restaurant.domain.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class RestaurantBatch<T> {
+    /**
+     * The restaurants found, in the order their ids were requested.
+     */
+    private List<T> restaurants;
+
+    /**
+     * Requested ids with no restaurant, in request order.
+     */
+    private List<String> missingIds;
+}
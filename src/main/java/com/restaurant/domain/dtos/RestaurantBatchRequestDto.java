@@ -0,0 +1,30 @@
+package com.restaurant.domain.dtos;
+
+import com.restaurant.domain.RestaurantProjection;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class RestaurantBatchRequestDto {
+
+    public static final int MAX_IDS = 100;
+
+    @NotEmpty(message = "At least one restaurant ID is required")
+    @Size(max = MAX_IDS, message = "At most " + MAX_IDS + " restaurant IDs can be requested at once")
+    private List<@NotBlank(message = "Restaurant ID must not be blank") String> ids;
+
+    /**
+     * Defaults to {@link RestaurantProjection#SUMMARY}.
+     */
+    private RestaurantProjection projection;
+}
@@ -0,0 +1,19 @@
+package com.restaurant.domain.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class RestaurantClusterDto {
+    private String key;
+    private long count;
+    private GeoPointDto centroid;
+    private List<RestaurantSummaryDto> restaurants;
+}
@@ -32,7 +32,7 @@ public class RestaurantDto {
 
     private List<PhotoDto> photos = new ArrayList<>();
 
-    private List<ReviewDto> reviews = new ArrayList<>();
+    private Integer reviewCount;
 
     private UserDto createdBy;
 
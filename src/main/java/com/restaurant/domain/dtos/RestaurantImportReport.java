@@ -0,0 +1,32 @@
+package com.restaurant.domain.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class RestaurantImportReport {
+    private long rows;
+    private long imported;
+    private long failed;
+    private long durationMillis;
+    private double rowsPerSecond;
+    /**
+     * The first failures, up to {@code app.import.max-reported-failures}; {@link #failed} counts them all.
+     */
+    private List<RowFailure> failures;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class RowFailure {
+        private long row;
+        private String reason;
+    }
+}
@@ -0,0 +1,40 @@
+package com.restaurant.domain.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDateTime;
+
+/**
+ * Filter query parameters shared by the restaurant search endpoints. Multi-value filters are
+ * comma-separated strings, e.g. {@code cuisineTypes=Italian,Tunisian}; {@code openAt} is a restaurant-local
+ * ISO date-time such as {@code 2025-05-02T21:30}. A viewport is given by all four of its corner coordinates.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class RestaurantSearchParamsDto {
+    private String cuisineTypes;
+    private String name;
+    private Float minRating;
+    private Double latitude;
+    private Double longitude;
+    private Double maxDistanceKm;
+    private String priceRanges;
+    private String features;
+    private boolean filterOpenNow;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime openAt;
+    private boolean requirePhotos;
+    private String createdById;
+    private String address;
+    private Double topLeftLat;
+    private Double topLeftLon;
+    private Double bottomRightLat;
+    private Double bottomRightLon;
+    private boolean sortByViewportCenter;
+}
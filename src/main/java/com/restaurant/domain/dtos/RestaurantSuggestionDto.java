@@ -0,0 +1,18 @@
+package com.restaurant.domain.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class RestaurantSuggestionDto {
+    private String id;
+    private String text;
+    private String name;
+    private String cuisineType;
+    private String city;
+}
@@ -1,6 +1,6 @@
 package com.restaurant.domain.dtos;
 
-import com.restaurant.domain.entities.Restaurant;
+import com.restaurant.domain.RestaurantHeader;
 import com.restaurant.domain.entities.Review;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -9,7 +9,7 @@ import lombok.Data;
 @AllArgsConstructor
 public class ReviewWithRestaurant {
     private Review review;
-    private Restaurant restaurant;
+    private RestaurantHeader restaurant;
 
 
 }
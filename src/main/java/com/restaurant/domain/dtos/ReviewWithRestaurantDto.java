@@ -7,6 +7,6 @@ import lombok.Data;
 @AllArgsConstructor
 @Data
 public class ReviewWithRestaurantDto {
-    private RestaurantDto restaurant;
+    private RestaurantHeaderDto restaurant;
     private ReviewDto review;
 }
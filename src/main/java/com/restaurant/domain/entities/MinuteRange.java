@@ -0,0 +1,18 @@
+package com.restaurant.domain.entities;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Inclusive range of minutes from Monday 00:00, stored as an Elasticsearch {@code integer_range}.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class MinuteRange {
+    private Integer gte;
+    private Integer lte;
+}
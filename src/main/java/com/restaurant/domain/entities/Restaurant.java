@@ -5,16 +5,26 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.elasticsearch.annotations.CompletionContext;
+import org.springframework.data.elasticsearch.annotations.CompletionField;
+import org.springframework.data.elasticsearch.annotations.DateFormat;
 import org.springframework.data.elasticsearch.annotations.Document;
 import org.springframework.data.elasticsearch.annotations.Field;
 import org.springframework.data.elasticsearch.annotations.FieldType;
 import org.springframework.data.elasticsearch.annotations.GeoPointField;
+import org.springframework.data.elasticsearch.annotations.InnerField;
+import org.springframework.data.elasticsearch.annotations.MultiField;
+import org.springframework.data.elasticsearch.annotations.Setting;
 import org.springframework.data.elasticsearch.core.geo.GeoPoint;
+import org.springframework.data.elasticsearch.core.query.SeqNoPrimaryTerm;
+import org.springframework.data.elasticsearch.core.suggest.Completion;
 
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 
 @Document(indexName = "restaurants")
+@Setting(settingPath = "/elasticsearch/restaurant-settings.json")
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
@@ -24,9 +34,30 @@ public class Restaurant {
     @Id
     private String id;
 
-    @Field(type = FieldType.Keyword)
+    /**
+     * {@code name.ngram} (trigrams) backs substring search, {@code name.prefix} (edge n-grams) handles inputs
+     * shorter than a trigram, and {@code name.normalized} is the case- and accent-folded exact value.
+     */
+    @MultiField(
+            mainField = @Field(type = FieldType.Keyword),
+            otherFields = {
+                    @InnerField(suffix = "ngram", type = FieldType.Text, analyzer = "name_trigram"),
+                    @InnerField(suffix = "prefix", type = FieldType.Text, analyzer = "name_prefix", searchAnalyzer = "name_search"),
+                    @InnerField(suffix = "normalized", type = FieldType.Keyword, normalizer = "name_normalizer")
+            }
+    )
     private String name;
 
+    /**
+     * Search-as-you-type inputs, the name and the city, derived on every write. The {@code cuisine} and
+     * {@code location} contexts are indexed from {@link #cuisineType} and {@link #geoLocation}.
+     */
+    @CompletionField(analyzer = "name_search", searchAnalyzer = "name_search", contexts = {
+            @CompletionContext(name = "cuisine", type = CompletionContext.ContextMappingType.CATEGORY, path = "cuisineType"),
+            @CompletionContext(name = "location", type = CompletionContext.ContextMappingType.GEO, path = "geoLocation")
+    })
+    private Completion suggest;
+
     @Field(type = FieldType.Keyword)
     private String cuisineType;
 
@@ -39,6 +70,12 @@ public class Restaurant {
     @Field(type = FieldType.Float)
     private Float averageRating;
 
+    @Field(type = FieldType.Long)
+    private Long ratingSum;
+
+    @Field(type = FieldType.Integer)
+    private Integer ratingCount;
+
     @Field(type = FieldType.Integer)
     private Integer priceRange;
 
@@ -51,11 +88,14 @@ public class Restaurant {
     @Field(type = FieldType.Nested)
     private OperatingHours operatingHours;
 
-    @Field(type = FieldType.Nested)
-    private List<Photo> photos = new ArrayList<>();
+    /**
+     * Derived from {@link #operatingHours} on every write, see {@link com.restaurant.domain.OpeningIntervals}.
+     */
+    @Field(type = FieldType.Integer_Range)
+    private List<MinuteRange> openIntervals;
 
     @Field(type = FieldType.Nested)
-    private List<Review> reviews = new ArrayList<>();
+    private List<Photo> photos = new ArrayList<>();
 
     @Field(type = FieldType.Keyword)
     private List<String> features;
@@ -66,4 +106,12 @@ public class Restaurant {
     @Field(type = FieldType.Keyword)
     private List<String> favoritesByUsers = new ArrayList<>();
 
+    /**
+     * Stamped by every write path, including the rating scripts; lets a restarted replica find what changed.
+     */
+    @Field(type = FieldType.Date, format = DateFormat.epoch_millis)
+    private Instant lastModified;
+
+    private SeqNoPrimaryTerm seqNoPrimaryTerm;
+
 }
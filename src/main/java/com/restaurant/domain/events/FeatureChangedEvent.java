@@ -0,0 +1,7 @@
+package com.restaurant.domain.events;
+
+/**
+ * Published after a feature is saved or deleted; {@code name} is {@code null} for a deletion.
+ */
+public record FeatureChangedEvent(String featureId, String name) {
+}
@@ -0,0 +1,8 @@
+package com.restaurant.domain.events;
+
+/**
+ * Published after a write that changes what a restaurant looks like in search results: the restaurant
+ * itself or its reviews, and therefore its rating.
+ */
+public record RestaurantChangedEvent(String restaurantId) {
+}
@@ -0,0 +1,10 @@
+package com.restaurant.domain.events;
+
+import java.util.List;
+
+/**
+ * Published once for a batch of restaurant writes, such as one bulk request of an import, in place of a
+ * {@link RestaurantChangedEvent} per restaurant.
+ */
+public record RestaurantsChangedEvent(List<String> restaurantIds) {
+}
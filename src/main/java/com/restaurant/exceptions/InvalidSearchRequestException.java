@@ -0,0 +1,7 @@
+package com.restaurant.exceptions;
+
+public class InvalidSearchRequestException extends RuntimeException {
+    public InvalidSearchRequestException(String message) {
+        super(message);
+    }
+}
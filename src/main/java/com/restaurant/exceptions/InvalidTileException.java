@@ -0,0 +1,7 @@
+package com.restaurant.exceptions;
+
+public class InvalidTileException extends RuntimeException {
+    public InvalidTileException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.restaurant.exceptions;
+
+public class WritesSuspendedException extends RuntimeException {
+    public WritesSuspendedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
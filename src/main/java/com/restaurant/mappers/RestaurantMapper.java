@@ -1,37 +1,53 @@
 package com.restaurant.mappers;
 
+import com.restaurant.domain.GeoLocation;
+import com.restaurant.domain.RestaurantCluster;
 import com.restaurant.domain.RestaurantCreateUpdateRequest;
+import com.restaurant.domain.RestaurantHeader;
+import com.restaurant.domain.RestaurantSuggestion;
+import com.restaurant.domain.RestaurantSummary;
 import com.restaurant.domain.dtos.GeoPointDto;
+import com.restaurant.domain.dtos.PhotoDto;
+import com.restaurant.domain.dtos.RestaurantClusterDto;
 import com.restaurant.domain.dtos.RestaurantCreateUpdateRequestDto;
 import com.restaurant.domain.dtos.RestaurantDto;
+import com.restaurant.domain.dtos.RestaurantHeaderDto;
+import com.restaurant.domain.dtos.RestaurantSuggestionDto;
 import com.restaurant.domain.dtos.RestaurantSummaryDto;
+import com.restaurant.domain.entities.Photo;
 import com.restaurant.domain.entities.Restaurant;
-import com.restaurant.domain.entities.Review;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
-import org.mapstruct.Named;
 import org.mapstruct.ReportingPolicy;
 import org.springframework.data.elasticsearch.core.geo.GeoPoint;
 
-import java.util.List;
-
 @Mapper(componentModel = "spring", unmappedTargetPolicy = ReportingPolicy.IGNORE)
 public interface RestaurantMapper {
 
 
     RestaurantCreateUpdateRequest toRestaurantCreateUpdateRequest(RestaurantCreateUpdateRequestDto dto);
 
+    @Mapping(source = "ratingCount", target = "reviewCount")
     RestaurantDto toRestaurantDto(Restaurant restaurant);
 
-    @Mapping(source = "reviews", target = "totalReviews", qualifiedByName = "populateTotalReviews")
+    @Mapping(source = "ratingCount", target = "totalReviews")
     RestaurantSummaryDto toSummaryDto(Restaurant restaurant);
 
-    @Named("populateTotalReviews")
-    default Integer populateTotalReviews(List<Review> reviews) {
-        return reviews.size();
-    }
+    @Mapping(source = "reviewCount", target = "totalReviews")
+    RestaurantSummaryDto toSummaryDto(RestaurantSummary restaurant);
+
+    RestaurantHeaderDto toHeaderDto(RestaurantHeader header);
+
+    PhotoDto toPhotoDto(Photo photo);
 
     @Mapping(target = "latitude", expression = "java(geoPoint.getLat())")
     @Mapping(target = "longitude", expression = "java(geoPoint.getLon())")
     GeoPointDto toGeoPointDto(GeoPoint geoPoint);
+
+    GeoPointDto toGeoPointDto(GeoLocation geoLocation);
+
+    RestaurantClusterDto toClusterDto(RestaurantCluster cluster);
+
+    @Mapping(source = "address.city", target = "city")
+    RestaurantSuggestionDto toSuggestionDto(RestaurantSuggestion suggestion);
 }
\ No newline at end of file
@@ -0,0 +1,82 @@
+package com.restaurant.migrations;
+
+import com.restaurant.domain.entities.Restaurant;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.document.Document;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.data.elasticsearch.core.query.ByQueryResponse;
+import org.springframework.data.elasticsearch.core.query.ScriptType;
+import org.springframework.data.elasticsearch.core.query.UpdateQuery;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Adds the {@code lastModified} mapping to an existing restaurants index and stamps the restaurants written
+ * before it existed with the migration time. The script leaves an already stamped document alone, so a
+ * concurrent write keeps its own stamp; safe to re-run on every startup.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class LastModifiedMigration implements Migration {
+
+    private static final String LAST_MODIFIED_MAPPING = """
+            {"properties": {"lastModified": {"type": "date", "format": "epoch_millis"}}}
+            """;
+    private static final String STAMP_SCRIPT = """
+            if (ctx._source.lastModified == null) {
+                ctx._source.lastModified = params.lastModified;
+            } else {
+                ctx.op = 'noop';
+            }
+            """;
+
+    private final ElasticsearchOperations elasticsearchOperations;
+
+    @Value("${app.migrations.last-modified.enabled:true}")
+    private boolean enabled;
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public boolean migrate() {
+        IndexCoordinates restaurantsIndex = elasticsearchOperations.getIndexCoordinatesFor(Restaurant.class);
+
+        NativeQuery missingLastModified = NativeQuery.builder()
+                .withQuery(q -> q
+                        .bool(b -> b
+                                .mustNot(m -> m.exists(e -> e.field("lastModified")))
+                        )
+                )
+                .build();
+
+        UpdateQuery updateQuery = UpdateQuery.builder(missingLastModified)
+                .withScript(STAMP_SCRIPT)
+                .withScriptType(ScriptType.INLINE)
+                .withLang("painless")
+                .withParams(Map.of("lastModified", System.currentTimeMillis()))
+                .withAbortOnVersionConflict(false)
+                .build();
+
+        try {
+            elasticsearchOperations.indexOps(restaurantsIndex).putMapping(Document.parse(LAST_MODIFIED_MAPPING));
+
+            ByQueryResponse response = elasticsearchOperations.updateByQuery(updateQuery, restaurantsIndex);
+            if (response.getUpdated() > 0) {
+                log.info("Stamped lastModified on {} restaurants", response.getUpdated());
+            }
+        } catch (RuntimeException e) {
+            log.error("Last modified migration failed", e);
+            return false;
+        }
+        return true;
+    }
+}
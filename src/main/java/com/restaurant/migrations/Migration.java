@@ -0,0 +1,16 @@
+package com.restaurant.migrations;
+
+/**
+ * A change to the restaurant data already in the index, run in order by {@link MigrationRunner}. Every
+ * migration must be safe to re-run on every startup.
+ */
+interface Migration {
+
+    boolean isEnabled();
+
+    /**
+     * @return whether the data is now fully migrated; false if the migration failed or left work for the next
+     * startup
+     */
+    boolean migrate();
+}
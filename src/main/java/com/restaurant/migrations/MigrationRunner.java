@@ -0,0 +1,60 @@
+package com.restaurant.migrations;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs the migrations one after another on a single background thread once the application is ready, so
+ * the service keeps serving traffic meanwhile and no two migrations ever touch the index at the same time.
+ * <p>
+ * The order matters. Rating counters are seeded and embedded reviews moved out while the old mapping is still
+ * in place; the index is only copied onto the new mapping, which has no nested {@code reviews}, once no
+ * embedded review is left. Mapping-only migrations come last, and the completion mapping only once the index
+ * has the {@code name_search} analyzer it refers to. A migration that cannot finish holds back the ones that
+ * depend on it until the next startup.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class MigrationRunner {
+
+    private final RatingCountersMigration ratingCountersMigration;
+    private final ReviewIndexMigration reviewIndexMigration;
+    private final RestaurantIndexMigration restaurantIndexMigration;
+    private final OpenIntervalsMigration openIntervalsMigration;
+    private final LastModifiedMigration lastModifiedMigration;
+    private final SuggestMigration suggestMigration;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateInBackground() {
+        Thread.ofVirtual().name("index-migrations").start(this::migrate);
+    }
+
+    void migrate() {
+        run(ratingCountersMigration);
+        boolean reviewsMoved = run(reviewIndexMigration);
+
+        boolean reindexed = false;
+        if (reviewsMoved) {
+            reindexed = run(restaurantIndexMigration);
+        } else {
+            log.warn("Restaurant index migration postponed: embedded reviews are left to move");
+        }
+
+        run(openIntervalsMigration);
+        run(lastModifiedMigration);
+
+        if (reindexed) {
+            run(suggestMigration);
+        } else {
+            log.warn("Suggest migration postponed: the restaurant index is not on the current settings yet");
+        }
+    }
+
+    private static boolean run(Migration migration) {
+        return !migration.isEnabled() || migration.migrate();
+    }
+}
@@ -0,0 +1,137 @@
+package com.restaurant.migrations;
+
+import com.restaurant.domain.OpeningIntervals;
+import com.restaurant.domain.entities.MinuteRange;
+import com.restaurant.domain.entities.OperatingHours;
+import com.restaurant.domain.entities.Restaurant;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.SearchHit;
+import org.springframework.data.elasticsearch.core.SearchHitsIterator;
+import org.springframework.data.elasticsearch.core.document.Document;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.data.elasticsearch.core.query.FetchSourceFilterBuilder;
+import org.springframework.data.elasticsearch.core.query.SeqNoPrimaryTerm;
+import org.springframework.data.elasticsearch.core.query.UpdateQuery;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Adds the {@code openIntervals} mapping to an existing restaurants index and derives the intervals for
+ * restaurants written before they existed. Each document is updated only if it has not changed since it was
+ * read, so a concurrent edit (which derives its own intervals) always wins; safe to re-run on every startup.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OpenIntervalsMigration implements Migration {
+    private static final int BATCH_SIZE = 500;
+    private static final String OPEN_INTERVALS_MAPPING = """
+            {"properties": {"openIntervals": {"type": "integer_range"}}}
+            """;
+
+    private final ElasticsearchOperations elasticsearchOperations;
+
+    @Value("${app.migrations.open-intervals.enabled:true}")
+    private boolean enabled;
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public boolean migrate() {
+        IndexCoordinates restaurantsIndex = elasticsearchOperations.getIndexCoordinatesFor(Restaurant.class);
+
+        NativeQuery query = NativeQuery.builder()
+                .withQuery(q -> q
+                        .bool(b -> b
+                                .mustNot(m -> m.exists(e -> e.field("openIntervals")))
+                        )
+                )
+                .withSourceFilter(new FetchSourceFilterBuilder().withIncludes("operatingHours").build())
+                .withPageable(PageRequest.of(0, BATCH_SIZE))
+                .build();
+
+        int migrated = 0;
+        int skipped = 0;
+        try {
+            elasticsearchOperations.indexOps(restaurantsIndex).putMapping(Document.parse(OPEN_INTERVALS_MAPPING));
+
+            try (SearchHitsIterator<StoredOperatingHours> hits =
+                         elasticsearchOperations.searchForStream(query, StoredOperatingHours.class, restaurantsIndex)) {
+                while (hits.hasNext()) {
+                    if (migrateRestaurant(hits.next(), restaurantsIndex)) {
+                        migrated++;
+                    } else {
+                        skipped++;
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            log.error("Open intervals migration aborted after {} restaurants", migrated, e);
+            return false;
+        }
+
+        if (migrated > 0) {
+            log.info("Open intervals migration finished: {} restaurants migrated, {} without hours or changed concurrently",
+                    migrated, skipped);
+        }
+        return true;
+    }
+
+    private boolean migrateRestaurant(SearchHit<StoredOperatingHours> hit, IndexCoordinates restaurantsIndex) {
+        List<MinuteRange> intervals = OpeningIntervals.of(hit.getContent().getOperatingHours());
+        if (intervals.isEmpty()) {
+            return false;
+        }
+
+        List<Map<String, Integer>> ranges = intervals.stream()
+                .map(range -> Map.of("gte", range.getGte(), "lte", range.getLte()))
+                .toList();
+
+        UpdateQuery.Builder updateQuery = UpdateQuery.builder(hit.getId())
+                .withDocument(Document.from(Map.of(
+                        "openIntervals", ranges,
+                        "lastModified", System.currentTimeMillis()
+                )));
+
+        SeqNoPrimaryTerm seqNoPrimaryTerm = hit.getContent().getSeqNoPrimaryTerm();
+        if (seqNoPrimaryTerm != null) {
+            updateQuery
+                    .withIfSeqNo((int) seqNoPrimaryTerm.sequenceNumber())
+                    .withIfPrimaryTerm((int) seqNoPrimaryTerm.primaryTerm());
+        }
+
+        try {
+            elasticsearchOperations.update(updateQuery.build(), restaurantsIndex);
+            return true;
+        } catch (OptimisticLockingFailureException e) {
+            log.debug("Restaurant {} changed while its open intervals were being derived", hit.getId());
+            return false;
+        }
+    }
+
+    @Data
+    @NoArgsConstructor
+    public static class StoredOperatingHours {
+
+        @Id
+        private String id;
+
+        private SeqNoPrimaryTerm seqNoPrimaryTerm;
+
+        private OperatingHours operatingHours;
+    }
+}
@@ -0,0 +1,70 @@
+package com.restaurant.migrations;
+
+import com.restaurant.domain.entities.Restaurant;
+import com.restaurant.services.impl.RestaurantRatingUpdates;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.query.ByQueryResponse;
+import org.springframework.data.elasticsearch.core.query.ScriptType;
+import org.springframework.data.elasticsearch.core.query.UpdateQuery;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Backfills {@code ratingSum} and {@code ratingCount} on restaurants indexed before the counters existed.
+ * <p>
+ * Uses the same seeding script as the review write path, so a document seeded here and one seeded by a
+ * concurrent review end up with identical counters whichever runs first.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RatingCountersMigration implements Migration {
+
+    private final ElasticsearchOperations elasticsearchOperations;
+
+    @Value("${app.migrations.rating-counters.enabled:true}")
+    private boolean enabled;
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public boolean migrate() {
+        NativeQuery missingCounters = NativeQuery.builder()
+                .withQuery(q -> q
+                        .bool(b -> b
+                                .mustNot(m -> m.exists(e -> e.field("ratingSum")))
+                        )
+                )
+                .build();
+
+        UpdateQuery updateQuery = UpdateQuery.builder(missingCounters)
+                .withScript(RestaurantRatingUpdates.ADJUST_RATING_SCRIPT)
+                .withScriptType(ScriptType.INLINE)
+                .withLang("painless")
+                .withParams(Map.of("sumDelta", 0L, "countDelta", 0, "lastModified", System.currentTimeMillis()))
+                .withAbortOnVersionConflict(false)
+                .build();
+
+        try {
+            ByQueryResponse response = elasticsearchOperations.updateByQuery(
+                    updateQuery,
+                    elasticsearchOperations.getIndexCoordinatesFor(Restaurant.class)
+            );
+            if (response.getUpdated() > 0) {
+                log.info("Seeded rating counters on {} restaurants", response.getUpdated());
+            }
+        } catch (RuntimeException e) {
+            log.error("Rating counters migration failed", e);
+            return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,297 @@
+package com.restaurant.migrations;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import com.restaurant.domain.entities.Restaurant;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.elasticsearch.annotations.Document.VersionType;
+import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.IndexInformation;
+import org.springframework.data.elasticsearch.core.IndexOperations;
+import org.springframework.data.elasticsearch.core.MultiGetItem;
+import org.springframework.data.elasticsearch.core.SearchHitsIterator;
+import org.springframework.data.elasticsearch.core.index.AliasAction;
+import org.springframework.data.elasticsearch.core.index.AliasActionParameters;
+import org.springframework.data.elasticsearch.core.index.AliasActions;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.data.elasticsearch.core.query.FetchSourceFilterBuilder;
+import org.springframework.data.elasticsearch.core.query.Query;
+import org.springframework.data.elasticsearch.core.query.SourceFilter;
+import org.springframework.data.elasticsearch.core.reindex.ReindexRequest;
+import org.springframework.data.elasticsearch.core.reindex.ReindexResponse;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Moves the restaurants index onto the mapping declared by {@link Restaurant} when the live index predates it
+ * (currently: the {@code name} n-gram subfields), without taking reads or writes offline.
+ * <p>
+ * The documents are copied into a new versioned index ({@code restaurants_v2}, {@code restaurants_v3}, ...)
+ * while the old one keeps serving. Catch-up passes then copy only the restaurants whose {@code lastModified}
+ * moved since the previous pass began, which every write path stamps, until a pass finds little left to copy,
+ * and a sweep deletes from the new index the restaurants deleted from the old one meanwhile, since a reindex
+ * cannot carry deletes over.
+ * <p>
+ * Only the last catch-up pass runs with the old index write-blocked, followed by the atomic move of the
+ * {@code restaurants} alias; the delete sweep is repeated under the block only if the two indices still differ
+ * in size. Writes rejected by the block are retried by the application until the alias has moved (see
+ * {@code WriteBlockRetry}), so they are delayed for that short window, not failed. The old index is deleted
+ * afterwards unless {@code app.migrations.restaurant-index.keep-previous} keeps it, write-blocked, for rollback.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RestaurantIndexMigration implements Migration {
+
+    private static final int SWEEP_BATCH_SIZE = 1000;
+    private static final int MAX_CATCH_UP_PASSES = 5;
+    // A catch-up pass that copies no more than this goes straight to the write-blocked final pass.
+    private static final long CATCH_UP_THRESHOLD = 100;
+    // Each pass starts this far before the previous one began, to cover clock drift between the pods stamping
+    // lastModified and writes not yet refreshed into view when that pass read the index.
+    private static final Duration CATCH_UP_OVERLAP = Duration.ofMinutes(1);
+    private static final SourceFilter NO_SOURCE = new FetchSourceFilterBuilder().withExcludes("*").build();
+
+    private final ElasticsearchOperations elasticsearchOperations;
+    private final ElasticsearchClient elasticsearchClient;
+
+    @Value("${app.migrations.restaurant-index.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.migrations.restaurant-index.keep-previous:false}")
+    private boolean keepPrevious;
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public boolean migrate() {
+        IndexOperations restaurantIndex = elasticsearchOperations.indexOps(Restaurant.class);
+        String alias = restaurantIndex.getIndexCoordinates().getIndexName();
+
+        try {
+            List<IndexInformation> current = restaurantIndex.getInformation(restaurantIndex.getIndexCoordinates());
+            if (current.size() != 1) {
+                log.warn("Skipping restaurant index migration: {} resolves to {} indices", alias, current.size());
+                return false;
+            }
+
+            IndexInformation source = current.get(0);
+            if (hasNameSubfields(source.getMapping())) {
+                return true;
+            }
+
+            String target = nextVersion(alias, source.getName());
+            log.info("Migrating {} from {} to {}", alias, source.getName(), target);
+
+            elasticsearchOperations.indexOps(IndexCoordinates.of(target)).create(
+                    restaurantIndex.createSettings(Restaurant.class),
+                    restaurantIndex.createMapping(Restaurant.class)
+            );
+            long changedSince = passStart();
+            copy(source.getName(), target, null);
+            for (int pass = 1; pass <= MAX_CATCH_UP_PASSES; pass++) {
+                long nextChangedSince = passStart();
+                long copied = copy(source.getName(), target, changedSince);
+                changedSince = nextChangedSince;
+                if (copied <= CATCH_UP_THRESHOLD) {
+                    break;
+                }
+            }
+            dropDeleted(source.getName(), target);
+
+            setWriteBlock(source.getName(), true);
+            boolean switched = false;
+            try {
+                // Writes acknowledged just before the block must be visible to the final pass.
+                elasticsearchOperations.indexOps(IndexCoordinates.of(source.getName())).refresh();
+                copy(source.getName(), target, changedSince);
+                // Every restaurant of the old index is in the new one by now, so equal sizes mean equal sets.
+                if (count(source.getName()) != count(target)) {
+                    dropDeleted(source.getName(), target);
+                }
+                restaurantIndex.alias(switchAlias(alias, source.getName(), target));
+                switched = true;
+            } finally {
+                if (!switched) {
+                    setWriteBlock(source.getName(), false);
+                }
+            }
+
+            log.info("{} now points to {}", alias, target);
+            retire(alias, source.getName());
+            return true;
+        } catch (IOException | RuntimeException e) {
+            log.error("Restaurant index migration failed", e);
+            return false;
+        }
+    }
+
+    /**
+     * Copies the restaurants of {@code source} into {@code target}, all of them or only those modified since
+     * {@code changedSince}. External versioning skips the ones {@code target} already holds in that version.
+     *
+     * @return the number of restaurants written to {@code target}
+     */
+    private long copy(String source, String target, Long changedSince) {
+        ReindexRequest.ReindexRequestBuilder request = ReindexRequest
+                .builder(IndexCoordinates.of(source), IndexCoordinates.of(target))
+                .withDestVersionType(VersionType.EXTERNAL)
+                .withConflicts(ReindexRequest.Conflicts.PROCEED)
+                .withRefresh(true);
+        if (changedSince != null) {
+            request.withSourceQuery(NativeQuery.builder()
+                    .withQuery(q -> q.range(r -> r.date(d -> d
+                            .field("lastModified")
+                            .gte(String.valueOf(changedSince))
+                            .format("epoch_millis"))))
+                    .build());
+        }
+
+        ReindexResponse response = elasticsearchOperations.reindex(request.build());
+        if (!response.getFailures().isEmpty()) {
+            throw new IllegalStateException("Reindex into " + target + " failed: " + response.getFailures());
+        }
+        long copied = response.getCreated() + response.getUpdated();
+        log.info("Copied {} restaurants into {} ({} unchanged)", copied, target, response.getVersionConflicts());
+        return copied;
+    }
+
+    private static long passStart() {
+        return System.currentTimeMillis() - CATCH_UP_OVERLAP.toMillis();
+    }
+
+    private long count(String index) {
+        return elasticsearchOperations.count(Query.findAll(), IndexCoordinates.of(index));
+    }
+
+    /**
+     * Deletes the index the alias pointed to before. A first migration has already removed it with the alias
+     * update, as it bore the alias's name.
+     */
+    private void retire(String alias, String previous) {
+        if (previous.equals(alias)) {
+            return;
+        }
+        if (keepPrevious) {
+            log.warn("Kept {}, write-blocked, for rollback; delete it once {} is verified", previous, alias);
+            return;
+        }
+        elasticsearchOperations.indexOps(IndexCoordinates.of(previous)).delete();
+        log.info("Deleted {}", previous);
+    }
+
+    /**
+     * Deletes from {@code target} the restaurants deleted from {@code source} since the copy began, checking
+     * {@code target}'s ids against {@code source} in batches.
+     */
+    private void dropDeleted(String source, String target) {
+        NativeQuery allIds = NativeQuery.builder()
+                .withQuery(q -> q.matchAll(m -> m))
+                .withSourceFilter(NO_SOURCE)
+                .withPageable(PageRequest.of(0, SWEEP_BATCH_SIZE))
+                .build();
+
+        int deleted = 0;
+        List<String> batch = new ArrayList<>(SWEEP_BATCH_SIZE);
+        try (SearchHitsIterator<StoredId> hits =
+                     elasticsearchOperations.searchForStream(allIds, StoredId.class, IndexCoordinates.of(target))) {
+            while (hits.hasNext()) {
+                batch.add(hits.next().getId());
+                if (batch.size() == SWEEP_BATCH_SIZE || !hits.hasNext()) {
+                    deleted += dropMissing(batch, source, target);
+                    batch.clear();
+                }
+            }
+        }
+        if (deleted > 0) {
+            log.info("Removed {} restaurants from {} that were deleted during the copy", deleted, target);
+        }
+    }
+
+    private int dropMissing(List<String> ids, String source, String target) {
+        NativeQuery lookup = NativeQuery.builder()
+                .withIds(ids)
+                .withSourceFilter(NO_SOURCE)
+                .build();
+        List<MultiGetItem<StoredId>> items =
+                elasticsearchOperations.multiGet(lookup, StoredId.class, IndexCoordinates.of(source));
+
+        int deleted = 0;
+        for (int i = 0; i < items.size(); i++) {
+            MultiGetItem<StoredId> item = items.get(i);
+            if (item.isFailed()) {
+                throw new IllegalStateException("Could not check " + ids.get(i) + " in " + source,
+                        item.getFailure().getException());
+            }
+            if (!item.hasItem()) {
+                elasticsearchOperations.delete(ids.get(i), IndexCoordinates.of(target));
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    private void setWriteBlock(String index, boolean blocked) throws IOException {
+        elasticsearchClient.indices().putSettings(p -> p
+                .index(index)
+                .settings(s -> s.blocks(b -> b.write(blocked)))
+        );
+    }
+
+    /**
+     * A first migration replaces the original concrete index with an alias of the same name, so that index is
+     * removed in the same atomic request. Later migrations only move the alias and retire the previous version
+     * afterwards.
+     */
+    private static AliasActions switchAlias(String alias, String source, String target) {
+        AliasAction detach = source.equals(alias)
+                ? new AliasAction.RemoveIndex(AliasActionParameters.builder().withIndices(source).build())
+                : new AliasAction.Remove(AliasActionParameters.builder().withIndices(source).withAliases(alias).build());
+
+        return new AliasActions(
+                detach,
+                new AliasAction.Add(AliasActionParameters.builder().withIndices(target).withAliases(alias).build())
+        );
+    }
+
+    private static String nextVersion(String alias, String currentIndex) {
+        Matcher matcher = Pattern.compile(Pattern.quote(alias) + "_v(\\d+)").matcher(currentIndex);
+        int version = matcher.matches() ? Integer.parseInt(matcher.group(1)) + 1 : 2;
+        return alias + "_v" + version;
+    }
+
+    /**
+     * A restaurant reduced to its id, for the delete sweep.
+     */
+    @Data
+    @NoArgsConstructor
+    public static class StoredId {
+
+        @Id
+        private String id;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static boolean hasNameSubfields(Map<String, Object> mapping) {
+        Map<String, Object> properties = (Map<String, Object>) mapping.getOrDefault("properties", Map.of());
+        Map<String, Object> name = (Map<String, Object>) properties.getOrDefault("name", Map.of());
+        Map<String, Object> fields = (Map<String, Object>) name.getOrDefault("fields", Map.of());
+        return fields.containsKey("ngram") && fields.containsKey("prefix") && fields.containsKey("normalized");
+    }
+}
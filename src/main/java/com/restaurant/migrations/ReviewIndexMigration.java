@@ -0,0 +1,142 @@
+package com.restaurant.migrations;
+
+import com.restaurant.domain.entities.Restaurant;
+import com.restaurant.domain.entities.Review;
+import com.restaurant.repositories.ReviewRepository;
+import com.restaurant.services.impl.RestaurantRatingUpdates;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.SearchHit;
+import org.springframework.data.elasticsearch.core.SearchHitsIterator;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.data.elasticsearch.core.query.FetchSourceFilterBuilder;
+import org.springframework.data.elasticsearch.core.query.ScriptType;
+import org.springframework.data.elasticsearch.core.query.SeqNoPrimaryTerm;
+import org.springframework.data.elasticsearch.core.query.UpdateQuery;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Moves reviews that are still embedded in restaurant documents into the dedicated {@code reviews} index.
+ * <p>
+ * Run by {@link MigrationRunner} before the restaurant index is copied onto a mapping without them. Review ids
+ * are preserved and the embedded list is only dropped when the restaurant has not changed since it was read,
+ * which makes the migration safe to re-run on every startup.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ReviewIndexMigration implements Migration {
+    private static final int BATCH_SIZE = 200;
+    private static final String REMOVE_EMBEDDED_REVIEWS_SCRIPT = RestaurantRatingUpdates.SEED_COUNTERS_SCRIPT + """
+            ctx._source.remove('reviews');
+            ctx._source.lastModified = params.lastModified;
+            """;
+
+    private final ElasticsearchOperations elasticsearchOperations;
+    private final ReviewRepository reviewRepository;
+
+    @Value("${app.migrations.review-index.enabled:true}")
+    private boolean enabled;
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public boolean migrate() {
+        IndexCoordinates restaurantsIndex = elasticsearchOperations.getIndexCoordinatesFor(Restaurant.class);
+
+        NativeQuery query = NativeQuery.builder()
+                .withQuery(q -> q
+                        .nested(n -> n
+                                .path("reviews")
+                                .ignoreUnmapped(true)
+                                .query(q2 -> q2.exists(e -> e.field("reviews.id")))
+                        )
+                )
+                .withSourceFilter(new FetchSourceFilterBuilder().withIncludes("reviews").build())
+                .withPageable(PageRequest.of(0, BATCH_SIZE))
+                .build();
+
+        int migrated = 0;
+        int skipped = 0;
+        try (SearchHitsIterator<EmbeddedReviews> hits =
+                     elasticsearchOperations.searchForStream(query, EmbeddedReviews.class, restaurantsIndex)) {
+            while (hits.hasNext()) {
+                if (migrateRestaurant(hits.next(), restaurantsIndex)) {
+                    migrated++;
+                } else {
+                    skipped++;
+                }
+            }
+        } catch (RuntimeException e) {
+            log.error("Review index migration aborted after {} restaurants", migrated, e);
+            return false;
+        }
+
+        if (migrated > 0 || skipped > 0) {
+            log.info("Review index migration finished: {} restaurants migrated, {} changed concurrently and left for the next run",
+                    migrated, skipped);
+        }
+        return skipped == 0;
+    }
+
+    private boolean migrateRestaurant(SearchHit<EmbeddedReviews> hit, IndexCoordinates restaurantsIndex) {
+        String restaurantId = hit.getId();
+        EmbeddedReviews embedded = hit.getContent();
+        List<Review> reviews = embedded.getReviews();
+
+        reviews.forEach(review -> review.setRestaurantId(restaurantId));
+        reviewRepository.saveAll(reviews);
+
+        UpdateQuery.Builder updateQuery = UpdateQuery.builder(restaurantId)
+                .withScript(REMOVE_EMBEDDED_REVIEWS_SCRIPT)
+                .withScriptType(ScriptType.INLINE)
+                .withLang("painless")
+                // The seeded rating is a change the search replicas have to pick up.
+                .withParams(Map.of("lastModified", System.currentTimeMillis()));
+
+        SeqNoPrimaryTerm seqNoPrimaryTerm = embedded.getSeqNoPrimaryTerm();
+        if (seqNoPrimaryTerm != null) {
+            updateQuery
+                    .withIfSeqNo((int) seqNoPrimaryTerm.sequenceNumber())
+                    .withIfPrimaryTerm((int) seqNoPrimaryTerm.primaryTerm());
+        }
+
+        try {
+            elasticsearchOperations.update(updateQuery.build(), restaurantsIndex);
+            return true;
+        } catch (OptimisticLockingFailureException e) {
+            log.debug("Restaurant {} changed while its reviews were being migrated", restaurantId);
+            return false;
+        }
+    }
+
+    /**
+     * Read-only view of the legacy {@code reviews} field that used to be nested in restaurant documents.
+     */
+    @Data
+    @NoArgsConstructor
+    public static class EmbeddedReviews {
+
+        @Id
+        private String id;
+
+        private SeqNoPrimaryTerm seqNoPrimaryTerm;
+
+        private List<Review> reviews = new ArrayList<>();
+    }
+}
@@ -0,0 +1,99 @@
+package com.restaurant.migrations;
+
+import com.restaurant.domain.entities.Restaurant;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.document.Document;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.data.elasticsearch.core.query.ByQueryResponse;
+import org.springframework.data.elasticsearch.core.query.ScriptType;
+import org.springframework.data.elasticsearch.core.query.UpdateQuery;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Adds the {@code suggest} completion mapping to an existing restaurants index and derives the inputs (name
+ * and city, as the write path does) for restaurants written before it existed. A document that already has
+ * inputs is left alone; safe to re-run on every startup.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SuggestMigration implements Migration {
+
+    private static final String SUGGEST_MAPPING = """
+            {"properties": {"suggest": {
+                "type": "completion",
+                "analyzer": "name_search",
+                "search_analyzer": "name_search",
+                "contexts": [
+                    {"name": "cuisine", "type": "category", "path": "cuisineType"},
+                    {"name": "location", "type": "geo", "path": "geoLocation"}
+                ]
+            }}}
+            """;
+    private static final String DERIVE_INPUTS_SCRIPT = """
+            if (ctx._source.suggest != null) {
+                ctx.op = 'noop';
+                return;
+            }
+            def inputs = [];
+            if (ctx._source.name != null && !ctx._source.name.isBlank()) {
+                inputs.add(ctx._source.name);
+            }
+            def address = ctx._source.address;
+            if (address != null && address.city != null && !address.city.isBlank()) {
+                inputs.add(address.city);
+            }
+            ctx._source.suggest = ['input': inputs];
+            ctx._source.lastModified = params.lastModified;
+            """;
+
+    private final ElasticsearchOperations elasticsearchOperations;
+
+    @Value("${app.migrations.suggest.enabled:true}")
+    private boolean enabled;
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public boolean migrate() {
+        IndexCoordinates restaurantsIndex = elasticsearchOperations.getIndexCoordinatesFor(Restaurant.class);
+
+        NativeQuery missingSuggest = NativeQuery.builder()
+                .withQuery(q -> q
+                        .bool(b -> b
+                                .mustNot(m -> m.exists(e -> e.field("suggest")))
+                        )
+                )
+                .build();
+
+        UpdateQuery updateQuery = UpdateQuery.builder(missingSuggest)
+                .withScript(DERIVE_INPUTS_SCRIPT)
+                .withScriptType(ScriptType.INLINE)
+                .withLang("painless")
+                .withParams(Map.of("lastModified", System.currentTimeMillis()))
+                .withAbortOnVersionConflict(false)
+                .build();
+
+        try {
+            elasticsearchOperations.indexOps(restaurantsIndex).putMapping(Document.parse(SUGGEST_MAPPING));
+
+            ByQueryResponse response = elasticsearchOperations.updateByQuery(updateQuery, restaurantsIndex);
+            if (response.getUpdated() > 0) {
+                log.info("Derived suggest inputs for {} restaurants", response.getUpdated());
+            }
+        } catch (RuntimeException e) {
+            log.error("Suggest migration failed", e);
+            return false;
+        }
+        return true;
+    }
+}
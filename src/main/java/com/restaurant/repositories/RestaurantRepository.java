@@ -9,6 +9,4 @@ import java.util.List;
 @Repository
 public interface RestaurantRepository extends ElasticsearchRepository<Restaurant, String> {
     List<Restaurant> findByFavoritesByUsersContaining(String userId);
-
-    List<Restaurant> findAll();
 }
\ No newline at end of file
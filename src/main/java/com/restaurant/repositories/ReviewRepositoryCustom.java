@@ -0,0 +1,14 @@
+package com.restaurant.repositories;
+
+import com.restaurant.domain.entities.Review;
+
+public interface ReviewRepositoryCustom {
+
+    /**
+     * Deletes the review only if it is still at the {@code _seq_no}/{@code _primary_term} it was read with.
+     *
+     * @return {@code true} if this call removed the document
+     * @throws org.springframework.dao.OptimisticLockingFailureException if the review changed or was deleted since it was read
+     */
+    boolean deleteIfUnchanged(Review review);
+}
@@ -0,0 +1,31 @@
+package com.restaurant.repositories;
+
+import co.elastic.clients.elasticsearch._types.Result;
+import co.elastic.clients.elasticsearch.core.DeleteResponse;
+import com.restaurant.domain.entities.Review;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.elasticsearch.client.elc.ElasticsearchTemplate;
+import org.springframework.data.elasticsearch.core.query.SeqNoPrimaryTerm;
+
+@RequiredArgsConstructor
+class ReviewRepositoryCustomImpl implements ReviewRepositoryCustom {
+
+    private final ElasticsearchTemplate elasticsearchTemplate;
+
+    @Override
+    public boolean deleteIfUnchanged(Review review) {
+        SeqNoPrimaryTerm version = review.getSeqNoPrimaryTerm();
+        String indexName = elasticsearchTemplate.getIndexCoordinatesFor(Review.class).getIndexName();
+
+        // Spring Data's delete(entity) ignores seq_no, so go through the client.
+        DeleteResponse response = VersionConflicts.translated(() -> elasticsearchTemplate.execute(client -> client.delete(d -> {
+            d.index(indexName).id(review.getId());
+            if (version != null) {
+                d.ifSeqNo(version.sequenceNumber()).ifPrimaryTerm(version.primaryTerm());
+            }
+            return d;
+        })));
+
+        return response.result() == Result.Deleted;
+    }
+}
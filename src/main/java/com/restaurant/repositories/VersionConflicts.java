@@ -0,0 +1,31 @@
+package com.restaurant.repositories;
+
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.elasticsearch.UncategorizedElasticsearchException;
+
+import java.util.function.Supplier;
+
+/**
+ * A conditional write sent through {@code ElasticsearchTemplate.execute} reports a {@code _seq_no}/
+ * {@code _primary_term} conflict as an {@link UncategorizedElasticsearchException} with status 409, not as the
+ * {@link OptimisticLockingFailureException} the repositories throw. Wrapping the call restores the latter, so
+ * callers and {@code OptimisticRetry} handle both the same way.
+ */
+public final class VersionConflicts {
+
+    private static final int CONFLICT = 409;
+
+    private VersionConflicts() {
+    }
+
+    public static <T> T translated(Supplier<T> write) {
+        try {
+            return write.get();
+        } catch (UncategorizedElasticsearchException e) {
+            if (e.getStatusCode() != null && e.getStatusCode() == CONFLICT) {
+                throw new OptimisticLockingFailureException(e.getMessage(), e);
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.restaurant.services;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public interface CatalogExportService {
+
+    /**
+     * Writes every restaurant to {@code output} as one JSON object per line, each with its {@code reviews} when
+     * {@code includeReviews} is set. Restaurants come from a single point-in-time view of the index, in no
+     * particular order. Returns the number of restaurants written.
+     */
+    long exportRestaurants(OutputStream output, boolean includeReviews) throws IOException;
+}
@@ -0,0 +1,14 @@
+package com.restaurant.services;
+
+import com.restaurant.domain.dtos.FacetBucket;
+
+import java.util.List;
+
+public interface FacetCatalogService {
+
+    List<FacetBucket> getCuisineTypes();
+
+    List<FacetBucket> getCities();
+
+    List<FacetBucket> getPriceRanges();
+}
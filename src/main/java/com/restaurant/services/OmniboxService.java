@@ -0,0 +1,14 @@
+package com.restaurant.services;
+
+import com.restaurant.domain.dtos.OmniboxTerm;
+
+import java.util.List;
+
+public interface OmniboxService {
+
+    /**
+     * Cuisines, features and cities with a word starting with {@code prefix}, ignoring case and accents,
+     * most common first.
+     */
+    List<OmniboxTerm> lookup(String prefix, int limit);
+}
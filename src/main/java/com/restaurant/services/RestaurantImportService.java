@@ -0,0 +1,15 @@
+package com.restaurant.services;
+
+import com.restaurant.domain.RestaurantImportFormat;
+import com.restaurant.domain.dtos.RestaurantImportReport;
+
+import java.io.InputStream;
+
+public interface RestaurantImportService {
+
+    /**
+     * Creates a restaurant for every valid row of {@code input}, read as it arrives, and reports the rows that
+     * failed validation, geolocation or indexing. Returns once every row has been indexed or has failed.
+     */
+    RestaurantImportReport importRestaurants(InputStream input, RestaurantImportFormat format);
+}
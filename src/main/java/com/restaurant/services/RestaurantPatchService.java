@@ -0,0 +1,13 @@
+package com.restaurant.services;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+public interface RestaurantPatchService {
+
+    /**
+     * Applies a JSON Merge Patch (RFC 7396) over the fields of a restaurant create/update request: members
+     * replace, {@code null} removes, objects merge recursively and arrays are replaced whole. Only the patched
+     * fields, and the fields derived from them, are written.
+     */
+    void patchRestaurant(String id, ObjectNode patch);
+}
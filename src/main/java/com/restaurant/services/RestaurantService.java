@@ -1,10 +1,18 @@
 package com.restaurant.services;
 
 
+import com.restaurant.domain.GeoLocation;
+import com.restaurant.domain.RestaurantCluster;
 import com.restaurant.domain.RestaurantCreateUpdateRequest;
+import com.restaurant.domain.RestaurantSearchCriteria;
+import com.restaurant.domain.RestaurantSuggestion;
+import com.restaurant.domain.RestaurantSummary;
+import com.restaurant.domain.dtos.CursorPage;
+import com.restaurant.domain.dtos.FacetedPage;
 import com.restaurant.domain.entities.Restaurant;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 
 import java.util.List;
 import java.util.Optional;
@@ -12,26 +20,58 @@ import java.util.Optional;
 public interface RestaurantService {
     Restaurant createRestaurant(RestaurantCreateUpdateRequest request);
 
-    Page<Restaurant> searchRestaurants(PageRequest of,
-                                       List<String> cuisineType,
-                                       String name,
-                                       Float minRating,
-                                       Double latitude,
-                                       Double longitude,
-                                       Double maxDistanceKm,
-                                       boolean filterOpenNow,
-                                       boolean requirePhotos,
-                                       String createdById,
-                                       String address,
-                                       List<String> priceRanges,
-                                       List<String> features
+    Page<RestaurantSummary> searchRestaurants(PageRequest of, RestaurantSearchCriteria criteria);
 
-    );
+    /**
+     * {@link #searchRestaurants} plus facet counts computed by the same Elasticsearch request. Facet
+     * selections narrow the hits but not their own facet's counts.
+     */
+    FacetedPage<RestaurantSummary> searchRestaurantsWithFacets(PageRequest pageRequest, RestaurantSearchCriteria criteria);
 
-    Page<Restaurant> getAllRestaurants(PageRequest pageRequest);
+    /**
+     * Cursor-paged variant of {@link #searchRestaurants}. Pass the previous page's {@code nextCursor} to
+     * continue; with {@code pointInTime} the first call pins every following page to one index snapshot.
+     */
+    CursorPage<RestaurantSummary> scrollRestaurants(RestaurantSearchCriteria criteria,
+                                                    Sort sort,
+                                                    String cursor,
+                                                    int size,
+                                                    boolean pointInTime);
+
+    /**
+     * Map clusters of the restaurants matching {@code criteria} inside its (required) viewport, sized for the
+     * given map zoom level. Small clusters also list their restaurants.
+     */
+    List<RestaurantCluster> clusterRestaurants(RestaurantSearchCriteria criteria, int zoom);
+
+    /**
+     * Mapbox vector tile {@code zoom/x/y} of the restaurants matching {@code criteria}, one point feature per
+     * restaurant carrying its rating, cuisine and price range.
+     */
+    byte[] getTile(RestaurantSearchCriteria criteria, int zoom, int x, int y);
+
+    /**
+     * Completions of a search-box prefix from restaurant names and cities, optionally restricted to a cuisine
+     * and to the area around {@code near}. Served by the completion suggester, not the search query.
+     */
+    List<RestaurantSuggestion> suggestRestaurants(String prefix, String cuisineType, GeoLocation near, int size);
+
+    Page<RestaurantSummary> getAllRestaurants(PageRequest pageRequest);
 
     Optional<Restaurant> getRestaurantById(String id);
 
+    /**
+     * The summaries of {@code ids} fetched by one multi-get, one element per id in the same order; empty
+     * where there is no such restaurant.
+     */
+    List<Optional<RestaurantSummary>> getRestaurantSummariesByIds(List<String> ids);
+
+    /**
+     * {@link #getRestaurantById} for many ids: one element per id in the same order, with every id not in
+     * the document cache fetched by a single multi-get.
+     */
+    List<Optional<Restaurant>> getRestaurantsByIds(List<String> ids);
+
     Restaurant updateRestaurant(String id, RestaurantCreateUpdateRequest request);
 
     void deleteRestaurant(String restaurantId);
@@ -1,17 +1,17 @@
 package com.restaurant.services;
 
 import com.restaurant.domain.ReviewCreateUpdateRequest;
+import com.restaurant.domain.dtos.CursorPage;
 import com.restaurant.domain.dtos.ReviewWithRestaurant;
 import com.restaurant.domain.entities.Review;
 import com.restaurant.domain.entities.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
-import java.util.List;
 import java.util.Optional;
 
 public interface ReviewService {
-    List<ReviewWithRestaurant> listUserReviews(User author);
+    CursorPage<ReviewWithRestaurant> listUserReviews(User author, String cursor, int size);
 
     Review createReviewWithAuthor(User author, String restaurantId, ReviewCreateUpdateRequest review);
 
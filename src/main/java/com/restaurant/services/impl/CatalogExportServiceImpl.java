@@ -0,0 +1,267 @@
+package com.restaurant.services.impl;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.FieldValue;
+import co.elastic.clients.elasticsearch._types.Time;
+import co.elastic.clients.elasticsearch.core.SearchRequest;
+import co.elastic.clients.elasticsearch.core.SearchResponse;
+import co.elastic.clients.elasticsearch.core.search.Hit;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.restaurant.domain.entities.Restaurant;
+import com.restaurant.domain.entities.Review;
+import com.restaurant.services.CatalogExportService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Exports the catalog through one point in time read by {@code app.export.slices} sliced {@code search_after}
+ * readers on virtual threads. Each reader turns a page of {@code app.export.page-size} restaurants into NDJSON
+ * and writes it to the shared output in one piece, and a slow client holds the readers back instead of the
+ * pages piling up.
+ * <p>
+ * With reviews, a reader writes the page one restaurant at a time, in restaurant id order, while it walks the
+ * page's reviews in the same order {@value #REVIEW_PAGE_SIZE} at a time. A slice then holds a page of
+ * restaurants, a page of reviews and the reviews of the restaurant being written, however many reviews the
+ * page has in total.
+ */
+@Service
+@Slf4j
+public class CatalogExportServiceImpl implements CatalogExportService {
+
+    private static final String TYPE_HINT = "_class";
+    private static final int REVIEW_PAGE_SIZE = 1000;
+    // How Elasticsearch sorts keyword values: by their UTF-8 bytes.
+    private static final Comparator<String> KEYWORD_ORDER = Comparator.comparing(
+            value -> value.getBytes(StandardCharsets.UTF_8), Arrays::compareUnsigned);
+
+    private final ElasticsearchClient elasticsearchClient;
+    private final ElasticsearchOperations elasticsearchOperations;
+    private final ObjectMapper objectMapper;
+    private final int slices;
+    private final int pageSize;
+    private final Time keepAlive;
+
+    public CatalogExportServiceImpl(ElasticsearchClient elasticsearchClient,
+                                    ElasticsearchOperations elasticsearchOperations,
+                                    ObjectMapper objectMapper,
+                                    @Value("${app.export.slices:4}") int slices,
+                                    @Value("${app.export.page-size:500}") int pageSize,
+                                    @Value("${app.export.keep-alive:1m}") Duration keepAlive) {
+        this.elasticsearchClient = elasticsearchClient;
+        this.elasticsearchOperations = elasticsearchOperations;
+        this.objectMapper = objectMapper;
+        this.slices = slices;
+        this.pageSize = pageSize;
+        this.keepAlive = Time.of(t -> t.time(keepAlive.toSeconds() + "s"));
+    }
+
+    @Override
+    public long exportRestaurants(OutputStream output, boolean includeReviews) throws IOException {
+        long started = System.nanoTime();
+        String restaurantsIndex = elasticsearchOperations.getIndexCoordinatesFor(Restaurant.class).getIndexName();
+        String pitId = elasticsearchClient.openPointInTime(p -> p.index(restaurantsIndex).keepAlive(keepAlive)).id();
+
+        Export export = new Export(output, includeReviews);
+        long exported = 0;
+        try (ExecutorService readers = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Long>> results = IntStream.range(0, slices)
+                    .mapToObj(slice -> readers.submit(() -> {
+                        try {
+                            return exportSlice(export, pitId, slice);
+                        } catch (IOException | RuntimeException e) {
+                            // Stop the other slices; the client is gone or the index failed.
+                            export.aborted = true;
+                            throw e;
+                        }
+                    }))
+                    .toList();
+            for (Future<Long> result : results) {
+                exported += await(result, export);
+            }
+        } finally {
+            try {
+                elasticsearchClient.closePointInTime(c -> c.id(pitId));
+            } catch (IOException | RuntimeException e) {
+                log.warn("Could not close export point in time; it expires after {}", keepAlive.time(), e);
+            }
+        }
+
+        log.info("Exported {} restaurants in {} ms", exported, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        return exported;
+    }
+
+    private long exportSlice(Export export, String pitId, int slice) throws IOException {
+        String currentPitId = pitId;
+        List<FieldValue> searchAfter = null;
+        long exported = 0;
+
+        while (!export.aborted) {
+            SearchRequest request = pageRequest(currentPitId, slice, searchAfter);
+            SearchResponse<ObjectNode> page = elasticsearchClient.search(request, ObjectNode.class);
+            List<Hit<ObjectNode>> hits = page.hits().hits();
+            if (hits.isEmpty()) {
+                break;
+            }
+
+            ReviewCursor reviews = export.includeReviews ? new ReviewCursor(hits) : null;
+            List<Hit<ObjectNode>> restaurants = reviews == null
+                    ? hits
+                    : hits.stream().sorted(Comparator.comparing(Hit::id, KEYWORD_ORDER)).toList();
+            ByteArrayOutputStream lines = new ByteArrayOutputStream();
+            for (Hit<ObjectNode> hit : restaurants) {
+                ObjectNode restaurant = objectMapper.createObjectNode().put("id", hit.id());
+                restaurant.setAll(hit.source());
+                restaurant.remove(TYPE_HINT);
+                if (reviews != null) {
+                    restaurant.putArray("reviews").addAll(reviews.next(hit.id()));
+                }
+                lines.write(objectMapper.writeValueAsBytes(restaurant));
+                lines.write('\n');
+                if (reviews != null) {
+                    write(export, lines);
+                }
+            }
+            write(export, lines);
+
+            exported += hits.size();
+            searchAfter = hits.get(hits.size() - 1).sort();
+            currentPitId = page.pitId() != null ? page.pitId() : currentPitId;
+        }
+        return exported;
+    }
+
+    private SearchRequest pageRequest(String pitId, int slice, List<FieldValue> searchAfter) {
+        return SearchRequest.of(s -> {
+            s.pit(p -> p.id(pitId).keepAlive(keepAlive))
+                    .size(pageSize)
+                    .sort(sort -> sort.field(f -> f.field("_shard_doc")))
+                    .trackTotalHits(t -> t.enabled(false));
+            // Elasticsearch rejects a slice count of 1.
+            if (slices > 1) {
+                s.slice(sl -> sl.id(String.valueOf(slice)).max(slices));
+            }
+            if (searchAfter != null) {
+                s.searchAfter(searchAfter);
+            }
+            return s;
+        });
+    }
+
+    private static void write(Export export, ByteArrayOutputStream lines) throws IOException {
+        synchronized (export.output) {
+            lines.writeTo(export.output);
+        }
+        lines.reset();
+    }
+
+    /**
+     * The reviews of one page of restaurants, read in pages ordered by restaurant and id and handed out one
+     * restaurant at a time, in the same order.
+     */
+    private final class ReviewCursor {
+        private final List<FieldValue> restaurantIds;
+        private final String reviewsIndex = elasticsearchOperations.getIndexCoordinatesFor(Review.class).getIndexName();
+        private List<Hit<ObjectNode>> page = List.of();
+        private int position;
+        private List<FieldValue> searchAfter;
+        private boolean exhausted;
+
+        private ReviewCursor(List<Hit<ObjectNode>> restaurants) {
+            this.restaurantIds = restaurants.stream().map(hit -> FieldValue.of(hit.id())).toList();
+        }
+
+        /**
+         * The reviews of {@code restaurantId}, which must not be smaller than the one asked for before.
+         */
+        private List<ObjectNode> next(String restaurantId) throws IOException {
+            List<ObjectNode> reviews = new ArrayList<>();
+            while (true) {
+                if (position == page.size()) {
+                    if (exhausted) {
+                        return reviews;
+                    }
+                    fetch();
+                    continue;
+                }
+                ObjectNode review = page.get(position).source();
+                int order = KEYWORD_ORDER.compare(review.path("restaurantId").asText(), restaurantId);
+                if (order > 0) {
+                    return reviews;
+                }
+                position++;
+                if (order == 0) {
+                    review.remove(TYPE_HINT);
+                    reviews.add(review);
+                }
+            }
+        }
+
+        private void fetch() throws IOException {
+            List<FieldValue> after = searchAfter;
+            SearchResponse<ObjectNode> response = elasticsearchClient.search(s -> {
+                s.index(reviewsIndex)
+                        .query(q -> q.terms(t -> t.field("restaurantId").terms(v -> v.value(restaurantIds))))
+                        .size(REVIEW_PAGE_SIZE)
+                        .sort(sort -> sort.field(f -> f.field("restaurantId")))
+                        .sort(sort -> sort.field(f -> f.field("id")))
+                        .trackTotalHits(t -> t.enabled(false));
+                if (after != null) {
+                    s.searchAfter(after);
+                }
+                return s;
+            }, ObjectNode.class);
+
+            page = response.hits().hits();
+            position = 0;
+            exhausted = page.size() < REVIEW_PAGE_SIZE;
+            if (!page.isEmpty()) {
+                searchAfter = page.get(page.size() - 1).sort();
+            }
+        }
+    }
+
+    private static long await(Future<Long> result, Export export) throws IOException {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            export.aborted = true;
+            Thread.currentThread().interrupt();
+            throw new IOException("Export interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw new IOException("Export failed", e.getCause());
+        }
+    }
+
+    private static final class Export {
+        private final OutputStream output;
+        private final boolean includeReviews;
+        private volatile boolean aborted;
+
+        private Export(OutputStream output, boolean includeReviews) {
+            this.output = output;
+            this.includeReviews = includeReviews;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.restaurant.services.impl;
+
+import com.restaurant.domain.OpeningIntervals;
+import com.restaurant.domain.RestaurantSearchCriteria;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Answers the common {@code /filter} searches (cuisine, price, minimum rating, features, open at, distance,
+ * ordered by rating and then distance) by scanning a {@link RestaurantColumns} snapshot instead of querying
+ * Elasticsearch. Text, address, owner, photo and viewport filters make {@link #search} decline.
+ * <p>
+ * Every sync batch from {@link RestaurantReplicaFeed} patches the changed rows into the next snapshot and
+ * publishes it with one volatile write, so a scan always sees a single consistent catalog.
+ */
+@Component
+public class ColumnarSearchEngine implements RestaurantReplica {
+
+    /**
+     * Elasticsearch's default {@code index.max_result_window}; deeper pages go to Elasticsearch and fail there.
+     */
+    private static final int MAX_RESULT_WINDOW = 10_000;
+
+    private final boolean enabled;
+    private final Counter answered;
+    private final Counter declined;
+
+    private volatile RestaurantColumns columns;
+
+    public ColumnarSearchEngine(MeterRegistry meterRegistry,
+                                @Value("${app.columnar-search.enabled:true}") boolean enabled) {
+        this.enabled = enabled;
+        this.answered = meterRegistry.counter("restaurant.columnar.searches", "source", "index");
+        this.declined = meterRegistry.counter("restaurant.columnar.searches", "source", "elasticsearch");
+        meterRegistry.gauge("restaurant.columnar.rows", this, engine -> {
+            RestaurantColumns snapshot = engine.columns;
+            return snapshot == null ? 0 : snapshot.size();
+        });
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void replaceAll(List<ReplicatedRestaurant> restaurants) {
+        columns = RestaurantColumns.of(restaurants);
+    }
+
+    @Override
+    public void apply(List<ReplicatedRestaurant> changed, Collection<String> removedIds) {
+        if (columns == null) {
+            return;
+        }
+        columns = columns.apply(changed, removedIds);
+    }
+
+    /**
+     * The ids of the requested page, or empty if the snapshot is not loaded yet or the criteria use a filter
+     * it does not hold. {@code criteria.openAt} must already be resolved from {@code filterOpenNow}.
+     */
+    public Optional<Page<String>> search(RestaurantSearchCriteria criteria, PageRequest pageRequest) {
+        RestaurantColumns snapshot = columns;
+        Sort.Order ratingOrder = LocalSearches.ratingOrder(pageRequest.getSort());
+        Set<Integer> priceRanges = LocalSearches.priceRanges(criteria.getPriceRanges());
+        long limit = pageRequest.getOffset() + pageRequest.getPageSize();
+        if (snapshot == null || !isColumnarShape(criteria) || ratingOrder == null || priceRanges == null
+                || limit > MAX_RESULT_WINDOW) {
+            declined.increment();
+            return Optional.empty();
+        }
+
+        boolean hasOrigin = criteria.getLatitude() != null && criteria.getLongitude() != null;
+        RestaurantColumns.Result result = snapshot.scan(new RestaurantColumns.Scan(
+                criteria.getMinRating(),
+                priceRanges,
+                emptyToNull(criteria.getCuisineTypes()),
+                emptyToNull(criteria.getFeatures()),
+                criteria.getOpenAt() == null ? null : OpeningIntervals.minuteOfWeek(criteria.getOpenAt()),
+                hasOrigin ? criteria.getLatitude() : null,
+                hasOrigin ? criteria.getLongitude() : null,
+                hasOrigin ? criteria.getMaxDistanceKm() : null,
+                ratingOrder.getDirection(),
+                (int) limit
+        ));
+
+        List<String> ids = result.ids();
+        List<String> page = ids.subList((int) Math.min(pageRequest.getOffset(), ids.size()), ids.size());
+
+        answered.increment();
+        return Optional.of(new PageImpl<>(page, pageRequest, result.total()));
+    }
+
+    private static boolean isColumnarShape(RestaurantSearchCriteria criteria) {
+        return LocalSearches.isBlank(criteria.getName())
+                && LocalSearches.isBlank(criteria.getAddress())
+                && criteria.getCreatedById() == null
+                && !criteria.isRequirePhotos()
+                && criteria.getViewport() == null;
+    }
+
+    private static List<String> emptyToNull(List<String> values) {
+        return values == null || values.isEmpty() ? null : values;
+    }
+}
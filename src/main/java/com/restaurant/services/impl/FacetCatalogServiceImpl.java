@@ -0,0 +1,126 @@
+package com.restaurant.services.impl;
+
+import co.elastic.clients.elasticsearch._types.aggregations.Aggregation;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.restaurant.domain.dtos.FacetBucket;
+import com.restaurant.domain.entities.Restaurant;
+import com.restaurant.domain.events.RestaurantChangedEvent;
+import com.restaurant.domain.events.RestaurantsChangedEvent;
+import com.restaurant.services.FacetCatalogService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.elasticsearch.client.elc.ElasticsearchAggregations;
+import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.SearchHits;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Distinct cuisines, cities and price ranges with restaurant counts, read from one size-0 search with
+ * {@code terms} aggregations. Each facet returns a bounded number of buckets, so neither Elasticsearch nor
+ * the heap holds more than {@code app.facet-catalog.size} values per facet, however large the index is.
+ * <p>
+ * The catalog is cached as a single entry. After a restaurant write it is reloaded in the background once
+ * the write is searchable, and readers keep the previous catalog until the reload completes. Concurrent
+ * reloads are coalesced into one.
+ */
+@Service
+public class FacetCatalogServiceImpl implements FacetCatalogService {
+
+    private static final String CATALOG_KEY = "catalog";
+
+    private final ElasticsearchOperations elasticsearchOperations;
+    private final LoadingCache<String, FacetCatalog> cache;
+    private final Executor delayedRefresh;
+    private final int size;
+
+    public FacetCatalogServiceImpl(ElasticsearchOperations elasticsearchOperations,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${app.facet-catalog.size:100}") int size,
+                                   @Value("${app.facet-catalog.refresh-after:10m}") Duration refreshAfter,
+                                   @Value("${app.search-cache.refresh-interval:1s}") Duration refreshInterval) {
+        this.elasticsearchOperations = elasticsearchOperations;
+        this.size = size;
+        this.cache = Caffeine.newBuilder()
+                .refreshAfterWrite(refreshAfter)
+                .recordStats()
+                .build(key -> load());
+        this.delayedRefresh = CompletableFuture.delayedExecutor(refreshInterval.toMillis(), TimeUnit.MILLISECONDS);
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "restaurant.facets");
+    }
+
+    @Override
+    public List<FacetBucket> getCuisineTypes() {
+        return cache.get(CATALOG_KEY).cuisineTypes();
+    }
+
+    @Override
+    public List<FacetBucket> getCities() {
+        return cache.get(CATALOG_KEY).cities();
+    }
+
+    @Override
+    public List<FacetBucket> getPriceRanges() {
+        return cache.get(CATALOG_KEY).priceRanges();
+    }
+
+    @EventListener
+    public void onRestaurantChanged(RestaurantChangedEvent event) {
+        refresh();
+    }
+
+    @EventListener
+    public void onRestaurantsChanged(RestaurantsChangedEvent event) {
+        refresh();
+    }
+
+    private void refresh() {
+        // Only a catalog that has been loaded needs refreshing; the first reader loads it anyway.
+        if (cache.getIfPresent(CATALOG_KEY) != null) {
+            delayedRefresh.execute(() -> cache.refresh(CATALOG_KEY));
+        }
+    }
+
+    private FacetCatalog load() {
+        NativeQuery query = NativeQuery.builder()
+                .withQuery(q -> q.matchAll(m -> m))
+                .withMaxResults(0)
+                .withAggregation(RestaurantSearchQueries.CUISINE_FACET, Aggregation.of(a -> a
+                        .terms(t -> t.field("cuisineType").size(size))))
+                .withAggregation(RestaurantSearchQueries.CITY_FACET, Aggregation.of(a -> a
+                        .nested(n -> n.path("address"))
+                        .aggregations(RestaurantSearchQueries.FACET_VALUES, sub -> sub
+                                .terms(t -> t.field("address.city").size(size)))))
+                .withAggregation(RestaurantSearchQueries.PRICE_RANGE_FACET, Aggregation.of(a -> a
+                        .terms(t -> t.field("priceRange").size(size))))
+                .build();
+
+        SearchHits<Restaurant> searchHits = elasticsearchOperations.search(query, Restaurant.class);
+        ElasticsearchAggregations aggregations = (ElasticsearchAggregations) searchHits.getAggregations();
+        if (aggregations == null) {
+            return new FacetCatalog(List.of(), List.of(), List.of());
+        }
+
+        return new FacetCatalog(
+                facet(aggregations, RestaurantSearchQueries.CUISINE_FACET),
+                facet(aggregations, RestaurantSearchQueries.CITY_FACET),
+                facet(aggregations, RestaurantSearchQueries.PRICE_RANGE_FACET)
+        );
+    }
+
+    private static List<FacetBucket> facet(ElasticsearchAggregations aggregations, String name) {
+        return RestaurantSearchQueries.buckets(aggregations.get(name).aggregation().getAggregate());
+    }
+
+    private record FacetCatalog(List<FacetBucket> cuisineTypes, List<FacetBucket> cities, List<FacetBucket> priceRanges) {
+    }
+}
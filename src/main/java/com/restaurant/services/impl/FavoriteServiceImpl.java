@@ -5,20 +5,54 @@ import com.restaurant.domain.entities.User;
 import com.restaurant.exceptions.RestaurantNotFoundException;
 import com.restaurant.repositories.RestaurantRepository;
 import com.restaurant.services.FavoriteService;
-import com.restaurant.services.RestaurantService;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.elasticsearch.ResourceNotFoundException;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.query.ScriptType;
+import org.springframework.data.elasticsearch.core.query.UpdateQuery;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Map;
 
+/**
+ * Adds and removes favorites with scripted partial updates, so the rest of the restaurant document, including
+ * reviews an older version still embeds, is never rewritten. A user already in (or missing from) the list
+ * makes the update a no-op.
+ */
 @Service
 @RequiredArgsConstructor
 public class FavoriteServiceImpl implements FavoriteService {
     private static final Logger logger = LoggerFactory.getLogger(FavoriteServiceImpl.class);
+
+    private static final String ADD_FAVORITE_SCRIPT = """
+            if (ctx._source.favoritesByUsers == null) {
+                ctx._source.favoritesByUsers = [];
+            }
+            if (ctx._source.favoritesByUsers.contains(params.userId)) {
+                ctx.op = 'noop';
+            } else {
+                ctx._source.favoritesByUsers.add(params.userId);
+                ctx._source.lastModified = params.lastModified;
+            }
+            """;
+    private static final String REMOVE_FAVORITE_SCRIPT = """
+            int index = ctx._source.favoritesByUsers == null ? -1 : ctx._source.favoritesByUsers.indexOf(params.userId);
+            if (index < 0) {
+                ctx.op = 'noop';
+            } else {
+                ctx._source.favoritesByUsers.remove(index);
+                ctx._source.lastModified = params.lastModified;
+            }
+            """;
+    private static final int RETRY_ON_CONFLICT = 5;
+
     private final RestaurantRepository restaurantRepository;
-    private final RestaurantService restaurantService;
+    private final RestaurantDocumentCache restaurantDocumentCache;
+    private final ElasticsearchOperations elasticsearchOperations;
+    private final WriteBlockRetry writeBlockRetry;
 
     @Override
     public List<Restaurant> getUserFavorites(User user) {
@@ -29,20 +63,32 @@ public class FavoriteServiceImpl implements FavoriteService {
     @Override
     public void addToFavorites(User user, String restaurantId) {
         logger.info("Adding restaurant {} to favorites for user: {}", restaurantId, user.getId());
-        Restaurant restaurant = restaurantService.getRestaurantById(restaurantId)
-                .orElseThrow(() -> new RestaurantNotFoundException("Restaurant not found"));
-        if (!restaurant.getFavoritesByUsers().contains(user.getId())) {
-            restaurant.getFavoritesByUsers().add(user.getId());
-            restaurantRepository.save(restaurant);
-        }
+        updateFavorites(restaurantId, ADD_FAVORITE_SCRIPT, user.getId());
     }
 
     @Override
     public void removeFromFavorites(User user, String restaurantId) {
         logger.info("Removing restaurant {} from favorites for user: {}", restaurantId, user.getId());
-        Restaurant restaurant = restaurantService.getRestaurantById(restaurantId)
-                .orElseThrow(() -> new RestaurantNotFoundException("Restaurant not found"));
-        restaurant.getFavoritesByUsers().remove(user.getId());
-        restaurantRepository.save(restaurant);
+        updateFavorites(restaurantId, REMOVE_FAVORITE_SCRIPT, user.getId());
+    }
+
+    private void updateFavorites(String restaurantId, String script, String userId) {
+        UpdateQuery update = UpdateQuery.builder(restaurantId)
+                .withScript(script)
+                .withScriptType(ScriptType.INLINE)
+                .withLang("painless")
+                .withParams(Map.of(
+                        "userId", userId,
+                        "lastModified", System.currentTimeMillis()
+                ))
+                .withRetryOnConflict(RETRY_ON_CONFLICT)
+                .build();
+        try {
+            writeBlockRetry.run("restaurant.favorite", () ->
+                    elasticsearchOperations.update(update, elasticsearchOperations.getIndexCoordinatesFor(Restaurant.class)));
+        } catch (ResourceNotFoundException e) {
+            throw new RestaurantNotFoundException("Restaurant not found");
+        }
+        restaurantDocumentCache.invalidate(restaurantId);
     }
-}
\ No newline at end of file
+}
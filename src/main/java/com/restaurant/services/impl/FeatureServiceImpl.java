@@ -1,10 +1,12 @@
 package com.restaurant.services.impl;
 
 import com.restaurant.domain.entities.Feature;
+import com.restaurant.domain.events.FeatureChangedEvent;
 import com.restaurant.exceptions.FeatureNotFoundException;
 import com.restaurant.repositories.FeatureRepository;
 import com.restaurant.services.FeatureService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -13,6 +15,7 @@ import java.util.List;
 @RequiredArgsConstructor
 public class FeatureServiceImpl implements FeatureService {
     private final FeatureRepository featureRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public Feature getFeatureById(String id) {
@@ -26,7 +29,8 @@ public class FeatureServiceImpl implements FeatureService {
 
     @Override
     public void addFeature(Feature feature) {
-        featureRepository.save(feature);
+        Feature savedFeature = featureRepository.save(feature);
+        eventPublisher.publishEvent(new FeatureChangedEvent(savedFeature.getId(), savedFeature.getName()));
     }
 
     @Override
@@ -34,10 +38,12 @@ public class FeatureServiceImpl implements FeatureService {
         Feature existingFeature = getFeatureById(id);
         existingFeature.setName(feature.getName());
         featureRepository.save(existingFeature);
+        eventPublisher.publishEvent(new FeatureChangedEvent(id, existingFeature.getName()));
     }
 
     @Override
     public void deleteFeature(String id) {
         featureRepository.deleteById(id);
+        eventPublisher.publishEvent(new FeatureChangedEvent(id, null));
     }
 }
@@ -0,0 +1,62 @@
+package com.restaurant.services.impl;
+
+import org.springframework.data.domain.Sort;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Helpers shared by the in-process search replicas for matching Elasticsearch's semantics.
+ */
+final class LocalSearches {
+
+    /**
+     * Mean earth radius used by Elasticsearch's {@code arc} distance, so radius cuts match {@code geo_distance}.
+     */
+    static final double EARTH_RADIUS_KM = 6371.0087714;
+
+    private LocalSearches() {
+    }
+
+    static double distanceKm(double latitude1, double longitude1, double latitude2, double longitude2) {
+        double dLatitude = Math.toRadians(latitude2 - latitude1);
+        double dLongitude = Math.toRadians(longitude2 - longitude1);
+        double a = Math.pow(Math.sin(dLatitude / 2), 2)
+                + Math.cos(Math.toRadians(latitude1)) * Math.cos(Math.toRadians(latitude2))
+                * Math.pow(Math.sin(dLongitude / 2), 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    /**
+     * The rating order a search sorts by first, or {@code null} for any other sort.
+     */
+    static Sort.Order ratingOrder(Sort sort) {
+        if (sort.isUnsorted()) {
+            return Sort.Order.desc("averageRating");
+        }
+        List<Sort.Order> orders = sort.toList();
+        return orders.size() == 1 && orders.get(0).getProperty().equals("averageRating") ? orders.get(0) : null;
+    }
+
+    /**
+     * The requested price ranges, empty for no price filter, or {@code null} if one is not a number.
+     */
+    static Set<Integer> priceRanges(List<String> values) {
+        Set<Integer> priceRanges = new HashSet<>();
+        if (values != null) {
+            for (String value : values) {
+                try {
+                    priceRanges.add(Integer.parseInt(value.trim()));
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+            }
+        }
+        return priceRanges;
+    }
+}
@@ -0,0 +1,240 @@
+package com.restaurant.services.impl;
+
+import com.restaurant.domain.RestaurantSearchCriteria;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-process grid index of every restaurant's location, rating, price range and cuisine, answering the
+ * "near me" search (origin plus radius, optionally narrowed by rating, price and cuisine, ordered by rating
+ * then distance) without an Elasticsearch query. Any other filter makes {@link #search} decline, and the
+ * caller runs the regular search instead. It answers nothing until {@link RestaurantReplicaFeed} has loaded it.
+ */
+@Component
+public class NearbyIndex implements RestaurantReplica {
+
+    private static final double KM_PER_DEGREE_LATITUDE = Math.PI * LocalSearches.EARTH_RADIUS_KM / 180;
+    private static final double CELL_DEGREES = 0.05;
+    private static final int NO_PRICE_RANGE = Integer.MIN_VALUE;
+    private static final int NO_CUISINE = -1;
+
+    private final boolean enabled;
+    private final Counter answered;
+    private final Counter declined;
+
+    // Only the feed thread writes; cells are replaced, never modified, so readers see whole cells.
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<Long, Entry[]> cells = new ConcurrentHashMap<>();
+    private final Map<String, Integer> cuisineIds = new ConcurrentHashMap<>();
+    private volatile boolean ready;
+
+    public NearbyIndex(MeterRegistry meterRegistry,
+                       @Value("${app.nearby-index.enabled:true}") boolean enabled) {
+        this.enabled = enabled;
+        this.answered = meterRegistry.counter("restaurant.nearby.searches", "source", "index");
+        this.declined = meterRegistry.counter("restaurant.nearby.searches", "source", "elasticsearch");
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void replaceAll(List<ReplicatedRestaurant> restaurants) {
+        // Readers before the first load get nothing from ready=false; a reload swaps entries one at a time.
+        Set<String> stale = new HashSet<>(entries.keySet());
+        for (ReplicatedRestaurant restaurant : restaurants) {
+            stale.remove(restaurant.getId());
+            put(restaurant);
+        }
+        stale.forEach(this::remove);
+        ready = true;
+    }
+
+    @Override
+    public void apply(List<ReplicatedRestaurant> changed, Collection<String> removedIds) {
+        changed.forEach(this::put);
+        removedIds.forEach(this::remove);
+    }
+
+    /**
+     * The ids of the requested page of a "near me" search, or empty if the index is not loaded yet or the
+     * criteria use a filter it does not hold.
+     */
+    public Optional<Page<String>> search(RestaurantSearchCriteria criteria, PageRequest pageRequest) {
+        if (criteria.getLatitude() == null || criteria.getLongitude() == null || criteria.getMaxDistanceKm() == null) {
+            return Optional.empty();
+        }
+        Sort.Order ratingOrder = LocalSearches.ratingOrder(pageRequest.getSort());
+        Set<Integer> priceRanges = LocalSearches.priceRanges(criteria.getPriceRanges());
+        if (!ready || !isNearbyShape(criteria) || ratingOrder == null || priceRanges == null) {
+            declined.increment();
+            return Optional.empty();
+        }
+
+        double latitude = criteria.getLatitude();
+        double longitude = criteria.getLongitude();
+        double radiusKm = criteria.getMaxDistanceKm();
+        Float minRating = criteria.getMinRating();
+        Set<Integer> cuisines = cuisines(criteria.getCuisineTypes());
+
+        List<Match> matches = new ArrayList<>();
+        for (Entry[] cell : cellsAround(latitude, longitude, radiusKm)) {
+            for (Entry entry : cell) {
+                if ((minRating == null || entry.averageRating() >= minRating)
+                        && (priceRanges.isEmpty() || priceRanges.contains(entry.priceRange()))
+                        && (cuisines == null || cuisines.contains(entry.cuisineId()))) {
+                    double distanceKm = LocalSearches.distanceKm(latitude, longitude, entry.latitude(), entry.longitude());
+                    if (distanceKm <= radiusKm) {
+                        matches.add(new Match(entry, distanceKm));
+                    }
+                }
+            }
+        }
+        matches.sort(matchOrder(ratingOrder.getDirection()));
+
+        int from = (int) Math.min(pageRequest.getOffset(), matches.size());
+        int to = Math.min(from + pageRequest.getPageSize(), matches.size());
+        List<String> ids = matches.subList(from, to).stream()
+                .map(match -> match.entry().id())
+                .toList();
+
+        answered.increment();
+        return Optional.of(new PageImpl<>(ids, pageRequest, matches.size()));
+    }
+
+    private static boolean isNearbyShape(RestaurantSearchCriteria criteria) {
+        return LocalSearches.isBlank(criteria.getName())
+                && LocalSearches.isBlank(criteria.getAddress())
+                && criteria.getCreatedById() == null
+                && !criteria.isRequirePhotos()
+                && !criteria.isFilterOpenNow()
+                && criteria.getOpenAt() == null
+                && criteria.getViewport() == null
+                && (criteria.getFeatures() == null || criteria.getFeatures().isEmpty());
+    }
+
+    private Set<Integer> cuisines(List<String> cuisineTypes) {
+        if (cuisineTypes == null || cuisineTypes.isEmpty()) {
+            return null;
+        }
+        Set<Integer> ids = new HashSet<>();
+        for (String cuisineType : cuisineTypes) {
+            Integer id = cuisineIds.get(cuisineType);
+            if (id != null) {
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+
+    private static Comparator<Match> matchOrder(Sort.Direction direction) {
+        // Like Elasticsearch, restaurants without a rating come last in either direction.
+        Comparator<Float> rating = direction.isAscending() ? Comparator.naturalOrder() : Comparator.reverseOrder();
+        return Comparator.<Match, Boolean>comparing(match -> Float.isNaN(match.entry().averageRating()))
+                .thenComparing(match -> match.entry().averageRating(), rating)
+                .thenComparingDouble(Match::distanceKm)
+                .thenComparing(match -> match.entry().id());
+    }
+
+    private List<Entry[]> cellsAround(double latitude, double longitude, double radiusKm) {
+        double dLatitude = radiusKm / KM_PER_DEGREE_LATITUDE;
+        double minLatitude = latitude - dLatitude;
+        double maxLatitude = latitude + dLatitude;
+        double cosLatitude = Math.cos(Math.toRadians(Math.max(Math.abs(minLatitude), Math.abs(maxLatitude))));
+        double dLongitude = cosLatitude > 0 ? dLatitude / cosLatitude : 360;
+
+        // Circles reaching a pole or across the antimeridian are rare enough to scan every cell for.
+        if (minLatitude < -90 || maxLatitude > 90 || longitude - dLongitude < -180 || longitude + dLongitude > 180) {
+            return List.copyOf(cells.values());
+        }
+
+        List<Entry[]> around = new ArrayList<>();
+        for (long row = cellIndex(minLatitude + 90); row <= cellIndex(maxLatitude + 90); row++) {
+            for (long column = cellIndex(longitude - dLongitude + 180); column <= cellIndex(longitude + dLongitude + 180); column++) {
+                Entry[] cell = cells.get(row << 32 | column);
+                if (cell != null) {
+                    around.add(cell);
+                }
+            }
+        }
+        return around;
+    }
+
+    private static long cellIndex(double degrees) {
+        return (long) Math.floor(degrees / CELL_DEGREES);
+    }
+
+    private static long cellKey(Entry entry) {
+        return cellIndex(entry.latitude() + 90) << 32 | cellIndex(entry.longitude() + 180);
+    }
+
+    private void put(ReplicatedRestaurant restaurant) {
+        if (restaurant.getGeoLocation() == null) {
+            // Without a location it can never fall inside a radius.
+            remove(restaurant.getId());
+            return;
+        }
+
+        String cuisineType = restaurant.getCuisineType();
+        Entry entry = new Entry(
+                restaurant.getId(),
+                restaurant.getGeoLocation().getLat(),
+                restaurant.getGeoLocation().getLon(),
+                restaurant.getAverageRating() == null ? Float.NaN : restaurant.getAverageRating(),
+                restaurant.getPriceRange() == null ? NO_PRICE_RANGE : restaurant.getPriceRange(),
+                cuisineType == null ? NO_CUISINE : cuisineIds.computeIfAbsent(cuisineType, key -> cuisineIds.size())
+        );
+
+        Entry previous = entries.put(entry.id(), entry);
+        if (previous != null) {
+            cells.computeIfPresent(cellKey(previous), (key, cell) -> without(cell, previous.id()));
+        }
+        cells.merge(cellKey(entry), new Entry[]{entry}, (cell, added) -> {
+            Entry[] grown = Arrays.copyOf(cell, cell.length + 1);
+            grown[cell.length] = entry;
+            return grown;
+        });
+    }
+
+    private void remove(String id) {
+        Entry previous = entries.remove(id);
+        if (previous != null) {
+            cells.computeIfPresent(cellKey(previous), (key, cell) -> without(cell, id));
+        }
+    }
+
+    /**
+     * A copy of {@code cell} without {@code id}, or {@code null} (dropping the cell) if nothing is left.
+     */
+    private static Entry[] without(Entry[] cell, String id) {
+        Entry[] remaining = Arrays.stream(cell)
+                .filter(entry -> !entry.id().equals(id))
+                .toArray(Entry[]::new);
+        return remaining.length == 0 ? null : remaining;
+    }
+
+    record Entry(String id, double latitude, double longitude, float averageRating, int priceRange, int cuisineId) {
+    }
+
+    private record Match(Entry entry, double distanceKm) {
+    }
+}
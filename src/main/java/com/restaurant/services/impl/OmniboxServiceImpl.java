@@ -0,0 +1,127 @@
+package com.restaurant.services.impl;
+
+import com.restaurant.domain.dtos.FacetBucket;
+import com.restaurant.domain.dtos.OmniboxTerm;
+import com.restaurant.domain.entities.Feature;
+import com.restaurant.domain.events.FeatureChangedEvent;
+import com.restaurant.services.FacetCatalogService;
+import com.restaurant.services.FeatureService;
+import com.restaurant.services.OmniboxService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Serves the search-box vocabulary from a {@link PrefixTrie} held in memory. Cuisines and cities come from the
+ * {@link FacetCatalogService} cache and features from the feature index, which is read once; after that a
+ * lookup never reaches Elasticsearch.
+ * <p>
+ * The trie is rebuilt when the facet catalog hands out a new catalog or a {@link FeatureChangedEvent} has
+ * changed the features. The event carries the new name, so features are patched in place, not re-read.
+ */
+@Service
+@RequiredArgsConstructor
+public class OmniboxServiceImpl implements OmniboxService {
+
+    private static final int MAX_RESULTS = 20;
+    private static final Comparator<OmniboxTerm> RANK = Comparator.comparingLong(OmniboxTerm::getCount).reversed()
+            .thenComparingInt(term -> term.getValue().length())
+            .thenComparing(OmniboxTerm::getValue);
+
+    private final FacetCatalogService facetCatalogService;
+    private final FeatureService featureService;
+
+    private final Object lock = new Object();
+    // Feature names by id, null until the first lookup; guarded by lock.
+    private Map<String, String> features;
+    private volatile long featuresVersion;
+    private volatile Vocabulary vocabulary;
+
+    @Override
+    public List<OmniboxTerm> lookup(String prefix, int limit) {
+        if (prefix == null || prefix.isBlank()) {
+            return List.of();
+        }
+        return currentVocabulary().trie().find(prefix, Math.clamp(limit, 1, MAX_RESULTS));
+    }
+
+    @EventListener
+    public void onFeatureChanged(FeatureChangedEvent event) {
+        synchronized (lock) {
+            if (features == null) {
+                return;
+            }
+            if (event.name() == null) {
+                features.remove(event.featureId());
+            } else {
+                features.put(event.featureId(), event.name());
+            }
+            featuresVersion++;
+        }
+    }
+
+    private Vocabulary currentVocabulary() {
+        List<FacetBucket> cuisines = facetCatalogService.getCuisineTypes();
+        List<FacetBucket> cities = facetCatalogService.getCities();
+        Vocabulary current = vocabulary;
+        if (current != null && current.isBuiltFrom(cuisines, cities, featuresVersion)) {
+            return current;
+        }
+
+        synchronized (lock) {
+            current = vocabulary;
+            if (current != null && current.isBuiltFrom(cuisines, cities, featuresVersion)) {
+                return current;
+            }
+            if (features == null) {
+                features = new HashMap<>();
+                for (Feature feature : featureService.getAllFeatures()) {
+                    features.put(feature.getId(), feature.getName());
+                }
+            }
+
+            List<OmniboxTerm> terms = new ArrayList<>();
+            cuisines.forEach(bucket -> terms.add(new OmniboxTerm(OmniboxTerm.Type.CUISINE, bucket.getValue(), bucket.getCount())));
+            cities.forEach(bucket -> terms.add(new OmniboxTerm(OmniboxTerm.Type.CITY, bucket.getValue(), bucket.getCount())));
+            features.values().stream()
+                    .distinct()
+                    .forEach(name -> terms.add(new OmniboxTerm(OmniboxTerm.Type.FEATURE, name, 0)));
+
+            PrefixTrie<OmniboxTerm> trie = PrefixTrie.of(terms, term -> wordStarts(term.getValue()), RANK, MAX_RESULTS);
+            vocabulary = new Vocabulary(cuisines, cities, featuresVersion, trie);
+            return vocabulary;
+        }
+    }
+
+    /**
+     * The folded value from each word on, so "Free Wi-Fi" is found by "free", "wi" and "fi".
+     */
+    private static List<String> wordStarts(String value) {
+        String folded = PrefixTrie.fold(value);
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < folded.length(); i++) {
+            if (Character.isLetterOrDigit(folded.charAt(i))
+                    && (i == 0 || !Character.isLetterOrDigit(folded.charAt(i - 1)))) {
+                keys.add(folded.substring(i));
+            }
+        }
+        return keys;
+    }
+
+    private record Vocabulary(List<FacetBucket> cuisines,
+                              List<FacetBucket> cities,
+                              long featuresVersion,
+                              PrefixTrie<OmniboxTerm> trie) {
+
+        // The facet catalog returns the same lists until it reloads, so identity tells whether it did.
+        private boolean isBuiltFrom(List<FacetBucket> cuisines, List<FacetBucket> cities, long featuresVersion) {
+            return this.cuisines == cuisines && this.cities == cities && this.featuresVersion == featuresVersion;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.restaurant.services.impl;
+
+import com.restaurant.exceptions.ConcurrentUpdateException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Re-runs a read-modify-write against Elasticsearch when the write is rejected because the document's
+ * {@code _seq_no}/{@code _primary_term} moved on since it was read. Each attempt must re-read the document,
+ * so the retried write is always based on the latest version. Waits between attempts use capped
+ * exponential backoff with full jitter, so contending writers spread out instead of colliding again.
+ */
+@Component
+@Slf4j
+public class OptimisticRetry {
+
+    private final MeterRegistry meterRegistry;
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+
+    public OptimisticRetry(MeterRegistry meterRegistry,
+                           @Value("${app.occ.max-attempts:5}") int maxAttempts,
+                           @Value("${app.occ.initial-backoff:10ms}") Duration initialBackoff,
+                           @Value("${app.occ.max-backoff:250ms}") Duration maxBackoff) {
+        this.meterRegistry = meterRegistry;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.initialBackoffMillis = Math.max(1, initialBackoff.toMillis());
+        this.maxBackoffMillis = Math.max(initialBackoffMillis, maxBackoff.toMillis());
+    }
+
+    public void run(String operation, Runnable action) {
+        execute(operation, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    public <T> T execute(String operation, Supplier<T> action) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return action.get();
+            } catch (OptimisticLockingFailureException e) {
+                counter("restaurant.occ.conflicts", operation).increment();
+
+                if (attempt >= maxAttempts) {
+                    counter("restaurant.occ.exhausted", operation).increment();
+                    throw new ConcurrentUpdateException(
+                            "Gave up on " + operation + " after " + attempt + " conflicting attempts", e);
+                }
+
+                counter("restaurant.occ.retries", operation).increment();
+                log.debug("Version conflict on {} (attempt {}/{}), retrying", operation, attempt, maxAttempts);
+                backoff(attempt, operation, e);
+            }
+        }
+    }
+
+    private void backoff(int attempt, String operation, OptimisticLockingFailureException conflict) {
+        long ceiling = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(attempt - 1, 20));
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConcurrentUpdateException("Interrupted while retrying " + operation, conflict);
+        }
+    }
+
+    private Counter counter(String name, String operation) {
+        return Counter.builder(name)
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+}
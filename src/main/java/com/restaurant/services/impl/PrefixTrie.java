@@ -0,0 +1,129 @@
+package com.restaurant.services.impl;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Immutable prefix index over a small vocabulary. Every value is reachable from the {@linkplain #fold folded}
+ * form of each of its keys, and each node stores the best {@code maxResults} values below it, in rank order. A
+ * lookup walks the prefix with one binary search per character and returns that list without visiting the
+ * subtree.
+ */
+final class PrefixTrie<T> {
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SPACES = Pattern.compile("\\s+");
+
+    private final List<T> values;
+    private final Node root;
+
+    private PrefixTrie(List<T> values, Node root) {
+        this.values = values;
+        this.root = root;
+    }
+
+    /**
+     * @param keys the texts a value can be found by; each is folded before it is indexed
+     * @param rank the order of results, best first
+     * @param maxResults the most results any lookup can return
+     */
+    static <T> PrefixTrie<T> of(Collection<T> values,
+                                Function<? super T, ? extends Collection<String>> keys,
+                                Comparator<? super T> rank,
+                                int maxResults) {
+        List<T> ranked = values.stream().sorted(rank).toList();
+        NodeBuilder root = new NodeBuilder();
+        // Inserting in rank order keeps every node's list sorted and lets it stop at maxResults.
+        for (int value = 0; value < ranked.size(); value++) {
+            for (String key : keys.apply(ranked.get(value))) {
+                String folded = fold(key);
+                NodeBuilder node = root;
+                node.offer(value, maxResults);
+                for (int i = 0; i < folded.length(); i++) {
+                    node = node.children.computeIfAbsent(folded.charAt(i), c -> new NodeBuilder());
+                    node.offer(value, maxResults);
+                }
+            }
+        }
+        return new PrefixTrie<>(ranked, root.build());
+    }
+
+    /**
+     * Lower-cased, accents stripped, whitespace trimmed and collapsed: "  Café  Crème" becomes "cafe creme".
+     */
+    static String fold(String text) {
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        String unaccented = MARKS.matcher(decomposed).replaceAll("");
+        return SPACES.matcher(unaccented.toLowerCase(Locale.ROOT).strip()).replaceAll(" ");
+    }
+
+    /**
+     * The best {@code limit} values with a key starting with {@code prefix} once folded.
+     */
+    List<T> find(String prefix, int limit) {
+        String folded = fold(prefix);
+        Node node = root;
+        for (int i = 0; i < folded.length() && node != null; i++) {
+            node = node.child(folded.charAt(i));
+        }
+        if (node == null) {
+            return List.of();
+        }
+
+        int size = Math.min(limit, node.top.length);
+        List<T> found = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            found.add(values.get(node.top[i]));
+        }
+        return found;
+    }
+
+    private static final class Node {
+        private final char[] labels;
+        private final Node[] children;
+        private final int[] top;
+
+        private Node(char[] labels, Node[] children, int[] top) {
+            this.labels = labels;
+            this.children = children;
+            this.top = top;
+        }
+
+        private Node child(char label) {
+            int index = Arrays.binarySearch(labels, label);
+            return index < 0 ? null : children[index];
+        }
+    }
+
+    private static final class NodeBuilder {
+        private final TreeMap<Character, NodeBuilder> children = new TreeMap<>();
+        private final List<Integer> top = new ArrayList<>();
+
+        private void offer(int value, int maxResults) {
+            // A value with several keys sharing this prefix is offered once per key, always last.
+            if (top.size() < maxResults && (top.isEmpty() || top.get(top.size() - 1) != value)) {
+                top.add(value);
+            }
+        }
+
+        private Node build() {
+            char[] labels = new char[children.size()];
+            Node[] built = new Node[children.size()];
+            int i = 0;
+            for (var child : children.entrySet()) {
+                labels[i] = child.getKey();
+                built[i] = child.getValue().build();
+                i++;
+            }
+            return new Node(labels, built, top.stream().mapToInt(Integer::intValue).toArray());
+        }
+    }
+}
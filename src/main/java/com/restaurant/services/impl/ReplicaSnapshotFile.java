@@ -0,0 +1,386 @@
+package com.restaurant.services.impl;
+
+import com.restaurant.domain.entities.MinuteRange;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.elasticsearch.core.geo.GeoPoint;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.CRC32;
+
+/**
+ * Local copy of the replicated catalog, so a restarted instance can fill its replicas from disk and only
+ * re-read from Elasticsearch what changed since. Only {@link RestaurantReplicaFeed} uses it, from its sync thread.
+ * <p>
+ * The file is a header followed by records, each {@code [length][crc32][payload]}: dictionary entries for
+ * cuisines and features, row upserts, removals, and commits. A commit closes the records of one sync batch and
+ * carries its watermark, the time the batch started reading the index. Batches are appended as they are applied;
+ * once the appended records outgrow the last full snapshot, the committed rows are read back from the file and
+ * rewritten to a temporary file, which is moved into place. No copy of the rows is kept in between. {@link #read}
+ * maps the file and stops at the first damaged record, so a batch torn by a crash is dropped as a whole and the
+ * snapshot rolls back to the previous commit.
+ */
+@Component
+@Slf4j
+public class ReplicaSnapshotFile {
+
+    private static final int MAGIC = 0x52455053;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 8;
+    private static final int RECORD_HEADER_BYTES = 8;
+    private static final long MIN_COMPACTION_BYTES = 1 << 20;
+
+    private static final byte DICTIONARY = 1;
+    private static final byte UPSERT = 2;
+    private static final byte REMOVE = 3;
+    private static final byte COMMIT = 4;
+
+    private static final byte CUISINES = 0;
+    private static final byte FEATURES = 1;
+    private static final int ABSENT = -1;
+
+    private final boolean enabled;
+    private final Path path;
+
+    private final Map<String, Integer> cuisineCodes = new HashMap<>();
+    private final Map<String, Integer> featureCodes = new HashMap<>();
+    private FileChannel appendChannel;
+    private long compactedBytes;
+
+    public ReplicaSnapshotFile(@Value("${app.replica.snapshot.enabled:true}") boolean enabled,
+                               @Value("${app.replica.snapshot.path:${java.io.tmpdir}/restaurant-replica.snapshot}") Path path) {
+        this.enabled = enabled;
+        this.path = path;
+    }
+
+    /**
+     * The rows as of the last complete commit, or empty if there is no usable snapshot.
+     */
+    public Optional<Snapshot> read() {
+        if (!enabled || !Files.isRegularFile(path)) {
+            return Optional.empty();
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < HEADER_BYTES || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                log.warn("Ignoring replica snapshot {}: not a version {} snapshot", path, VERSION);
+                return Optional.empty();
+            }
+
+            Map<String, ReplicatedRestaurant> committed = new LinkedHashMap<>();
+            Map<String, ReplicatedRestaurant> pendingUpserts = new LinkedHashMap<>();
+            List<String> pendingRemoves = new ArrayList<>();
+            Map<Integer, String> cuisines = new HashMap<>();
+            Map<Integer, String> features = new HashMap<>();
+            Long watermark = null;
+            CRC32 crc = new CRC32();
+
+            while (buffer.remaining() >= RECORD_HEADER_BYTES) {
+                int length = buffer.getInt();
+                int checksum = buffer.getInt();
+                if (length <= 0 || length > buffer.remaining()) {
+                    break;
+                }
+                byte[] payload = new byte[length];
+                buffer.get(payload);
+                crc.reset();
+                crc.update(payload);
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+
+                DataInputStream record = new DataInputStream(new ByteArrayInputStream(payload));
+                switch (record.readByte()) {
+                    case DICTIONARY -> {
+                        Map<Integer, String> dictionary = record.readByte() == CUISINES ? cuisines : features;
+                        int code = record.readInt();
+                        dictionary.put(code, record.readUTF());
+                    }
+                    case UPSERT -> {
+                        ReplicatedRestaurant restaurant = readRow(record, cuisines, features);
+                        pendingRemoves.remove(restaurant.getId());
+                        pendingUpserts.put(restaurant.getId(), restaurant);
+                    }
+                    case REMOVE -> {
+                        String id = record.readUTF();
+                        pendingUpserts.remove(id);
+                        pendingRemoves.add(id);
+                    }
+                    case COMMIT -> {
+                        watermark = record.readLong();
+                        committed.putAll(pendingUpserts);
+                        pendingRemoves.forEach(committed::remove);
+                        pendingUpserts.clear();
+                        pendingRemoves.clear();
+                    }
+                    default -> throw new IOException("unknown record type");
+                }
+            }
+
+            if (watermark == null) {
+                log.warn("Ignoring replica snapshot {}: no complete commit", path);
+                return Optional.empty();
+            }
+            return Optional.of(new Snapshot(List.copyOf(committed.values()), watermark));
+        } catch (IOException | RuntimeException e) {
+            log.warn("Ignoring unreadable replica snapshot {}", path, e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Replaces the file with a full snapshot of {@code restaurants}, read from the index from {@code watermark} on.
+     */
+    public void rewrite(Collection<ReplicatedRestaurant> restaurants, long watermark) {
+        if (!enabled) {
+            return;
+        }
+        closeAppendChannel();
+        cuisineCodes.clear();
+        featureCodes.clear();
+
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(path.toAbsolutePath().getParent());
+            ByteArrayOutputStream records = new ByteArrayOutputStream();
+            DataOutputStream header = new DataOutputStream(records);
+            header.writeInt(MAGIC);
+            header.writeInt(VERSION);
+            for (ReplicatedRestaurant restaurant : restaurants) {
+                writeUpsert(records, restaurant);
+            }
+            writeCommit(records, watermark);
+
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                writeFully(channel, records);
+                channel.force(true);
+            }
+            Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+            appendChannel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            compactedBytes = records.size();
+        } catch (IOException e) {
+            log.warn("Could not write replica snapshot {}; continuing without it until the next restart", path, e);
+            closeAppendChannel();
+        }
+    }
+
+    /**
+     * Appends one sync batch, read from the index from {@code watermark} on, then compacts the file if it has
+     * grown to twice its last full size. Does nothing until {@link #rewrite} has succeeded.
+     */
+    public void append(List<ReplicatedRestaurant> changed, Collection<String> removedIds, long watermark) {
+        if (appendChannel == null) {
+            return;
+        }
+
+        try {
+            ByteArrayOutputStream records = new ByteArrayOutputStream();
+            for (ReplicatedRestaurant restaurant : changed) {
+                writeUpsert(records, restaurant);
+            }
+            for (String id : removedIds) {
+                ByteArrayOutputStream payload = new ByteArrayOutputStream();
+                DataOutputStream record = new DataOutputStream(payload);
+                record.writeByte(REMOVE);
+                record.writeUTF(id);
+                writeRecord(records, payload);
+            }
+            writeCommit(records, watermark);
+
+            writeFully(appendChannel, records);
+            appendChannel.force(false);
+
+            if (appendChannel.size() > Math.max(2 * compactedBytes, MIN_COMPACTION_BYTES)) {
+                compact();
+            }
+        } catch (IOException e) {
+            log.warn("Could not append to replica snapshot {}; continuing without it until the next restart", path, e);
+            closeAppendChannel();
+        }
+    }
+
+    /**
+     * Rewrites the file with just its committed rows, read back from it for the purpose.
+     */
+    private void compact() {
+        Optional<Snapshot> snapshot = read();
+        if (snapshot.isEmpty()) {
+            log.warn("Could not compact replica snapshot {}; continuing without it until the next restart", path);
+            closeAppendChannel();
+            return;
+        }
+        rewrite(snapshot.get().restaurants(), snapshot.get().watermark());
+    }
+
+    public void close() {
+        closeAppendChannel();
+    }
+
+    private void closeAppendChannel() {
+        if (appendChannel != null) {
+            try {
+                appendChannel.close();
+            } catch (IOException e) {
+                log.debug("Could not close replica snapshot {}", path, e);
+            }
+            appendChannel = null;
+        }
+    }
+
+    private void writeUpsert(ByteArrayOutputStream records, ReplicatedRestaurant restaurant) throws IOException {
+        int cuisine = restaurant.getCuisineType() == null
+                ? ABSENT
+                : code(records, cuisineCodes, CUISINES, restaurant.getCuisineType());
+        int[] features = null;
+        if (restaurant.getFeatures() != null) {
+            features = new int[restaurant.getFeatures().size()];
+            for (int i = 0; i < features.length; i++) {
+                features[i] = code(records, featureCodes, FEATURES, restaurant.getFeatures().get(i));
+            }
+        }
+
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        DataOutputStream record = new DataOutputStream(payload);
+        record.writeByte(UPSERT);
+        record.writeUTF(restaurant.getId());
+        GeoPoint geoLocation = restaurant.getGeoLocation();
+        record.writeDouble(geoLocation == null ? Double.NaN : geoLocation.getLat());
+        record.writeDouble(geoLocation == null ? Double.NaN : geoLocation.getLon());
+        record.writeFloat(restaurant.getAverageRating() == null ? Float.NaN : restaurant.getAverageRating());
+        record.writeBoolean(restaurant.getPriceRange() != null);
+        record.writeInt(restaurant.getPriceRange() == null ? 0 : restaurant.getPriceRange());
+        record.writeInt(cuisine);
+        record.writeInt(features == null ? ABSENT : features.length);
+        if (features != null) {
+            for (int feature : features) {
+                record.writeInt(feature);
+            }
+        }
+        List<MinuteRange> openIntervals = restaurant.getOpenIntervals();
+        record.writeInt(openIntervals == null ? ABSENT : openIntervals.size());
+        if (openIntervals != null) {
+            for (MinuteRange range : openIntervals) {
+                record.writeInt(range.getGte());
+                record.writeInt(range.getLte());
+            }
+        }
+        writeRecord(records, payload);
+    }
+
+    private static ReplicatedRestaurant readRow(DataInputStream record,
+                                                Map<Integer, String> cuisines,
+                                                Map<Integer, String> features) throws IOException {
+        ReplicatedRestaurant restaurant = new ReplicatedRestaurant();
+        restaurant.setId(record.readUTF());
+        double lat = record.readDouble();
+        double lon = record.readDouble();
+        restaurant.setGeoLocation(Double.isNaN(lat) ? null : new GeoPoint(lat, lon));
+        float averageRating = record.readFloat();
+        restaurant.setAverageRating(Float.isNaN(averageRating) ? null : averageRating);
+        boolean hasPriceRange = record.readBoolean();
+        int priceRange = record.readInt();
+        restaurant.setPriceRange(hasPriceRange ? priceRange : null);
+        int cuisine = record.readInt();
+        restaurant.setCuisineType(cuisine == ABSENT ? null : decode(cuisines, cuisine));
+        int featureCount = record.readInt();
+        if (featureCount != ABSENT) {
+            List<String> restaurantFeatures = new ArrayList<>(featureCount);
+            for (int i = 0; i < featureCount; i++) {
+                restaurantFeatures.add(decode(features, record.readInt()));
+            }
+            restaurant.setFeatures(restaurantFeatures);
+        }
+        int intervalCount = record.readInt();
+        if (intervalCount != ABSENT) {
+            List<MinuteRange> openIntervals = new ArrayList<>(intervalCount);
+            for (int i = 0; i < intervalCount; i++) {
+                openIntervals.add(new MinuteRange(record.readInt(), record.readInt()));
+            }
+            restaurant.setOpenIntervals(openIntervals);
+        }
+        return restaurant;
+    }
+
+    private static String decode(Map<Integer, String> dictionary, int code) throws IOException {
+        String value = dictionary.get(code);
+        if (value == null) {
+            throw new IOException("undefined dictionary code " + code);
+        }
+        return value;
+    }
+
+    /**
+     * The code of {@code value}, writing its dictionary entry to {@code records} first if it is new.
+     */
+    private static int code(ByteArrayOutputStream records, Map<String, Integer> codes, byte dictionary, String value)
+            throws IOException {
+        Integer existing = codes.get(value);
+        if (existing != null) {
+            return existing;
+        }
+        int code = codes.size();
+        codes.put(value, code);
+
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        DataOutputStream record = new DataOutputStream(payload);
+        record.writeByte(DICTIONARY);
+        record.writeByte(dictionary);
+        record.writeInt(code);
+        record.writeUTF(value);
+        writeRecord(records, payload);
+        return code;
+    }
+
+    private static void writeCommit(ByteArrayOutputStream records, long watermark) throws IOException {
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        DataOutputStream record = new DataOutputStream(payload);
+        record.writeByte(COMMIT);
+        record.writeLong(watermark);
+        writeRecord(records, payload);
+    }
+
+    private static void writeRecord(ByteArrayOutputStream records, ByteArrayOutputStream payload) throws IOException {
+        byte[] bytes = payload.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        DataOutputStream header = new DataOutputStream(records);
+        header.writeInt(bytes.length);
+        header.writeInt((int) crc.getValue());
+        records.write(bytes);
+    }
+
+    private static void writeFully(FileChannel channel, ByteArrayOutputStream records) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(records.toByteArray());
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * The committed rows of a snapshot, and the watermark of its last commit.
+     */
+    public record Snapshot(List<ReplicatedRestaurant> restaurants, long watermark) {
+    }
+}
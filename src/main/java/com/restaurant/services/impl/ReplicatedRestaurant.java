@@ -0,0 +1,46 @@
+package com.restaurant.services.impl;
+
+import com.restaurant.domain.entities.MinuteRange;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.elasticsearch.core.geo.GeoPoint;
+
+import java.util.List;
+
+/**
+ * The restaurant fields held by the in-process search replicas, read with {@link #SOURCE_FIELDS}.
+ * {@link #lastModified} only tells the feed which restaurants changed; polls read just that, with
+ * {@link #RECONCILE_FIELDS}, and the snapshot file does not keep it.
+ */
+@Data
+@NoArgsConstructor
+public class ReplicatedRestaurant {
+
+    public static final String[] SOURCE_FIELDS = {
+            "geoLocation", "averageRating", "priceRange", "cuisineType", "features", "openIntervals",
+            "lastModified"
+    };
+
+    public static final String[] RECONCILE_FIELDS = {"lastModified"};
+
+    @Id
+    private String id;
+
+    private GeoPoint geoLocation;
+
+    private Float averageRating;
+
+    private Integer priceRange;
+
+    private String cuisineType;
+
+    private List<String> features;
+
+    private List<MinuteRange> openIntervals;
+
+    /**
+     * Epoch milliseconds.
+     */
+    private Long lastModified;
+}
@@ -0,0 +1,25 @@
+package com.restaurant.services.impl;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Local time at the restaurants. Opening hours are stored and matched as local wall-clock time, so
+ * "open now" must be evaluated in the restaurants' zone rather than the server's.
+ */
+@Component
+public class RestaurantClock {
+
+    private final ZoneId zone;
+
+    public RestaurantClock(@Value("${app.restaurants.time-zone:Africa/Tunis}") ZoneId zone) {
+        this.zone = zone;
+    }
+
+    public LocalDateTime now() {
+        return LocalDateTime.now(zone);
+    }
+}
@@ -0,0 +1,442 @@
+package com.restaurant.services.impl;
+
+import com.restaurant.domain.entities.MinuteRange;
+import org.springframework.data.domain.Sort;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Column-per-field snapshot of the restaurant catalog: one primitive array per filterable field, cuisines and
+ * features dictionary-encoded, opening intervals in compressed-row form.
+ * <p>
+ * {@link #apply} patches the catalog in place instead of rebuilding it: a replaced or removed restaurant's
+ * slot is marked with the generation that retired it, and the new version is appended after the last slot.
+ * A snapshot only reads the slots that existed when it was taken and counts a slot as live while it was
+ * retired by a later generation, so it keeps seeing one consistent catalog while the next one is written.
+ * The live rows are copied into fresh arrays once retired slots pass {@link #MAX_RETIRED_SHARE} of them, or
+ * when the arrays run out of room.
+ * <p>
+ * A scan narrows a byte mask with one branch-free loop per active filter over a single primitive array,
+ * the shape the JIT unrolls and, for the comparisons, vectorizes. The requested page is then picked with a
+ * bounded heap over the surviving rows.
+ */
+final class RestaurantColumns {
+
+    private static final int NO_PRICE_RANGE = Integer.MIN_VALUE;
+    private static final int NO_CUISINE = -1;
+    private static final int LIVE = Integer.MAX_VALUE;
+    private static final double MAX_RETIRED_SHARE = 0.25;
+    private static final int MIN_CAPACITY = 16;
+
+    private final Columns columns;
+    private final Slots slots;
+    // Slots 0..rows-1 are visible to this snapshot; live of them are not retired.
+    private final int rows;
+    private final int live;
+    private final int generation;
+    private final Map<String, Integer> cuisineIds;
+    private final Map<String, Integer> featureIds;
+
+    private RestaurantColumns(Columns columns,
+                              Slots slots,
+                              int rows,
+                              int live,
+                              int generation,
+                              Map<String, Integer> cuisineIds,
+                              Map<String, Integer> featureIds) {
+        this.columns = columns;
+        this.slots = slots;
+        this.rows = rows;
+        this.live = live;
+        this.generation = generation;
+        this.cuisineIds = cuisineIds;
+        this.featureIds = featureIds;
+    }
+
+    static RestaurantColumns of(Collection<ReplicatedRestaurant> restaurants) {
+        Set<String> features = new HashSet<>();
+        int intervals = 0;
+        for (ReplicatedRestaurant restaurant : restaurants) {
+            if (restaurant.getFeatures() != null) {
+                features.addAll(restaurant.getFeatures());
+            }
+            intervals += intervalCount(restaurant);
+        }
+        Columns columns = Columns.allocate(restaurants.size(), wordsFor(features.size()), intervals);
+        return new RestaurantColumns(columns, new Slots(), 0, 0, 0, Map.of(), Map.of())
+                .apply(restaurants, List.of());
+    }
+
+    /**
+     * The next snapshot: {@code changed} added or replacing the row with the same id, {@code removedIds} gone.
+     * Only the latest snapshot of a catalog may be patched, from one thread; older ones stay readable.
+     */
+    RestaurantColumns apply(Collection<ReplicatedRestaurant> changed, Collection<String> removedIds) {
+        if (slots.generation != generation) {
+            throw new IllegalStateException("Only the latest snapshot can be patched");
+        }
+        int next = generation + 1;
+        slots.generation = next;
+        removedIds.forEach(id -> retire(columns, id, next));
+        changed.forEach(restaurant -> retire(columns, restaurant.getId(), next));
+
+        Map<String, Integer> nextCuisineIds = extended(cuisineIds, changed.stream()
+                .map(ReplicatedRestaurant::getCuisineType));
+        Map<String, Integer> nextFeatureIds = extended(featureIds, changed.stream()
+                .filter(restaurant -> restaurant.getFeatures() != null)
+                .flatMap(restaurant -> restaurant.getFeatures().stream()));
+
+        int intervals = changed.stream().mapToInt(RestaurantColumns::intervalCount).sum();
+        int featureWords = wordsFor(nextFeatureIds.size());
+        Columns target = columns;
+        if (slots.retired > (slots.used + changed.size()) * MAX_RETIRED_SHARE
+                || slots.used + changed.size() > columns.ids().length
+                || slots.intervals + intervals > columns.openFrom().length
+                || featureWords > columns.featureWords()) {
+            int liveRows = slots.used - slots.retired + changed.size();
+            int liveIntervals = slots.intervals - slots.retiredIntervals + intervals;
+            target = compacted(Columns.allocate(grown(liveRows), featureWords, grown(liveIntervals)));
+        }
+
+        for (ReplicatedRestaurant restaurant : changed) {
+            // A restaurant listed twice in one batch keeps its last version.
+            retire(target, restaurant.getId(), next);
+            append(target, restaurant, nextCuisineIds, nextFeatureIds);
+        }
+        return new RestaurantColumns(target, slots, slots.used, slots.used - slots.retired, next,
+                nextCuisineIds, nextFeatureIds);
+    }
+
+    int size() {
+        return live;
+    }
+
+    private void retire(Columns target, String id, int retiredIn) {
+        Integer slot = slots.byId.remove(id);
+        if (slot != null) {
+            target.retiredIn()[slot] = retiredIn;
+            slots.retired++;
+            slots.retiredIntervals += target.openOffsets()[slot + 1] - target.openOffsets()[slot];
+        }
+    }
+
+    /**
+     * Copies the live slots into {@code target}, renumbering them from 0. Earlier snapshots keep reading the
+     * arrays they were taken on.
+     */
+    private Columns compacted(Columns target) {
+        int to = 0;
+        int interval = 0;
+        for (int from = 0; from < slots.used; from++) {
+            if (columns.retiredIn()[from] != LIVE) {
+                continue;
+            }
+            target.ids()[to] = columns.ids()[from];
+            target.latitudes()[to] = columns.latitudes()[from];
+            target.longitudes()[to] = columns.longitudes()[from];
+            target.ratings()[to] = columns.ratings()[from];
+            target.priceRanges()[to] = columns.priceRanges()[from];
+            target.cuisines()[to] = columns.cuisines()[from];
+            System.arraycopy(columns.featureBits(), from * columns.featureWords(),
+                    target.featureBits(), to * target.featureWords(), columns.featureWords());
+            target.openOffsets()[to] = interval;
+            for (int k = columns.openOffsets()[from]; k < columns.openOffsets()[from + 1]; k++) {
+                target.openFrom()[interval] = columns.openFrom()[k];
+                target.openTo()[interval] = columns.openTo()[k];
+                interval++;
+            }
+            target.retiredIn()[to] = LIVE;
+            slots.byId.put(target.ids()[to], to);
+            to++;
+        }
+        target.openOffsets()[to] = interval;
+        slots.used = to;
+        slots.intervals = interval;
+        slots.retired = 0;
+        slots.retiredIntervals = 0;
+        return target;
+    }
+
+    private void append(Columns target, ReplicatedRestaurant restaurant,
+                        Map<String, Integer> cuisineIds, Map<String, Integer> featureIds) {
+        int row = slots.used;
+        target.ids()[row] = restaurant.getId();
+        target.latitudes()[row] = restaurant.getGeoLocation() == null ? Double.NaN : restaurant.getGeoLocation().getLat();
+        target.longitudes()[row] = restaurant.getGeoLocation() == null ? Double.NaN : restaurant.getGeoLocation().getLon();
+        target.ratings()[row] = restaurant.getAverageRating() == null ? Float.NaN : restaurant.getAverageRating();
+        target.priceRanges()[row] = restaurant.getPriceRange() == null ? NO_PRICE_RANGE : restaurant.getPriceRange();
+        target.cuisines()[row] = restaurant.getCuisineType() == null
+                ? NO_CUISINE
+                : cuisineIds.get(restaurant.getCuisineType());
+        int featureWords = target.featureWords();
+        Arrays.fill(target.featureBits(), row * featureWords, (row + 1) * featureWords, 0L);
+        if (restaurant.getFeatures() != null) {
+            for (String feature : restaurant.getFeatures()) {
+                int bit = featureIds.get(feature);
+                target.featureBits()[row * featureWords + bit / 64] |= 1L << bit;
+            }
+        }
+        int interval = slots.intervals;
+        target.openOffsets()[row] = interval;
+        if (restaurant.getOpenIntervals() != null) {
+            for (MinuteRange range : restaurant.getOpenIntervals()) {
+                target.openFrom()[interval] = range.getGte();
+                target.openTo()[interval] = range.getLte();
+                interval++;
+            }
+        }
+        target.openOffsets()[row + 1] = interval;
+        target.retiredIn()[row] = LIVE;
+
+        slots.byId.put(restaurant.getId(), row);
+        slots.used = row + 1;
+        slots.intervals = interval;
+    }
+
+    /**
+     * {@code dictionary}, copied with ids for the values it lacks; the same map if it lacks none. A published
+     * dictionary is never modified, as scans of older snapshots keep reading it.
+     */
+    private static Map<String, Integer> extended(Map<String, Integer> dictionary, Stream<String> values) {
+        Map<String, Integer> extended = null;
+        for (String value : (Iterable<String>) values::iterator) {
+            if (value != null && !dictionary.containsKey(value) && (extended == null || !extended.containsKey(value))) {
+                if (extended == null) {
+                    extended = new HashMap<>(dictionary);
+                }
+                extended.put(value, extended.size());
+            }
+        }
+        return extended == null ? dictionary : extended;
+    }
+
+    private static int intervalCount(ReplicatedRestaurant restaurant) {
+        return restaurant.getOpenIntervals() == null ? 0 : restaurant.getOpenIntervals().size();
+    }
+
+    private static int wordsFor(int features) {
+        return Math.max(1, (features + 63) / 64);
+    }
+
+    private static int grown(int needed) {
+        return Math.max(MIN_CAPACITY, needed + needed / 2);
+    }
+
+    Result scan(Scan scan) {
+        String[] ids = columns.ids();
+        double[] latitudes = columns.latitudes();
+        double[] longitudes = columns.longitudes();
+        float[] ratings = columns.ratings();
+        int[] priceRanges = columns.priceRanges();
+        int[] cuisines = columns.cuisines();
+        long[] featureBits = columns.featureBits();
+        int featureWords = columns.featureWords();
+        int[] openOffsets = columns.openOffsets();
+        int[] openFrom = columns.openFrom();
+        int[] openTo = columns.openTo();
+        int[] retiredIn = columns.retiredIn();
+        int size = rows;
+
+        byte[] mask = new byte[size];
+        for (int i = 0; i < size; i++) {
+            mask[i] = (byte) (retiredIn[i] > generation ? 1 : 0);
+        }
+
+        if (scan.minRating() != null) {
+            float minRating = scan.minRating();
+            for (int i = 0; i < size; i++) {
+                // NaN (no rating) compares false, as a range query skips documents without the field.
+                mask[i] &= (byte) (ratings[i] >= minRating ? 1 : 0);
+            }
+        }
+        if (!scan.priceRanges().isEmpty()) {
+            for (int priceRange : scan.priceRanges()) {
+                // Accumulate matches in bit 1, then fold them into bit 0 below.
+                for (int i = 0; i < size; i++) {
+                    mask[i] |= (byte) (priceRanges[i] == priceRange ? 2 : 0);
+                }
+            }
+            foldAlternatives(mask);
+        }
+        if (scan.cuisineTypes() != null) {
+            boolean[] accepted = new boolean[cuisineIds.size() + 1];
+            scan.cuisineTypes().stream()
+                    .map(cuisineIds::get)
+                    .filter(id -> id != null)
+                    .forEach(id -> accepted[id + 1] = true);
+            for (int i = 0; i < size; i++) {
+                mask[i] &= (byte) (accepted[cuisines[i] + 1] ? 1 : 0);
+            }
+        }
+        if (scan.features() != null) {
+            long[] wanted = new long[featureWords];
+            for (String feature : scan.features()) {
+                Integer bit = featureIds.get(feature);
+                if (bit != null) {
+                    wanted[bit / 64] |= 1L << bit;
+                }
+            }
+            for (int i = 0; i < size; i++) {
+                long any = 0;
+                for (int w = 0; w < featureWords; w++) {
+                    any |= featureBits[i * featureWords + w] & wanted[w];
+                }
+                mask[i] &= (byte) (any != 0 ? 1 : 0);
+            }
+        }
+        if (scan.openMinute() != null) {
+            int minute = scan.openMinute();
+            for (int i = 0; i < size; i++) {
+                int open = 0;
+                for (int k = openOffsets[i]; k < openOffsets[i + 1]; k++) {
+                    open |= openFrom[k] <= minute && minute <= openTo[k] ? 1 : 0;
+                }
+                mask[i] &= (byte) open;
+            }
+        }
+
+        double[] distances = scan.hasOrigin() ? new double[size] : null;
+        if (scan.maxDistanceKm() != null) {
+            // A latitude band cuts most rows with a plain comparison before any trigonometry.
+            double band = scan.maxDistanceKm() / (Math.PI * LocalSearches.EARTH_RADIUS_KM / 180);
+            double minLatitude = scan.latitude() - band;
+            double maxLatitude = scan.latitude() + band;
+            for (int i = 0; i < size; i++) {
+                mask[i] &= (byte) (latitudes[i] >= minLatitude && latitudes[i] <= maxLatitude ? 1 : 0);
+            }
+        }
+        if (distances != null) {
+            for (int i = 0; i < size; i++) {
+                if (mask[i] != 0) {
+                    distances[i] = Double.isNaN(latitudes[i])
+                            ? Double.POSITIVE_INFINITY
+                            : LocalSearches.distanceKm(scan.latitude(), scan.longitude(), latitudes[i], longitudes[i]);
+                    if (scan.maxDistanceKm() != null && distances[i] > scan.maxDistanceKm()) {
+                        mask[i] = 0;
+                    }
+                }
+            }
+        }
+
+        return topRows(mask, ratings, distances, ids, scan.direction(), scan.limit());
+    }
+
+    private static void foldAlternatives(byte[] mask) {
+        for (int i = 0; i < mask.length; i++) {
+            mask[i] = (byte) (mask[i] & (mask[i] >> 1) & 1);
+        }
+    }
+
+    private static Result topRows(byte[] mask, float[] ratings, double[] distances, String[] ids,
+                                  Sort.Direction direction, int limit) {
+        Comparator<Integer> order = rowOrder(ratings, distances, ids, direction);
+        // Max-heap on the page order, so the root is the first row to drop once more than limit are kept.
+        PriorityQueue<Integer> top = new PriorityQueue<>(Math.max(1, limit), order.reversed());
+        int total = 0;
+        for (int i = 0; i < mask.length; i++) {
+            if (mask[i] != 0) {
+                total++;
+                if (top.size() < limit) {
+                    top.add(i);
+                } else if (limit > 0 && order.compare(i, top.peek()) < 0) {
+                    top.poll();
+                    top.add(i);
+                }
+            }
+        }
+
+        String[] page = new String[top.size()];
+        for (int i = page.length - 1; i >= 0; i--) {
+            page[i] = ids[top.poll()];
+        }
+        return new Result(List.of(page), total);
+    }
+
+    private static Comparator<Integer> rowOrder(float[] ratings, double[] distances, String[] ids,
+                                                Sort.Direction direction) {
+        // Like Elasticsearch, rows without a rating come last in either direction.
+        Comparator<Integer> byRating = (a, b) -> {
+            boolean aMissing = Float.isNaN(ratings[a]);
+            boolean bMissing = Float.isNaN(ratings[b]);
+            if (aMissing || bMissing) {
+                return Boolean.compare(aMissing, bMissing);
+            }
+            return direction.isAscending() ? Float.compare(ratings[a], ratings[b]) : Float.compare(ratings[b], ratings[a]);
+        };
+        Comparator<Integer> order = distances == null
+                ? byRating
+                : byRating.thenComparingDouble(row -> distances[row]);
+        return order.thenComparing(row -> ids[row]);
+    }
+
+    /**
+     * The arrays of one layout. Snapshots taken while it had room share it; each reads its own prefix of it.
+     */
+    private record Columns(String[] ids,
+                           double[] latitudes,
+                           double[] longitudes,
+                           float[] ratings,
+                           int[] priceRanges,
+                           int[] cuisines,
+                           int featureWords,
+                           long[] featureBits,
+                           int[] openOffsets,
+                           int[] openFrom,
+                           int[] openTo,
+                           int[] retiredIn) {
+
+        static Columns allocate(int capacity, int featureWords, int intervals) {
+            return new Columns(new String[capacity], new double[capacity], new double[capacity],
+                    new float[capacity], new int[capacity], new int[capacity], featureWords,
+                    new long[capacity * featureWords], new int[capacity + 1], new int[intervals], new int[intervals],
+                    new int[capacity]);
+        }
+    }
+
+    /**
+     * Where the next row of a catalog goes, and which slot holds each restaurant. Only {@link #apply} touches
+     * it, so it is shared unguarded by all snapshots of one catalog.
+     */
+    private static final class Slots {
+        private final Map<String, Integer> byId = new HashMap<>();
+        private int generation;
+        private int used;
+        private int intervals;
+        private int retired;
+        private int retiredIntervals;
+    }
+
+    /**
+     * One scan request; {@code null} (or empty, for price ranges) means the filter is not applied.
+     */
+    record Scan(Float minRating,
+                Set<Integer> priceRanges,
+                List<String> cuisineTypes,
+                List<String> features,
+                Integer openMinute,
+                Double latitude,
+                Double longitude,
+                Double maxDistanceKm,
+                Sort.Direction direction,
+                int limit) {
+
+        boolean hasOrigin() {
+            return latitude != null && longitude != null;
+        }
+    }
+
+    /**
+     * The first {@code limit} matching ids in page order, and how many rows matched in total.
+     */
+    record Result(List<String> ids, int total) {
+    }
+}
@@ -0,0 +1,157 @@
+package com.restaurant.services.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.restaurant.domain.entities.Restaurant;
+import com.restaurant.domain.events.RestaurantChangedEvent;
+import com.restaurant.domain.events.RestaurantsChangedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.convert.ElasticsearchConverter;
+import org.springframework.data.elasticsearch.core.document.Document;
+import org.springframework.data.elasticsearch.core.query.SeqNoPrimaryTerm;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Read-through L1 cache of restaurant documents by id. Entries hold the document's JSON together with the
+ * {@code _seq_no}/{@code _primary_term} it was read at, so the cache is bounded by document bytes rather than
+ * entry count and every hit hands out a fresh, independently mutable {@link Restaurant}.
+ * <p>
+ * Writes whose resulting version is known replace the entry via {@link #put}, which never lets an older
+ * version overwrite a newer one. Other writes publish a {@link RestaurantChangedEvent}, which evicts the
+ * entry and stops loads already in flight from caching what they read before the write.
+ * Read-modify-write paths must not read through this cache: they need the current version to pass the
+ * seq_no check.
+ */
+@Component
+public class RestaurantDocumentCache {
+
+    private final ElasticsearchConverter converter;
+    private final Cache<String, CachedRestaurant> cache;
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public RestaurantDocumentCache(ElasticsearchOperations elasticsearchOperations,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${app.document-cache.max-weight:64MB}") DataSize maxWeight,
+                                   @Value("${app.document-cache.ttl:5m}") Duration ttl) {
+        this.converter = elasticsearchOperations.getElasticsearchConverter();
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxWeight.toBytes())
+                .weigher((String id, CachedRestaurant entry) -> entry.json().length)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "restaurant.documents");
+    }
+
+    public Optional<Restaurant> get(String id, Function<String, Optional<Restaurant>> loader) {
+        CachedRestaurant cached = cache.getIfPresent(id);
+        if (cached != null) {
+            return Optional.of(cached.toRestaurant(id, converter));
+        }
+
+        long generation = invalidations.get();
+        Optional<Restaurant> loaded = loader.apply(id);
+        if (loaded.isPresent() && invalidations.get() == generation) {
+            put(loaded.get());
+        }
+        return loaded;
+    }
+
+    /**
+     * {@link #get} for many ids: hits are served from memory and all misses are loaded by one call to
+     * {@code loader}, which must return one element per id it is given, in the same order.
+     */
+    public List<Optional<Restaurant>> getAll(List<String> ids,
+                                             Function<List<String>, List<Optional<Restaurant>>> loader) {
+        List<Optional<Restaurant>> found = new ArrayList<>(Collections.nCopies(ids.size(), Optional.empty()));
+        List<String> misses = new ArrayList<>();
+        List<Integer> missPositions = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i++) {
+            CachedRestaurant cached = cache.getIfPresent(ids.get(i));
+            if (cached != null) {
+                found.set(i, Optional.of(cached.toRestaurant(ids.get(i), converter)));
+            } else {
+                misses.add(ids.get(i));
+                missPositions.add(i);
+            }
+        }
+        if (misses.isEmpty()) {
+            return found;
+        }
+
+        long generation = invalidations.get();
+        List<Optional<Restaurant>> loaded = loader.apply(misses);
+        boolean cacheable = invalidations.get() == generation;
+        for (int i = 0; i < misses.size(); i++) {
+            Optional<Restaurant> restaurant = loaded.get(i);
+            found.set(missPositions.get(i), restaurant);
+            if (cacheable) {
+                restaurant.ifPresent(this::put);
+            }
+        }
+        return found;
+    }
+
+    public void put(Restaurant restaurant) {
+        if (restaurant.getSeqNoPrimaryTerm() == null) {
+            invalidate(restaurant.getId());
+            return;
+        }
+
+        CachedRestaurant entry = CachedRestaurant.of(restaurant, converter);
+        cache.asMap().merge(restaurant.getId(), entry,
+                (current, candidate) -> candidate.isNewerThan(current) ? candidate : current);
+    }
+
+    public void invalidate(String id) {
+        invalidations.incrementAndGet();
+        cache.invalidate(id);
+    }
+
+    @EventListener
+    public void onRestaurantChanged(RestaurantChangedEvent event) {
+        invalidate(event.restaurantId());
+    }
+
+    @EventListener
+    public void onRestaurantsChanged(RestaurantsChangedEvent event) {
+        invalidations.incrementAndGet();
+        cache.invalidateAll(event.restaurantIds());
+    }
+
+    private record CachedRestaurant(byte[] json, SeqNoPrimaryTerm version) {
+
+        static CachedRestaurant of(Restaurant restaurant, ElasticsearchConverter converter) {
+            byte[] json = converter.mapObject(restaurant).toJson().getBytes(StandardCharsets.UTF_8);
+            return new CachedRestaurant(json, restaurant.getSeqNoPrimaryTerm());
+        }
+
+        Restaurant toRestaurant(String id, ElasticsearchConverter converter) {
+            Restaurant restaurant = converter.read(Restaurant.class, Document.parse(new String(json, StandardCharsets.UTF_8)));
+            restaurant.setId(id);
+            restaurant.setSeqNoPrimaryTerm(version);
+            return restaurant;
+        }
+
+        boolean isNewerThan(CachedRestaurant other) {
+            if (version.primaryTerm() != other.version.primaryTerm()) {
+                return version.primaryTerm() > other.version.primaryTerm();
+            }
+            return version.sequenceNumber() > other.version.sequenceNumber();
+        }
+    }
+}
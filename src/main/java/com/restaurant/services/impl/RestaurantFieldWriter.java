@@ -0,0 +1,104 @@
+package com.restaurant.services.impl;
+
+import co.elastic.clients.elasticsearch.core.UpdateRequest;
+import co.elastic.clients.elasticsearch.core.UpdateResponse;
+import co.elastic.clients.json.JsonData;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.restaurant.domain.entities.Restaurant;
+import com.restaurant.exceptions.RestaurantNotFoundException;
+import com.restaurant.repositories.VersionConflicts;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.elasticsearch.ResourceNotFoundException;
+import org.springframework.data.elasticsearch.client.elc.ElasticsearchTemplate;
+import org.springframework.data.elasticsearch.core.document.Document;
+import org.springframework.data.elasticsearch.core.query.SeqNoPrimaryTerm;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes chosen top-level fields of a restaurant in place with one scripted partial update. Every other field
+ * of the stored document stays as it is, including fields {@link Restaurant} does not map (such as reviews
+ * still embedded by an older version), which a whole-document save would drop.
+ */
+@Component
+@RequiredArgsConstructor
+public class RestaurantFieldWriter {
+
+    /**
+     * Sets {@code params.doc}'s fields whole and removes {@code params.remove}. Objects are replaced, not
+     * merged, so a sub-field left out of the new value is really gone.
+     */
+    private static final String SET_FIELDS_SCRIPT = """
+            for (entry in params.doc.entrySet()) {
+                ctx._source[entry.getKey()] = entry.getValue();
+            }
+            for (field in params.remove) {
+                ctx._source.remove(field);
+            }
+            """;
+    private static final String TYPE_HINT = "_class";
+    // An unguarded write has no read to be stale against; the script is simply applied to the latest version.
+    private static final int UNGUARDED_RETRY_ON_CONFLICT = 3;
+
+    private final ElasticsearchTemplate elasticsearchTemplate;
+    private final WriteBlockRetry writeBlockRetry;
+
+    /**
+     * Writes {@code fields} of {@code values}: those it holds are set, those it leaves {@code null} removed.
+     */
+    public SeqNoPrimaryTerm write(String id, Restaurant values, Collection<String> fields, SeqNoPrimaryTerm basedOn) {
+        Document document = elasticsearchTemplate.getElasticsearchConverter().mapObject(values);
+        Map<String, Object> set = new LinkedHashMap<>();
+        List<String> removed = new ArrayList<>();
+        for (String field : fields) {
+            if (document.containsKey(field)) {
+                set.put(field, document.get(field));
+            } else {
+                removed.add(field);
+            }
+        }
+        return write(id, set, removed, basedOn);
+    }
+
+    /**
+     * Sets {@code set} and removes {@code removed}. With {@code basedOn} the write only applies to that
+     * version and throws {@link org.springframework.dao.OptimisticLockingFailureException} otherwise.
+     *
+     * @return the version written
+     */
+    public SeqNoPrimaryTerm write(String id, Map<String, Object> set, Collection<String> removed, SeqNoPrimaryTerm basedOn) {
+        Map<String, Object> doc = new LinkedHashMap<>(set);
+        doc.remove(TYPE_HINT);
+        String index = elasticsearchTemplate.getIndexCoordinatesFor(Restaurant.class).getIndexName();
+        UpdateRequest<ObjectNode, ObjectNode> request = UpdateRequest.of(u -> {
+            u.index(index)
+                    .id(id)
+                    .script(s -> s
+                            .source(SET_FIELDS_SCRIPT)
+                            .lang("painless")
+                            .params(Map.of(
+                                    "doc", JsonData.of(doc),
+                                    "remove", JsonData.of(List.copyOf(removed)))));
+            if (basedOn == null) {
+                u.retryOnConflict(UNGUARDED_RETRY_ON_CONFLICT);
+            } else {
+                u.ifSeqNo(basedOn.sequenceNumber()).ifPrimaryTerm(basedOn.primaryTerm());
+            }
+            return u;
+        });
+
+        try {
+            UpdateResponse<ObjectNode> response = writeBlockRetry.execute("restaurant.write", () ->
+                    VersionConflicts.translated(() ->
+                            elasticsearchTemplate.execute(client -> client.update(request, ObjectNode.class))));
+            return new SeqNoPrimaryTerm(response.seqNo(), response.primaryTerm());
+        } catch (ResourceNotFoundException e) {
+            throw new RestaurantNotFoundException("Restaurant with ID does not exist: " + id);
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.restaurant.services.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.restaurant.domain.RestaurantImportFormat;
+import com.restaurant.domain.dtos.RestaurantCreateUpdateRequestDto;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads import rows one at a time from the request body, so an import never holds more than the row being
+ * parsed. A row that cannot be parsed is returned with an error rather than ending the import.
+ */
+abstract class RestaurantImportReader implements Closeable {
+
+    protected final BufferedReader input;
+    protected final ObjectMapper objectMapper;
+    protected final ObjectReader requestReader;
+
+    private RestaurantImportReader(InputStream input, ObjectMapper objectMapper) {
+        this.input = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        this.objectMapper = objectMapper;
+        this.requestReader = objectMapper.readerFor(RestaurantCreateUpdateRequestDto.class);
+    }
+
+    static RestaurantImportReader of(RestaurantImportFormat format, InputStream input, ObjectMapper objectMapper) {
+        return switch (format) {
+            case NDJSON -> new Ndjson(input, objectMapper);
+            case CSV -> new Csv(input, objectMapper);
+        };
+    }
+
+    /**
+     * The next row, or {@code null} at the end of the input.
+     */
+    abstract Row next() throws IOException;
+
+    @Override
+    public void close() throws IOException {
+        input.close();
+    }
+
+    /**
+     * A parsed row, or the reason it could not be parsed; {@code number} counts data rows from 1.
+     */
+    record Row(long number, RestaurantCreateUpdateRequestDto restaurant, String error) {
+    }
+
+    private static final class Ndjson extends RestaurantImportReader {
+
+        private long number;
+
+        private Ndjson(InputStream input, ObjectMapper objectMapper) {
+            super(input, objectMapper);
+        }
+
+        @Override
+        Row next() throws IOException {
+            String line;
+            do {
+                line = input.readLine();
+                if (line == null) {
+                    return null;
+                }
+                number++;
+            } while (line.isBlank());
+
+            try {
+                return new Row(number, requestReader.readValue(line), null);
+            } catch (JsonProcessingException e) {
+                return new Row(number, null, "Malformed JSON: " + e.getOriginalMessage());
+            }
+        }
+    }
+
+    private static final class Csv extends RestaurantImportReader {
+
+        private static final String PHOTO_IDS = "photoIds";
+        // An unterminated quote would otherwise read the rest of the body into a single field.
+        private static final int MAX_RECORD_CHARS = 1 << 20;
+
+        private String[][] header;
+        private long number;
+
+        private Csv(InputStream input, ObjectMapper objectMapper) {
+            super(input, objectMapper);
+        }
+
+        @Override
+        Row next() throws IOException {
+            if (header == null) {
+                List<String> names = readRecord();
+                if (names == null) {
+                    return null;
+                }
+                header = names.stream().map(name -> name.strip().split("\\.")).toArray(String[][]::new);
+            }
+
+            List<String> values;
+            do {
+                values = readRecord();
+                if (values == null) {
+                    return null;
+                }
+                number++;
+            } while (values.size() == 1 && values.get(0).isBlank());
+
+            if (values.size() != header.length) {
+                return new Row(number, null, "Expected " + header.length + " columns, found " + values.size());
+            }
+            try {
+                return new Row(number, objectMapper.convertValue(toTree(values), RestaurantCreateUpdateRequestDto.class), null);
+            } catch (IllegalArgumentException e) {
+                return new Row(number, null, "Invalid row: " + e.getMessage());
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private Map<String, Object> toTree(List<String> values) {
+            Map<String, Object> tree = new LinkedHashMap<>();
+            for (int column = 0; column < header.length; column++) {
+                String value = values.get(column);
+                if (value.isEmpty()) {
+                    continue;
+                }
+                String[] path = header[column];
+                Map<String, Object> node = tree;
+                for (int i = 0; i < path.length - 1; i++) {
+                    node = (Map<String, Object>) node.computeIfAbsent(path[i], key -> new LinkedHashMap<String, Object>());
+                }
+                String field = path[path.length - 1];
+                node.put(field, path.length == 1 && field.equals(PHOTO_IDS) ? Arrays.asList(value.split("\\|")) : value);
+            }
+            return tree;
+        }
+
+        /**
+         * One RFC 4180 record: comma-separated, fields optionally double-quoted, quoted fields may contain
+         * commas, line breaks and doubled quotes. {@code null} at the end of the input. A record longer than
+         * {@value #MAX_RECORD_CHARS} characters ends the import with an {@link IOException}: past it there is no
+         * telling where the next record starts.
+         */
+        private List<String> readRecord() throws IOException {
+            int c = input.read();
+            if (c == -1) {
+                return null;
+            }
+
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            int length = 0;
+            while (c != -1) {
+                if (++length > MAX_RECORD_CHARS) {
+                    throw new IOException("CSV record longer than " + MAX_RECORD_CHARS
+                            + " characters" + (quoted ? ", probably an unterminated quote" : ""));
+                }
+                if (quoted) {
+                    if (c == '"') {
+                        input.mark(1);
+                        if (input.read() == '"') {
+                            field.append('"');
+                        } else {
+                            input.reset();
+                            quoted = false;
+                        }
+                    } else {
+                        field.append((char) c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n') {
+                    break;
+                } else if (c != '\r') {
+                    field.append((char) c);
+                }
+                c = input.read();
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package com.restaurant.services.impl;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._helpers.bulk.BulkIngester;
+import co.elastic.clients.elasticsearch._helpers.bulk.BulkListener;
+import co.elastic.clients.elasticsearch.core.BulkRequest;
+import co.elastic.clients.elasticsearch.core.BulkResponse;
+import co.elastic.clients.elasticsearch.core.bulk.BulkResponseItem;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.restaurant.domain.GeoLocation;
+import com.restaurant.domain.RestaurantCreateUpdateRequest;
+import com.restaurant.domain.RestaurantImportFormat;
+import com.restaurant.domain.dtos.RestaurantCreateUpdateRequestDto;
+import com.restaurant.domain.dtos.RestaurantImportReport;
+import com.restaurant.domain.entities.Photo;
+import com.restaurant.domain.entities.Restaurant;
+import com.restaurant.domain.events.RestaurantsChangedEvent;
+import com.restaurant.mappers.RestaurantMapper;
+import com.restaurant.services.GeoLocationService;
+import com.restaurant.services.RestaurantImportService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.document.Document;
+import org.springframework.data.elasticsearch.core.geo.GeoPoint;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Streams an import into the restaurants index through a {@link BulkIngester}.
+ * <p>
+ * The request thread parses rows and hands each one to a virtual thread that validates it, geolocates it and
+ * adds it to the ingester. At most {@code app.import.max-rows-in-flight} rows are between parsing and the
+ * ingester, and the ingester blocks {@code add} while {@code app.import.bulk.max-concurrent-requests} bulk
+ * requests are outstanding, so a slow geolocation service or a busy cluster slows down reading the body
+ * instead of filling the heap. A bulk request is sent at {@code max-operations} rows, {@code max-size} bytes
+ * or {@code flush-interval}, whichever comes first, without a refresh.
+ */
+@Service
+@Slf4j
+public class RestaurantImportServiceImpl implements RestaurantImportService {
+
+    private final ElasticsearchClient elasticsearchClient;
+    private final ElasticsearchOperations elasticsearchOperations;
+    private final GeoLocationService geoLocationService;
+    private final RestaurantMapper restaurantMapper;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Counter importedRows;
+    private final Counter failedRows;
+    private final int maxOperations;
+    private final DataSize maxSize;
+    private final Duration flushInterval;
+    private final int maxConcurrentRequests;
+    private final int maxRowsInFlight;
+    private final int maxReportedFailures;
+
+    public RestaurantImportServiceImpl(ElasticsearchClient elasticsearchClient,
+                                       ElasticsearchOperations elasticsearchOperations,
+                                       GeoLocationService geoLocationService,
+                                       RestaurantMapper restaurantMapper,
+                                       Validator validator,
+                                       ObjectMapper objectMapper,
+                                       ApplicationEventPublisher eventPublisher,
+                                       MeterRegistry meterRegistry,
+                                       @Value("${app.import.bulk.max-operations:1000}") int maxOperations,
+                                       @Value("${app.import.bulk.max-size:5MB}") DataSize maxSize,
+                                       @Value("${app.import.bulk.flush-interval:1s}") Duration flushInterval,
+                                       @Value("${app.import.bulk.max-concurrent-requests:4}") int maxConcurrentRequests,
+                                       @Value("${app.import.max-rows-in-flight:256}") int maxRowsInFlight,
+                                       @Value("${app.import.max-reported-failures:1000}") int maxReportedFailures) {
+        this.elasticsearchClient = elasticsearchClient;
+        this.elasticsearchOperations = elasticsearchOperations;
+        this.geoLocationService = geoLocationService;
+        this.restaurantMapper = restaurantMapper;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.importedRows = meterRegistry.counter("restaurant.import.rows", "outcome", "imported");
+        this.failedRows = meterRegistry.counter("restaurant.import.rows", "outcome", "failed");
+        this.maxOperations = maxOperations;
+        this.maxSize = maxSize;
+        this.flushInterval = flushInterval;
+        this.maxConcurrentRequests = maxConcurrentRequests;
+        this.maxRowsInFlight = maxRowsInFlight;
+        this.maxReportedFailures = maxReportedFailures;
+    }
+
+    @Override
+    public RestaurantImportReport importRestaurants(InputStream input, RestaurantImportFormat format) {
+        long started = System.nanoTime();
+        Progress progress = new Progress();
+        String index = elasticsearchOperations.getIndexCoordinatesFor(Restaurant.class).getIndexName();
+        Semaphore rowsInFlight = new Semaphore(maxRowsInFlight);
+
+        // Closed in reverse order: the reader, then the workers (waiting for every row), then the ingester
+        // (flushing and waiting for every bulk response), so the report below is complete.
+        try (BulkIngester<Long> ingester = newIngester(progress);
+             ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor();
+             RestaurantImportReader reader = RestaurantImportReader.of(format, input, objectMapper)) {
+
+            RestaurantImportReader.Row row;
+            while ((row = reader.next()) != null) {
+                progress.rows.increment();
+                if (row.error() != null) {
+                    progress.fail(row.number(), row.error());
+                    continue;
+                }
+                rowsInFlight.acquire();
+                RestaurantImportReader.Row parsed = row;
+                workers.execute(() -> {
+                    try {
+                        add(parsed, index, ingester, progress);
+                    } catch (RuntimeException e) {
+                        // Anything add does not report itself (mapping, conversion, the ingester) still fails the row.
+                        log.warn("Import row {} failed", parsed.number(), e);
+                        progress.fail(parsed.number(), "Row could not be imported: " + e.getMessage());
+                    } finally {
+                        rowsInFlight.release();
+                    }
+                });
+            }
+        } catch (IOException e) {
+            progress.fail(progress.rows.sum() + 1, "Input could not be read: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            progress.fail(progress.rows.sum() + 1, "Import interrupted");
+        }
+
+        RestaurantImportReport report = progress.report(System.nanoTime() - started);
+        log.info("Imported {} of {} restaurants in {} ms ({} rows/s, {} failed)", report.getImported(),
+                report.getRows(), report.getDurationMillis(), Math.round(report.getRowsPerSecond()), report.getFailed());
+        return report;
+    }
+
+    private BulkIngester<Long> newIngester(Progress progress) {
+        return BulkIngester.of(b -> b
+                .client(elasticsearchClient)
+                .maxOperations(maxOperations)
+                .maxSize(maxSize.toBytes())
+                .maxConcurrentRequests(maxConcurrentRequests)
+                .flushInterval(flushInterval.toMillis(), TimeUnit.MILLISECONDS)
+                .listener(new ImportListener(progress)));
+    }
+
+    private void add(RestaurantImportReader.Row row, String index, BulkIngester<Long> ingester, Progress progress) {
+        Set<ConstraintViolation<RestaurantCreateUpdateRequestDto>> violations = validator.validate(row.restaurant());
+        if (!violations.isEmpty()) {
+            progress.fail(row.number(), violations.stream()
+                    .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", ")));
+            return;
+        }
+
+        RestaurantCreateUpdateRequest request = restaurantMapper.toRestaurantCreateUpdateRequest(row.restaurant());
+        GeoLocation geoLocation;
+        try {
+            geoLocation = geoLocationService.geoLocate(request.getAddress());
+        } catch (RuntimeException e) {
+            progress.fail(row.number(), "Geolocation failed: " + e.getMessage());
+            return;
+        }
+
+        Restaurant restaurant = RestaurantServiceImpl.createRestaurant(
+                request,
+                new GeoPoint(geoLocation.getLatitude(), geoLocation.getLongitude()),
+                Photo.buildPhotos(request.getPhotoIds())
+        );
+        // Mapped like a repository save, so imported documents are indistinguishable from created ones.
+        Document document = elasticsearchOperations.getElasticsearchConverter().mapObject(restaurant);
+        ingester.add(op -> op.index(i -> i.index(index).document(document)), row.number());
+    }
+
+    private final class ImportListener implements BulkListener<Long> {
+
+        private final Progress progress;
+
+        private ImportListener(Progress progress) {
+            this.progress = progress;
+        }
+
+        @Override
+        public void beforeBulk(long executionId, BulkRequest request, List<Long> rows) {
+        }
+
+        @Override
+        public void afterBulk(long executionId, BulkRequest request, List<Long> rows, BulkResponse response) {
+            List<String> imported = new ArrayList<>(response.items().size());
+            for (int i = 0; i < response.items().size(); i++) {
+                BulkResponseItem item = response.items().get(i);
+                if (item.error() != null) {
+                    progress.fail(rows.get(i), item.error().reason());
+                } else {
+                    progress.imported.increment();
+                    importedRows.increment();
+                    imported.add(item.id());
+                }
+            }
+            // One event per bulk response: each one clears the search cache and refreshes the facets.
+            if (!imported.isEmpty()) {
+                eventPublisher.publishEvent(new RestaurantsChangedEvent(imported));
+            }
+        }
+
+        @Override
+        public void afterBulk(long executionId, BulkRequest request, List<Long> rows, Throwable failure) {
+            log.warn("Import bulk request {} with {} rows failed", executionId, rows.size(), failure);
+            rows.forEach(row -> progress.fail(row, "Bulk request failed: " + failure.getMessage()));
+        }
+    }
+
+    private final class Progress {
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder imported = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final List<RestaurantImportReport.RowFailure> failures = new ArrayList<>();
+
+        private void fail(long row, String reason) {
+            failed.increment();
+            failedRows.increment();
+            synchronized (failures) {
+                if (failures.size() < maxReportedFailures) {
+                    failures.add(new RestaurantImportReport.RowFailure(row, reason));
+                }
+            }
+        }
+
+        private RestaurantImportReport report(long elapsedNanos) {
+            long durationMillis = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+            List<RestaurantImportReport.RowFailure> reported;
+            synchronized (failures) {
+                reported = failures.stream()
+                        .sorted(Comparator.comparingLong(RestaurantImportReport.RowFailure::getRow))
+                        .toList();
+            }
+            return RestaurantImportReport.builder()
+                    .rows(rows.sum())
+                    .imported(imported.sum())
+                    .failed(failed.sum())
+                    .durationMillis(durationMillis)
+                    .rowsPerSecond(elapsedNanos == 0 ? 0 : rows.sum() * 1e9 / elapsedNanos)
+                    .failures(reported)
+                    .build();
+        }
+    }
+}
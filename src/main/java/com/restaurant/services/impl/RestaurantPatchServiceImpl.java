@@ -0,0 +1,236 @@
+package com.restaurant.services.impl;
+
+import co.elastic.clients.elasticsearch.core.GetResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.restaurant.domain.GeoLocation;
+import com.restaurant.domain.OpeningIntervals;
+import com.restaurant.domain.RestaurantCreateUpdateRequest;
+import com.restaurant.domain.dtos.RestaurantCreateUpdateRequestDto;
+import com.restaurant.domain.entities.Address;
+import com.restaurant.domain.entities.Photo;
+import com.restaurant.domain.entities.Restaurant;
+import com.restaurant.domain.events.RestaurantChangedEvent;
+import com.restaurant.exceptions.InvalidPatchException;
+import com.restaurant.exceptions.RestaurantNotFoundException;
+import com.restaurant.services.GeoLocationService;
+import com.restaurant.services.RestaurantPatchService;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.elasticsearch.client.elc.ElasticsearchTemplate;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.document.Document;
+import org.springframework.data.elasticsearch.core.geo.GeoPoint;
+import org.springframework.data.elasticsearch.core.query.SeqNoPrimaryTerm;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Turns a merge patch into one scripted partial update. Plain fields are written blind, without reading the
+ * restaurant. A patch to the name, address or operating hours first reads just the source fields needed to
+ * merge it and to recompute the suggest inputs, geolocation and opening intervals, and guards the write with
+ * that read's {@code _seq_no}/{@code _primary_term}.
+ */
+@Service
+@RequiredArgsConstructor
+public class RestaurantPatchServiceImpl implements RestaurantPatchService {
+
+    private final ElasticsearchTemplate elasticsearchTemplate;
+    private final ElasticsearchOperations elasticsearchOperations;
+    private final RestaurantFieldWriter restaurantFieldWriter;
+    private final GeoLocationService geoLocationService;
+    private final OptimisticRetry optimisticRetry;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Override
+    public void patchRestaurant(String id, ObjectNode patch) {
+        validate(RestaurantCreateUpdateRequestDto.class, patch, "");
+        if (patch.isEmpty()) {
+            return;
+        }
+
+        Set<String> reads = new LinkedHashSet<>();
+        if (patch.has("name") || patch.has("address")) {
+            // Both feed the suggest inputs, and the geolocation compares the merged address with the old one.
+            reads.add("name");
+            reads.add("address");
+        }
+        if (isMerged(patch, "operatingHours")) {
+            reads.add("operatingHours");
+        }
+
+        if (reads.isEmpty()) {
+            update(id, partialUpdate(patch, null), null);
+        } else {
+            optimisticRetry.run("restaurant.patch", () -> {
+                CurrentFields current = read(id, reads);
+                update(id, partialUpdate(patch, current.source()), current);
+            });
+        }
+        eventPublisher.publishEvent(new RestaurantChangedEvent(id));
+    }
+
+    private PartialUpdate partialUpdate(ObjectNode patch, ObjectNode current) {
+        ObjectNode merged = patch.deepCopy();
+        for (String field : List.of("address", "operatingHours")) {
+            if (isMerged(patch, field)) {
+                merged.set(field, mergePatch(current.get(field), patch.get(field)));
+            }
+        }
+        RestaurantCreateUpdateRequest values = convert(merged, RestaurantCreateUpdateRequest.class);
+        Address oldAddress = current != null && current.hasNonNull("address")
+                ? convert(current.get("address"), Address.class)
+                : null;
+
+        Restaurant partial = Restaurant.builder()
+                .name(values.getName())
+                .cuisineType(values.getCuisineType())
+                .contactInformation(values.getContactInformation())
+                .website(values.getWebsite())
+                .priceRange(values.getPriceRange())
+                .address(values.getAddress())
+                .operatingHours(values.getOperatingHours())
+                .lastModified(Instant.now())
+                .build();
+        List<String> removed = new ArrayList<>();
+
+        if (patch.has("photoIds")) {
+            if (values.getPhotoIds() == null) {
+                removed.add("photos");
+            } else {
+                partial.setPhotos(Photo.buildPhotos(values.getPhotoIds()));
+            }
+        }
+        if (patch.has("operatingHours")) {
+            if (values.getOperatingHours() == null) {
+                removed.add("operatingHours");
+            }
+            partial.setOpenIntervals(OpeningIntervals.of(values.getOperatingHours()));
+        }
+        if (patch.has("address")) {
+            if (values.getAddress() == null) {
+                // The geolocation was derived from the address, so it goes with it.
+                removed.add("address");
+                removed.add("geoLocation");
+            } else if (!values.getAddress().equals(oldAddress)) {
+                GeoLocation geoLocation = geoLocationService.geoLocate(values.getAddress());
+                partial.setGeoLocation(new GeoPoint(geoLocation.getLatitude(), geoLocation.getLongitude()));
+            }
+        }
+        if (patch.has("name") || patch.has("address")) {
+            String name = patch.has("name") ? values.getName() : current.path("name").asText(null);
+            Address address = patch.has("address") ? values.getAddress() : oldAddress;
+            partial.setSuggest(RestaurantServiceImpl.suggestInputs(name, address));
+        }
+
+        Document doc = elasticsearchOperations.getElasticsearchConverter().mapObject(partial);
+        return new PartialUpdate(doc, removed);
+    }
+
+    private CurrentFields read(String id, Set<String> fields) {
+        String index = elasticsearchOperations.getIndexCoordinatesFor(Restaurant.class).getIndexName();
+        GetResponse<ObjectNode> response = elasticsearchTemplate.execute(client -> client.get(g -> g
+                        .index(index)
+                        .id(id)
+                        .sourceIncludes(List.copyOf(fields)),
+                ObjectNode.class));
+        if (!response.found()) {
+            throw new RestaurantNotFoundException("Restaurant with ID does not exist: " + id);
+        }
+        ObjectNode source = response.source() == null ? JsonNodeFactory.instance.objectNode() : response.source();
+        return new CurrentFields(source, new SeqNoPrimaryTerm(response.seqNo(), response.primaryTerm()));
+    }
+
+    private void update(String id, PartialUpdate partialUpdate, CurrentFields basedOn) {
+        restaurantFieldWriter.write(id, partialUpdate.doc(), partialUpdate.removed(),
+                basedOn == null ? null : basedOn.version());
+    }
+
+    /**
+     * Checks every member the patch sets against the constraints of the same field of {@code dtoType},
+     * descending into the objects it merges. A {@code null} member is checked as the field being removed.
+     */
+    private void validate(Class<?> dtoType, ObjectNode patch, String path) {
+        List<String> errors = new ArrayList<>();
+        patch.fields().forEachRemaining(member -> {
+            String field = member.getKey();
+            JsonNode value = member.getValue();
+            Class<?> fieldType;
+            try {
+                fieldType = dtoType.getDeclaredField(field).getType();
+            } catch (NoSuchFieldException e) {
+                errors.add(path + field + ": unknown field");
+                return;
+            }
+
+            if (value.isObject() && fieldType.getPackage() == dtoType.getPackage()) {
+                validate(fieldType, (ObjectNode) value, path + field + ".");
+                return;
+            }
+            Object converted;
+            try {
+                converted = value.isNull() ? null : objectMapper.treeToValue(value, fieldType);
+            } catch (JsonProcessingException e) {
+                errors.add(path + field + ": invalid value");
+                return;
+            }
+            validator.validateValue(dtoType, field, converted).stream()
+                    .map(ConstraintViolation::getMessage)
+                    .forEach(message -> errors.add(path + field + ": " + message));
+        });
+        if (!errors.isEmpty()) {
+            throw new InvalidPatchException(String.join(", ", errors));
+        }
+    }
+
+    private static boolean isMerged(ObjectNode patch, String field) {
+        return patch.path(field).isObject();
+    }
+
+    /**
+     * RFC 7396 section 2: {@code patch} applied to {@code target}, which is left unchanged.
+     */
+    static JsonNode mergePatch(JsonNode target, JsonNode patch) {
+        if (!patch.isObject()) {
+            return patch;
+        }
+        ObjectNode result = target != null && target.isObject()
+                ? ((ObjectNode) target).deepCopy()
+                : JsonNodeFactory.instance.objectNode();
+        patch.fields().forEachRemaining(member -> {
+            if (member.getValue().isNull()) {
+                result.remove(member.getKey());
+            } else {
+                result.set(member.getKey(), mergePatch(result.get(member.getKey()), member.getValue()));
+            }
+        });
+        return result;
+    }
+
+    private <T> T convert(JsonNode node, Class<T> type) {
+        try {
+            return objectMapper.treeToValue(node, type);
+        } catch (JsonProcessingException e) {
+            throw new InvalidPatchException("Invalid patch: " + e.getOriginalMessage());
+        }
+    }
+
+    private record CurrentFields(ObjectNode source, SeqNoPrimaryTerm version) {
+    }
+
+    private record PartialUpdate(Map<String, Object> doc, List<String> removed) {
+    }
+}
@@ -0,0 +1,82 @@
+package com.restaurant.services.impl;
+
+import org.springframework.data.elasticsearch.core.query.ScriptType;
+import org.springframework.data.elasticsearch.core.query.UpdateQuery;
+
+import java.util.Map;
+
+/**
+ * Painless scripts that keep {@code ratingSum}, {@code ratingCount} and the derived {@code averageRating}
+ * of a restaurant up to date in place, without reading the restaurant document into the application.
+ */
+public final class RestaurantRatingUpdates {
+
+    /**
+     * Seeds the rating counters of documents written before they existed, either from reviews still
+     * embedded in the document or from the previously stored average and review count.
+     */
+    public static final String SEED_COUNTERS_SCRIPT = """
+            if (ctx._source.ratingSum == null) {
+                long sum = 0;
+                int count = 0;
+                if (ctx._source.reviews != null) {
+                    for (def review : ctx._source.reviews) {
+                        if (review.rating != null) {
+                            sum += review.rating;
+                            count++;
+                        }
+                    }
+                } else if (ctx._source.reviewCount != null && ctx._source.averageRating != null) {
+                    count = ctx._source.reviewCount;
+                    sum = Math.round(ctx._source.averageRating * count);
+                }
+                ctx._source.ratingSum = sum;
+                ctx._source.ratingCount = count;
+            }
+            ctx._source.remove('reviewCount');
+            """;
+
+    public static final String ADJUST_RATING_SCRIPT = SEED_COUNTERS_SCRIPT + """
+            ctx._source.ratingSum += params.sumDelta;
+            ctx._source.ratingCount += params.countDelta;
+            if (ctx._source.ratingCount <= 0) {
+                ctx._source.ratingSum = 0;
+                ctx._source.ratingCount = 0;
+            }
+            ctx._source.averageRating = ctx._source.ratingCount == 0
+                    ? 0.0
+                    : (double) ctx._source.ratingSum / ctx._source.ratingCount;
+            ctx._source.lastModified = params.lastModified;
+            """;
+
+    private static final int RETRY_ON_CONFLICT = 5;
+
+    private RestaurantRatingUpdates() {
+    }
+
+    public static UpdateQuery adjustRating(String restaurantId, long sumDelta, int countDelta) {
+        return UpdateQuery.builder(restaurantId)
+                .withScript(ADJUST_RATING_SCRIPT)
+                .withScriptType(ScriptType.INLINE)
+                .withLang("painless")
+                .withParams(Map.of(
+                        "sumDelta", sumDelta,
+                        "countDelta", countDelta,
+                        "lastModified", System.currentTimeMillis()
+                ))
+                .withRetryOnConflict(RETRY_ON_CONFLICT)
+                .build();
+    }
+
+    public static UpdateQuery reviewAdded(String restaurantId, int rating) {
+        return adjustRating(restaurantId, rating, 1);
+    }
+
+    public static UpdateQuery reviewEdited(String restaurantId, int previousRating, int newRating) {
+        return adjustRating(restaurantId, newRating - previousRating, 0);
+    }
+
+    public static UpdateQuery reviewRemoved(String restaurantId, int rating) {
+        return adjustRating(restaurantId, -rating, -1);
+    }
+}
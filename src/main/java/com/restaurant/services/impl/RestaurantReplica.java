@@ -0,0 +1,23 @@
+package com.restaurant.services.impl;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * An in-process copy of some restaurant fields, kept current by {@link RestaurantReplicaFeed}. The feed calls
+ * both methods from a single thread, so implementations only have to make their state safe to read concurrently.
+ */
+interface RestaurantReplica {
+
+    boolean isEnabled();
+
+    /**
+     * Replaces the whole replica with a full read of the index.
+     */
+    void replaceAll(List<ReplicatedRestaurant> restaurants);
+
+    /**
+     * Applies restaurants re-read after a write, and the ids of restaurants found deleted.
+     */
+    void apply(List<ReplicatedRestaurant> changed, Collection<String> removedIds);
+}
@@ -0,0 +1,364 @@
+package com.restaurant.services.impl;
+
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import com.restaurant.domain.entities.Restaurant;
+import com.restaurant.domain.events.RestaurantChangedEvent;
+import com.restaurant.domain.events.RestaurantsChangedEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.MultiGetItem;
+import org.springframework.data.elasticsearch.core.SearchHitsIterator;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.data.elasticsearch.core.query.FetchSourceFilterBuilder;
+import org.springframework.data.elasticsearch.core.query.SourceFilter;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps every enabled {@link RestaurantReplica} in step with the index. Once the application is ready it
+ * streams all restaurants into the replicas. Afterwards, every {@code app.replica.sync-interval}, it polls the
+ * index for restaurants whose {@code lastModified} moved since the previous poll (less
+ * {@code app.replica.snapshot.clock-skew}, which covers clocks across instances and writes stamped before the
+ * poll but indexed after it) and re-reads those, together with the ids local writes marked dirty, in
+ * multi-gets of at most {@value #BATCH_SIZE} ids. The poll sees writes from other instances and from the
+ * migrations; the dirty ids make local writes visible without waiting for a refresh. Every
+ * {@code app.replica.full-scan-interval} the poll covers every restaurant instead, which also finds the ones
+ * deleted by other instances.
+ * <p>
+ * Every load and sync is also recorded in the {@link ReplicaSnapshotFile}. On a restart the replicas are
+ * filled from that snapshot straight away, then reconciled: a scan of every id and {@code lastModified}
+ * finds the restaurants deleted, created or modified since the snapshot's watermark, and only those are
+ * re-read.
+ * <p>
+ * The load and every sync run on one thread, so a restaurant marked dirty during the load is re-read after
+ * it and no read is ever applied after a later one. A failed load is retried on the next tick.
+ */
+@Component
+@Slf4j
+public class RestaurantReplicaFeed {
+
+    private static final int BATCH_SIZE = 1000;
+    private static final SourceFilter SOURCE_FILTER = new FetchSourceFilterBuilder()
+            .withIncludes(ReplicatedRestaurant.SOURCE_FIELDS)
+            .build();
+    private static final SourceFilter RECONCILE_SOURCE_FILTER = new FetchSourceFilterBuilder()
+            .withIncludes(ReplicatedRestaurant.RECONCILE_FIELDS)
+            .build();
+
+    private final ElasticsearchOperations elasticsearchOperations;
+    private final List<RestaurantReplica> replicas;
+    private final ReplicaSnapshotFile snapshotFile;
+    private final Duration syncInterval;
+    private final Duration clockSkew;
+    private final Duration fullScanInterval;
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService sync = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofVirtual().name("restaurant-replica-sync").factory());
+    // The lastModified of every replicated restaurant as last read, so a poll only re-reads what moved.
+    private final Map<String, Long> versions = new HashMap<>();
+    private long pollWatermark;
+    // Only moves with a successful poll whose reads all succeeded: dirty ids are not in the snapshot, so a
+    // restart has to find everything after it again by lastModified.
+    private long snapshotWatermark;
+    private long lastFullScan;
+    private boolean loaded;
+    private boolean restoreAttempted;
+
+    public RestaurantReplicaFeed(ElasticsearchOperations elasticsearchOperations,
+                                 List<RestaurantReplica> replicas,
+                                 ReplicaSnapshotFile snapshotFile,
+                                 @Value("${app.replica.sync-interval:500ms}") Duration syncInterval,
+                                 @Value("${app.replica.snapshot.clock-skew:1m}") Duration clockSkew,
+                                 @Value("${app.replica.full-scan-interval:10m}") Duration fullScanInterval) {
+        this.elasticsearchOperations = elasticsearchOperations;
+        this.replicas = replicas.stream().filter(RestaurantReplica::isEnabled).toList();
+        this.snapshotFile = snapshotFile;
+        this.syncInterval = syncInterval;
+        this.clockSkew = clockSkew;
+        this.fullScanInterval = fullScanInterval;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!replicas.isEmpty()) {
+            sync.scheduleWithFixedDelay(this::tick, 0, syncInterval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @EventListener
+    public void onRestaurantChanged(RestaurantChangedEvent event) {
+        if (!replicas.isEmpty()) {
+            dirty.add(event.restaurantId());
+        }
+    }
+
+    @EventListener
+    public void onRestaurantsChanged(RestaurantsChangedEvent event) {
+        if (!replicas.isEmpty()) {
+            dirty.addAll(event.restaurantIds());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sync.shutdownNow();
+        try {
+            // The snapshot is only touched from the sync thread; let a batch in progress finish its commit.
+            sync.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        snapshotFile.close();
+    }
+
+    private void tick() {
+        if (!loaded) {
+            // Everything marked so far is covered by the full read.
+            dirty.clear();
+            loaded = restore() || load();
+        } else {
+            sync();
+        }
+    }
+
+    private boolean load() {
+        NativeQuery query = NativeQuery.builder()
+                .withQuery(q -> q.matchAll(m -> m))
+                .withSourceFilter(SOURCE_FILTER)
+                .withPageable(PageRequest.of(0, BATCH_SIZE))
+                .build();
+
+        long started = System.nanoTime();
+        long watermark = System.currentTimeMillis();
+        List<ReplicatedRestaurant> restaurants = new ArrayList<>();
+        try (SearchHitsIterator<ReplicatedRestaurant> hits = elasticsearchOperations.searchForStream(
+                query, ReplicatedRestaurant.class, restaurantsIndex())) {
+            hits.forEachRemaining(hit -> restaurants.add(hit.getContent()));
+        } catch (RuntimeException e) {
+            log.error("Restaurant replica load failed; retrying in {}", syncInterval, e);
+            return false;
+        }
+
+        replicas.forEach(replica -> replica.replaceAll(restaurants));
+        versions.clear();
+        restaurants.forEach(restaurant -> versions.put(restaurant.getId(), restaurant.getLastModified()));
+        pollWatermark = watermark;
+        snapshotWatermark = watermark;
+        lastFullScan = watermark;
+        log.info("Restaurant replicas loaded {} restaurants in {} ms",
+                restaurants.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        snapshotFile.rewrite(restaurants, watermark);
+        return true;
+    }
+
+    /**
+     * Fills the replicas from the snapshot file and reconciles them with the index; false if there is no
+     * snapshot or the reconciliation failed, in which case the replicas are fully reloaded. Only tried once.
+     */
+    private boolean restore() {
+        if (restoreAttempted) {
+            return false;
+        }
+        restoreAttempted = true;
+        Optional<ReplicaSnapshotFile.Snapshot> snapshot = snapshotFile.read();
+        if (snapshot.isEmpty()) {
+            return false;
+        }
+
+        long started = System.nanoTime();
+        Map<String, ReplicatedRestaurant> restaurants = new LinkedHashMap<>();
+        snapshot.get().restaurants().forEach(restaurant -> restaurants.put(restaurant.getId(), restaurant));
+        replicas.forEach(replica -> replica.replaceAll(snapshot.get().restaurants()));
+        log.info("Restaurant replicas restored {} restaurants from snapshot in {} ms",
+                restaurants.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+
+        NativeQuery query = NativeQuery.builder()
+                .withQuery(q -> q.matchAll(m -> m))
+                .withSourceFilter(RECONCILE_SOURCE_FILTER)
+                .withPageable(PageRequest.of(0, BATCH_SIZE))
+                .build();
+
+        long watermark = System.currentTimeMillis();
+        long changedSince = snapshot.get().watermark() - clockSkew.toMillis();
+        List<String> stale = new ArrayList<>();
+        Set<String> removed = new HashSet<>(restaurants.keySet());
+        try (SearchHitsIterator<ReplicatedRestaurant> hits = elasticsearchOperations.searchForStream(
+                query, ReplicatedRestaurant.class, restaurantsIndex())) {
+            hits.forEachRemaining(hit -> {
+                String id = hit.getId();
+                Long lastModified = hit.getContent().getLastModified();
+                removed.remove(id);
+                versions.put(id, lastModified);
+                if (!restaurants.containsKey(id) || lastModified == null || lastModified >= changedSince) {
+                    stale.add(id);
+                }
+            });
+        } catch (RuntimeException e) {
+            log.error("Restaurant replica snapshot reconciliation failed; reloading", e);
+            return false;
+        }
+
+        List<ReplicatedRestaurant> changed = new ArrayList<>();
+        for (int from = 0; from < stale.size(); from += BATCH_SIZE) {
+            List<String> ids = stale.subList(from, Math.min(from + BATCH_SIZE, stale.size()));
+            Batch batch;
+            try {
+                batch = read(ids);
+            } catch (RuntimeException e) {
+                log.error("Restaurant replica snapshot reconciliation failed; reloading", e);
+                return false;
+            }
+            changed.addAll(batch.changed());
+            removed.addAll(batch.removed());
+            // Failed reads are retried by the regular sync.
+            dirty.addAll(batch.failed());
+        }
+
+        replicas.forEach(replica -> replica.apply(changed, removed));
+        changed.forEach(restaurant -> restaurants.put(restaurant.getId(), restaurant));
+        removed.forEach(restaurants::remove);
+        recordVersions(changed, removed);
+        pollWatermark = watermark;
+        snapshotWatermark = watermark;
+        lastFullScan = watermark;
+        log.info("Restaurant replicas reconciled {} changed and {} removed restaurants in {} ms",
+                changed.size(), removed.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        snapshotFile.rewrite(restaurants.values(), watermark);
+        return true;
+    }
+
+    private void sync() {
+        long started = System.currentTimeMillis();
+        Set<String> stale = new LinkedHashSet<>(dirty);
+        dirty.removeAll(stale);
+        boolean polled = poll(started, stale);
+        if (polled) {
+            pollWatermark = started;
+        }
+
+        List<String> ids = new ArrayList<>(stale);
+        Batch batch = new Batch(new ArrayList<>(), new ArrayList<>(), new ArrayList<>());
+        // A burst of writes (an import, a migration) can dirty any number of ids; keep each multi-get bounded.
+        for (int from = 0; from < ids.size(); from += BATCH_SIZE) {
+            List<String> chunk = ids.subList(from, Math.min(from + BATCH_SIZE, ids.size()));
+            try {
+                Batch read = read(chunk);
+                batch.changed().addAll(read.changed());
+                batch.removed().addAll(read.removed());
+                batch.failed().addAll(read.failed());
+            } catch (RuntimeException e) {
+                log.warn("Restaurant replica sync failed; retrying {} restaurants", chunk.size(), e);
+                batch.failed().addAll(chunk);
+            }
+        }
+        dirty.addAll(batch.failed());
+        if (polled && batch.failed().isEmpty()) {
+            snapshotWatermark = started;
+        }
+        if (batch.changed().isEmpty() && batch.removed().isEmpty()) {
+            return;
+        }
+
+        replicas.forEach(replica -> replica.apply(batch.changed(), batch.removed()));
+        recordVersions(batch.changed(), batch.removed());
+        snapshotFile.append(batch.changed(), batch.removed(), snapshotWatermark);
+    }
+
+    /**
+     * Adds to {@code stale} every restaurant whose {@code lastModified} differs from the one last read, among
+     * those modified since the previous poll, or among all restaurants when a full scan is due. False if the
+     * poll failed; it is then repeated from the same watermark on the next tick.
+     */
+    private boolean poll(long started, Set<String> stale) {
+        boolean fullScan = started - lastFullScan >= fullScanInterval.toMillis();
+        String changedSince = String.valueOf(pollWatermark - clockSkew.toMillis());
+        NativeQuery query = NativeQuery.builder()
+                .withQuery(fullScan
+                        ? Query.of(q -> q.matchAll(m -> m))
+                        : Query.of(q -> q.range(r -> r.date(d -> d
+                                .field("lastModified")
+                                .gte(changedSince)
+                                .format("epoch_millis")))))
+                .withSourceFilter(RECONCILE_SOURCE_FILTER)
+                .withPageable(PageRequest.of(0, BATCH_SIZE))
+                .build();
+
+        Set<String> unseen = fullScan ? new HashSet<>(versions.keySet()) : new HashSet<>();
+        try (SearchHitsIterator<ReplicatedRestaurant> hits = elasticsearchOperations.searchForStream(
+                query, ReplicatedRestaurant.class, restaurantsIndex())) {
+            hits.forEachRemaining(hit -> {
+                String id = hit.getId();
+                unseen.remove(id);
+                Long lastModified = hit.getContent().getLastModified();
+                if (!versions.containsKey(id) || !Objects.equals(versions.get(id), lastModified)) {
+                    stale.add(id);
+                }
+            });
+        } catch (RuntimeException e) {
+            log.warn("Restaurant replica poll failed; retrying on the next tick", e);
+            return false;
+        }
+        // Deleted, or written too recently to be searchable yet; the multi-get tells them apart.
+        stale.addAll(unseen);
+        if (fullScan) {
+            lastFullScan = started;
+        }
+        return true;
+    }
+
+    private void recordVersions(List<ReplicatedRestaurant> changed, Collection<String> removed) {
+        changed.forEach(restaurant -> versions.put(restaurant.getId(), restaurant.getLastModified()));
+        removed.forEach(versions::remove);
+    }
+
+    private Batch read(List<String> ids) {
+        NativeQuery query = NativeQuery.builder()
+                .withIds(ids)
+                .withSourceFilter(SOURCE_FILTER)
+                .build();
+        List<MultiGetItem<ReplicatedRestaurant>> items = elasticsearchOperations.multiGet(
+                query, ReplicatedRestaurant.class, restaurantsIndex());
+
+        Batch batch = new Batch(new ArrayList<>(), new ArrayList<>(), new ArrayList<>());
+        for (int i = 0; i < items.size(); i++) {
+            MultiGetItem<ReplicatedRestaurant> item = items.get(i);
+            if (item.hasItem()) {
+                batch.changed().add(item.getItem());
+            } else if (!item.isFailed()) {
+                batch.removed().add(ids.get(i));
+            } else {
+                batch.failed().add(ids.get(i));
+            }
+        }
+        return batch;
+    }
+
+    private IndexCoordinates restaurantsIndex() {
+        return elasticsearchOperations.getIndexCoordinatesFor(Restaurant.class);
+    }
+
+    private record Batch(List<ReplicatedRestaurant> changed, List<String> removed, List<String> failed) {
+    }
+}
@@ -0,0 +1,87 @@
+package com.restaurant.services.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.restaurant.domain.RestaurantSearchCriteria;
+import com.restaurant.domain.RestaurantSummary;
+import com.restaurant.domain.events.RestaurantChangedEvent;
+import com.restaurant.domain.events.RestaurantsChangedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Bounded in-process cache of {@code /api/restaurants/filter} result pages. Hit, miss and eviction counts
+ * are published as {@code cache.*} metrics tagged {@code cache=restaurant.search}.
+ * <p>
+ * Any restaurant write drops every entry: a change to one restaurant can move it in or out of arbitrary
+ * result pages. Because Elasticsearch only exposes writes after a refresh, searches that start within
+ * {@code refreshInterval} of the last write are served but not cached, so a stale page is never stored.
+ */
+@Component
+public class RestaurantSearchCache {
+
+    private final Cache<RestaurantSearchCacheKey, Page<RestaurantSummary>> cache;
+    private final long refreshIntervalNanos;
+    private final Duration openNowBucket;
+    private final RestaurantClock restaurantClock;
+    private volatile long lastWriteNanos;
+
+    public RestaurantSearchCache(MeterRegistry meterRegistry,
+                                 RestaurantClock restaurantClock,
+                                 @Value("${app.search-cache.max-size:1000}") long maxSize,
+                                 @Value("${app.search-cache.ttl:60s}") Duration ttl,
+                                 @Value("${app.search-cache.refresh-interval:1s}") Duration refreshInterval,
+                                 @Value("${app.search-cache.open-now-bucket:5m}") Duration openNowBucket) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.refreshIntervalNanos = refreshInterval.toNanos();
+        this.openNowBucket = openNowBucket;
+        this.restaurantClock = restaurantClock;
+        this.lastWriteNanos = System.nanoTime() - refreshIntervalNanos;
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "restaurant.search");
+    }
+
+    public RestaurantSearchCacheKey keyFor(RestaurantSearchCriteria criteria, PageRequest pageRequest) {
+        return RestaurantSearchCacheKey.of(criteria, pageRequest, restaurantClock.now(), openNowBucket);
+    }
+
+    public Page<RestaurantSummary> get(RestaurantSearchCacheKey key, Supplier<Page<RestaurantSummary>> search) {
+        Page<RestaurantSummary> cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        long started = System.nanoTime();
+        Page<RestaurantSummary> result = search.get();
+        if (started - lastWriteNanos > refreshIntervalNanos) {
+            cache.put(key, result);
+        }
+        return result;
+    }
+
+    @EventListener
+    public void onRestaurantChanged(RestaurantChangedEvent event) {
+        onWrite();
+    }
+
+    @EventListener
+    public void onRestaurantsChanged(RestaurantsChangedEvent event) {
+        onWrite();
+    }
+
+    private void onWrite() {
+        lastWriteNanos = System.nanoTime();
+        cache.invalidateAll();
+    }
+}
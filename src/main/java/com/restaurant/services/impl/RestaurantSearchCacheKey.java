@@ -0,0 +1,92 @@
+package com.restaurant.services.impl;
+
+import com.restaurant.domain.BoundingBox;
+import com.restaurant.domain.GeoLocation;
+import com.restaurant.domain.RestaurantSearchCriteria;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * Canonical form of a filter request, so that requests which would run the same search share one cache
+ * entry: list filters are de-duplicated and sorted, free text is trimmed, coordinates (including viewport
+ * corners) are rounded, {@code openAt}
+ * is truncated to the minute and {@code filterOpenNow} becomes an {@code openAt} at the start of the current
+ * time bucket instead of the current minute.
+ */
+public record RestaurantSearchCacheKey(RestaurantSearchCriteria criteria, PageRequest pageRequest) {
+
+    /**
+     * Three decimals is roughly 100 m, well below the granularity anyone filters or sorts by.
+     */
+    private static final double COORDINATE_SCALE = 1_000d;
+
+    public static RestaurantSearchCacheKey of(RestaurantSearchCriteria criteria,
+                                              PageRequest pageRequest,
+                                              LocalDateTime now,
+                                              Duration openNowBucket) {
+        RestaurantSearchCriteria canonical = RestaurantSearchCriteria.builder()
+                .cuisineTypes(canonicalList(criteria.getCuisineTypes()))
+                .name(canonicalText(criteria.getName()))
+                .minRating(criteria.getMinRating())
+                .latitude(round(criteria.getLatitude()))
+                .longitude(round(criteria.getLongitude()))
+                .maxDistanceKm(criteria.getMaxDistanceKm())
+                .openAt(canonicalOpenAt(criteria, now, openNowBucket))
+                .requirePhotos(criteria.isRequirePhotos())
+                .createdById(canonicalText(criteria.getCreatedById()))
+                .address(canonicalText(criteria.getAddress()))
+                .priceRanges(canonicalList(criteria.getPriceRanges()))
+                .features(canonicalList(criteria.getFeatures()))
+                .viewport(canonicalViewport(criteria.getViewport()))
+                .sortByViewportCenter(criteria.isSortByViewportCenter())
+                .build();
+
+        return new RestaurantSearchCacheKey(canonical, pageRequest);
+    }
+
+    private static LocalDateTime canonicalOpenAt(RestaurantSearchCriteria criteria, LocalDateTime now, Duration bucket) {
+        if (criteria.getOpenAt() != null) {
+            return criteria.getOpenAt().truncatedTo(ChronoUnit.MINUTES);
+        }
+        if (!criteria.isFilterOpenNow()) {
+            return null;
+        }
+        long bucketMinutes = Math.max(1, bucket.toMinutes());
+        LocalDateTime minute = now.truncatedTo(ChronoUnit.MINUTES);
+        return minute.minusMinutes((minute.getHour() * 60L + minute.getMinute()) % bucketMinutes);
+    }
+
+    private static BoundingBox canonicalViewport(BoundingBox viewport) {
+        if (viewport == null) {
+            return null;
+        }
+        return new BoundingBox(
+                new GeoLocation(round(viewport.getTopLeft().getLatitude()), round(viewport.getTopLeft().getLongitude())),
+                new GeoLocation(round(viewport.getBottomRight().getLatitude()), round(viewport.getBottomRight().getLongitude()))
+        );
+    }
+
+    private static List<String> canonicalList(List<String> values) {
+        if (values == null || values.isEmpty()) {
+            return null;
+        }
+        return values.stream()
+                .map(String::trim)
+                .filter(value -> !value.isEmpty())
+                .distinct()
+                .sorted()
+                .toList();
+    }
+
+    private static String canonicalText(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    private static Double round(Double coordinate) {
+        return coordinate == null ? null : Math.round(coordinate * COORDINATE_SCALE) / COORDINATE_SCALE;
+    }
+}
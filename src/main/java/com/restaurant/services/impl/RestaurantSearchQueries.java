@@ -0,0 +1,462 @@
+package com.restaurant.services.impl;
+
+import co.elastic.clients.elasticsearch._types.DistanceUnit;
+import co.elastic.clients.elasticsearch._types.FieldValue;
+import co.elastic.clients.elasticsearch._types.GeoBounds;
+import co.elastic.clients.elasticsearch._types.SortOrder;
+import co.elastic.clients.elasticsearch._types.aggregations.Aggregate;
+import co.elastic.clients.elasticsearch._types.aggregations.Aggregation;
+import co.elastic.clients.elasticsearch._types.query_dsl.BoolQuery;
+import co.elastic.clients.elasticsearch._types.query_dsl.Operator;
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import co.elastic.clients.elasticsearch.core.search.CompletionContext;
+import co.elastic.clients.elasticsearch.core.search.Suggester;
+import com.restaurant.domain.BoundingBox;
+import com.restaurant.domain.GeoLocation;
+import com.restaurant.domain.OpeningIntervals;
+import com.restaurant.domain.RestaurantSearchCriteria;
+import com.restaurant.domain.RestaurantSummary;
+import com.restaurant.domain.dtos.FacetBucket;
+import org.springframework.data.elasticsearch.client.elc.ElasticsearchAggregations;
+import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+import org.springframework.data.elasticsearch.client.elc.NativeQueryBuilder;
+import org.springframework.data.elasticsearch.core.AggregationsContainer;
+import org.springframework.data.elasticsearch.core.query.FetchSourceFilterBuilder;
+import org.springframework.data.elasticsearch.core.query.SourceFilter;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Builds the restaurant search queries shared by the paged, scrolled and faceted searches.
+ * <p>
+ * Filters come in two groups. The base filters (text, location, opening time, photos, owner) narrow what
+ * can be found at all. The facet filters (cuisine, features, price, rating) are selections the UI shows
+ * counts for. A faceted search applies the facet filters as a {@code post_filter}, and each facet's
+ * aggregation applies every facet filter except its own. A facet therefore still counts the values the user
+ * could switch to, not only the ones already selected.
+ */
+final class RestaurantSearchQueries {
+
+    static final String CUISINE_FACET = "cuisineType";
+    static final String FEATURES_FACET = "features";
+    static final String PRICE_RANGE_FACET = "priceRange";
+    static final String RATING_FACET = "averageRating";
+    static final String CITY_FACET = "city";
+    static final String FACET_VALUES = "values";
+    static final String CLUSTERS = "clusters";
+    static final String CLUSTER_CENTROID = "centroid";
+    static final String CLUSTER_PINS = "pins";
+    static final String SUGGESTIONS = "restaurants";
+
+    private static final int NAME_TRIGRAM_LENGTH = 3;
+    private static final int FACET_SIZE = 20;
+    /**
+     * Geohash cells of about 39 x 20 km; with their neighbours, roughly a city and its surroundings.
+     */
+    private static final int SUGGEST_GEOHASH_LENGTH = 4;
+
+    private RestaurantSearchQueries() {
+    }
+
+    static NativeQueryBuilder filterQuery(RestaurantSearchCriteria criteria) {
+        return new NativeQueryBuilder()
+                .withQuery(criteriaQuery(criteria))
+                .withSourceFilter(summarySourceFilter());
+    }
+
+    static Query criteriaQuery(RestaurantSearchCriteria criteria) {
+        BoolQuery.Builder boolQueryBuilder = new BoolQuery.Builder();
+
+        applyBaseFilters(criteria, boolQueryBuilder);
+        applyFacetFilters(criteria, null, boolQueryBuilder);
+
+        return Query.of(q -> q.bool(boolQueryBuilder.build()));
+    }
+
+    /**
+     * Counts the restaurants matching {@code criteria} per {@code geotile_grid} cell of the given precision
+     * within the criteria's viewport. Each cell also carries its centroid and, for up to {@code pinThreshold}
+     * restaurants, their summaries.
+     */
+    static NativeQuery clusterQuery(RestaurantSearchCriteria criteria,
+                                    int precision,
+                                    int maxClusters,
+                                    int pinThreshold) {
+        BoundingBox viewport = criteria.getViewport();
+        return NativeQuery.builder()
+                .withQuery(criteriaQuery(criteria))
+                .withMaxResults(0)
+                .withAggregation(CLUSTERS, Aggregation.of(a -> a
+                        .geotileGrid(g -> g
+                                .field("geoLocation")
+                                .precision(precision)
+                                .size(maxClusters)
+                                .bounds(geoBounds(viewport)))
+                        .aggregations(CLUSTER_CENTROID, sub -> sub.geoCentroid(c -> c.field("geoLocation")))
+                        .aggregations(CLUSTER_PINS, sub -> sub.topHits(t -> t
+                                .size(pinThreshold)
+                                .source(src -> src.filter(sf -> sf.includes(List.of(RestaurantSummary.SOURCE_FIELDS))))))))
+                .build();
+    }
+
+    /**
+     * Completions of {@code prefix} on the {@code suggest} field, one per distinct input, restricted to
+     * {@code cuisineType} and to the geohash cells around {@code near} when given.
+     */
+    static Suggester suggester(String prefix, String cuisineType, GeoLocation near, int size) {
+        Map<String, List<CompletionContext>> contexts = new HashMap<>();
+        if (cuisineType != null && !cuisineType.isBlank()) {
+            contexts.put("cuisine", List.of(CompletionContext.of(c -> c
+                    .context(ctx -> ctx.category(cuisineType)))));
+        }
+        if (near != null) {
+            contexts.put("location", List.of(CompletionContext.of(c -> c
+                    .context(ctx -> ctx.location(l -> l.latlon(ll -> ll
+                            .lat(near.getLatitude())
+                            .lon(near.getLongitude()))))
+                    .precision(p -> p.geohashLength(SUGGEST_GEOHASH_LENGTH))
+                    .neighbours(p -> p.geohashLength(SUGGEST_GEOHASH_LENGTH)))));
+        }
+
+        return Suggester.of(s -> s
+                .suggesters(SUGGESTIONS, f -> f
+                        .prefix(prefix)
+                        .completion(c -> c
+                                .field("suggest")
+                                .size(size)
+                                .skipDuplicates(true)
+                                .contexts(contexts))));
+    }
+
+    private static GeoBounds geoBounds(BoundingBox box) {
+        return GeoBounds.of(b -> b
+                .tlbr(t -> t
+                        .topLeft(tl -> tl.latlon(l -> l
+                                .lat(box.getTopLeft().getLatitude())
+                                .lon(box.getTopLeft().getLongitude())))
+                        .bottomRight(br -> br.latlon(l -> l
+                                .lat(box.getBottomRight().getLatitude())
+                                .lon(box.getBottomRight().getLongitude())))
+                )
+        );
+    }
+
+    static NativeQueryBuilder facetedQuery(RestaurantSearchCriteria criteria) {
+        BoolQuery.Builder boolQueryBuilder = new BoolQuery.Builder();
+        applyBaseFilters(criteria, boolQueryBuilder);
+
+        NativeQueryBuilder queryBuilder = new NativeQueryBuilder()
+                .withQuery(q -> q.bool(boolQueryBuilder.build()))
+                .withFilter(facetFilter(criteria, null))
+                .withSourceFilter(summarySourceFilter());
+
+        queryBuilder.withAggregation(CUISINE_FACET, facetAggregation(criteria, CUISINE_FACET, Aggregation.of(a -> a
+                .terms(t -> t.field("cuisineType").size(FACET_SIZE)))));
+        queryBuilder.withAggregation(FEATURES_FACET, facetAggregation(criteria, FEATURES_FACET, Aggregation.of(a -> a
+                .terms(t -> t.field("features").size(FACET_SIZE)))));
+        queryBuilder.withAggregation(PRICE_RANGE_FACET, facetAggregation(criteria, PRICE_RANGE_FACET, Aggregation.of(a -> a
+                .terms(t -> t.field("priceRange").size(FACET_SIZE)))));
+        queryBuilder.withAggregation(RATING_FACET, facetAggregation(criteria, RATING_FACET, Aggregation.of(a -> a
+                .histogram(h -> h.field("averageRating").interval(1.0).minDocCount(0)
+                        .extendedBounds(b -> b.min(0.0).max(5.0))))));
+        // City is a free-text filter rather than a selection, so its facet honours every facet filter.
+        queryBuilder.withAggregation(CITY_FACET, facetAggregation(criteria, CITY_FACET, Aggregation.of(a -> a
+                .nested(n -> n.path("address"))
+                .aggregations(FACET_VALUES, sub -> sub.terms(t -> t.field("address.city").size(FACET_SIZE))))));
+
+        return queryBuilder;
+    }
+
+    /**
+     * Reads the buckets of the aggregations added by {@link #facetedQuery}, keyed by facet name.
+     */
+    static Map<String, List<FacetBucket>> readFacets(AggregationsContainer<?> aggregationsContainer) {
+        Map<String, List<FacetBucket>> facets = new LinkedHashMap<>();
+        if (!(aggregationsContainer instanceof ElasticsearchAggregations aggregations)) {
+            return facets;
+        }
+
+        aggregations.aggregationsAsMap().forEach((name, aggregation) -> {
+            Aggregate values = aggregation.aggregation().getAggregate().filter().aggregations().get(FACET_VALUES);
+            facets.put(name, buckets(values));
+        });
+        return facets;
+    }
+
+    /**
+     * Buckets of a terms or histogram aggregation, or of the one named {@code values} under a nested aggregation.
+     */
+    static List<FacetBucket> buckets(Aggregate values) {
+        if (values.isNested()) {
+            return buckets(values.nested().aggregations().get(FACET_VALUES));
+        }
+        if (values.isSterms()) {
+            return values.sterms().buckets().array().stream()
+                    .map(b -> new FacetBucket(b.key().stringValue(), b.docCount()))
+                    .toList();
+        }
+        if (values.isLterms()) {
+            return values.lterms().buckets().array().stream()
+                    .map(b -> new FacetBucket(String.valueOf(b.key()), b.docCount()))
+                    .toList();
+        }
+        if (values.isHistogram()) {
+            return values.histogram().buckets().array().stream()
+                    .map(b -> new FacetBucket(String.valueOf((long) b.key()), b.docCount()))
+                    .toList();
+        }
+        // Terms on a field with no values in the index come back unmapped.
+        return List.of();
+    }
+
+    private static Aggregation facetAggregation(RestaurantSearchCriteria criteria, String facet, Aggregation values) {
+        return Aggregation.of(a -> a
+                .filter(facetFilter(criteria, facet))
+                .aggregations(FACET_VALUES, values));
+    }
+
+    private static Query facetFilter(RestaurantSearchCriteria criteria, String excludedFacet) {
+        BoolQuery.Builder boolQueryBuilder = new BoolQuery.Builder();
+        applyFacetFilters(criteria, excludedFacet, boolQueryBuilder);
+        return Query.of(q -> q.bool(boolQueryBuilder.build()));
+    }
+
+    private static void applyBaseFilters(RestaurantSearchCriteria criteria, BoolQuery.Builder boolQueryBuilder) {
+        filterByCity(criteria.getAddress(), boolQueryBuilder);
+        filterByGeoLocation(criteria.getLatitude(), criteria.getLongitude(), criteria.getMaxDistanceKm(), boolQueryBuilder);
+        filterByViewport(criteria.getViewport(), boolQueryBuilder);
+        filterByOpenAt(criteria.getOpenAt(), boolQueryBuilder);
+        filterByPhoto(criteria.isRequirePhotos(), boolQueryBuilder);
+        filterByCreatedBy(criteria.getCreatedById(), boolQueryBuilder);
+        filterByName(criteria.getName(), boolQueryBuilder);
+    }
+
+    private static void applyFacetFilters(RestaurantSearchCriteria criteria,
+                                          String excludedFacet,
+                                          BoolQuery.Builder boolQueryBuilder) {
+        if (!CUISINE_FACET.equals(excludedFacet)) {
+            filterByCuisineTypes(criteria.getCuisineTypes(), boolQueryBuilder);
+        }
+        if (!FEATURES_FACET.equals(excludedFacet)) {
+            filterByFeatures(criteria.getFeatures(), boolQueryBuilder);
+        }
+        if (!PRICE_RANGE_FACET.equals(excludedFacet)) {
+            filterByPriceRange(criteria.getPriceRanges(), boolQueryBuilder);
+        }
+        if (!RATING_FACET.equals(excludedFacet)) {
+            filterByAverageRating(criteria.getMinRating(), boolQueryBuilder);
+        }
+    }
+
+    static SourceFilter summarySourceFilter() {
+        return new FetchSourceFilterBuilder()
+                .withIncludes(RestaurantSummary.SOURCE_FIELDS)
+                .build();
+    }
+
+    private static void filterByFeatures(List<String> features, BoolQuery.Builder boolQueryBuilder) {
+        if (features != null && !features.isEmpty()) {
+            boolQueryBuilder.filter(Query.of(q -> q
+                    .terms(t -> t
+                            .field("features")
+                            .terms(ts -> ts
+                                    .value(features.stream()
+                                            .map(FieldValue::of)
+                                            .collect(Collectors.toList())
+                                    )
+                            )
+                    )));
+        }
+    }
+
+    private static void filterByName(String name, BoolQuery.Builder boolQueryBuilder) {
+        if (name != null && !name.isBlank()) {
+            String trimmedName = name.trim();
+            // Trigrams need at least three characters; shorter input falls back to word prefixes.
+            String field = trimmedName.length() >= NAME_TRIGRAM_LENGTH ? "name.ngram" : "name.prefix";
+            boolQueryBuilder.must(Query.of(q -> q
+                    .match(m -> m
+                            .field(field)
+                            .query(trimmedName)
+                            .operator(Operator.And)
+                    )
+            ));
+        }
+    }
+
+    private static void filterByPriceRange(List<String> priceRanges, BoolQuery.Builder boolQueryBuilder) {
+        if (priceRanges != null && !priceRanges.isEmpty()) {
+            boolQueryBuilder.must(Query.of(q -> q
+                    .terms(t -> t
+                            .field("priceRange")
+                            .terms(ts -> ts
+                                    .value(priceRanges.stream()
+                                            .map(FieldValue::of)
+                                            .collect(Collectors.toList())
+                                    )
+                            )
+                    )));
+        }
+    }
+
+    /**
+     * Adds a distance sort from the explicit search origin or, when requested, from the viewport center.
+     */
+    static void sortByDistance(RestaurantSearchCriteria criteria, NativeQueryBuilder queryBuilder) {
+        if (criteria.getLatitude() != null && criteria.getLongitude() != null) {
+            sortByDistance(criteria.getLatitude(), criteria.getLongitude(), queryBuilder);
+        } else if (criteria.isSortByViewportCenter() && criteria.getViewport() != null) {
+            BoundingBox viewport = criteria.getViewport();
+            double west = viewport.getTopLeft().getLongitude();
+            double east = viewport.getBottomRight().getLongitude();
+            // A viewport crossing the antimeridian has its west edge east of its east edge.
+            double centerLongitude = west <= east ? (west + east) / 2 : (west + east + 360) / 2;
+            sortByDistance(
+                    (viewport.getTopLeft().getLatitude() + viewport.getBottomRight().getLatitude()) / 2,
+                    centerLongitude > 180 ? centerLongitude - 360 : centerLongitude,
+                    queryBuilder
+            );
+        }
+    }
+
+    private static void sortByDistance(Double latitude, Double longitude, NativeQueryBuilder queryBuilder) {
+        if (latitude != null && longitude != null) {
+            queryBuilder.withSort(s -> s
+                    .geoDistance(g -> g
+                            .field("geoLocation")
+                            .location(gl -> gl.latlon(l -> l.lat(latitude).lon(longitude)))
+                            .order(SortOrder.Asc)
+                            .unit(DistanceUnit.Kilometers)
+                    )
+            );
+        }
+    }
+
+    private static void filterByGeoLocation(Double latitude, Double longitude, Double maxDistanceKm, BoolQuery.Builder boolQueryBuilder) {
+        if (latitude != null && longitude != null && maxDistanceKm != null) {
+            boolQueryBuilder.filter(Query.of(q -> q
+                    .geoDistance(g -> g
+                            .field("geoLocation")
+                            .distance(maxDistanceKm + "km")
+                            .location(gl -> gl
+                                    .latlon(l -> l
+                                            .lat(latitude)
+                                            .lon(longitude)
+                                    )
+                            )
+                    )
+            ));
+        }
+    }
+
+    private static void filterByViewport(BoundingBox viewport, BoolQuery.Builder boolQueryBuilder) {
+        if (viewport != null) {
+            boolQueryBuilder.filter(Query.of(q -> q
+                    .geoBoundingBox(g -> g
+                            .field("geoLocation")
+                            .boundingBox(geoBounds(viewport))
+                    )
+            ));
+        }
+    }
+
+    private static void filterByCreatedBy(String createdById, BoolQuery.Builder boolQueryBuilder) {
+        if (createdById != null) {
+            boolQueryBuilder.must(Query.of(q -> q
+                    .nested(n -> n
+                            .path("createdBy")
+                            .query(q2 -> q2.term(t -> t.field("createdBy.id").value(createdById)))
+                    )
+            ));
+        }
+    }
+
+    private static void filterByPhoto(boolean requirePhotos, BoolQuery.Builder boolQueryBuilder) {
+        if (requirePhotos) {
+            boolQueryBuilder.must(Query.of(q -> q
+                    .nested(n -> n
+                            .path("photos")
+                            .query(q2 -> q2.exists(e -> e.field("photos.id")))
+                    )
+            ));
+        }
+    }
+
+    private static void filterByOpenAt(LocalDateTime openAt, BoolQuery.Builder boolQueryBuilder) {
+        if (openAt != null) {
+            int minuteOfWeek = OpeningIntervals.minuteOfWeek(openAt);
+            // A term query on an integer_range field matches documents with a range containing the value.
+            boolQueryBuilder.filter(Query.of(q -> q
+                    .term(t -> t
+                            .field("openIntervals")
+                            .value(minuteOfWeek)
+                    )
+            ));
+        }
+    }
+
+    private static void filterByAverageRating(Float minRating, BoolQuery.Builder boolQueryBuilder) {
+        if (minRating != null) {
+            boolQueryBuilder.must(Query.of(q -> q
+                    .range(r -> r
+                            .number(nr -> nr
+                                    .field("averageRating")
+                                    .gte(minRating.doubleValue())
+                            )
+                    )
+            ));
+        }
+    }
+
+    private static void filterByCuisineTypes(List<String> cuisineTypes, BoolQuery.Builder boolQueryBuilder) {
+        if (cuisineTypes != null && !cuisineTypes.isEmpty()) {
+            boolQueryBuilder.must(Query.of(q -> q
+                    .terms(t -> t
+                            .field("cuisineType")
+                            .terms(ts -> ts
+                                    .value(cuisineTypes.stream()
+                                            .map(FieldValue::of)
+                                            .collect(Collectors.toList())
+                                    )
+                            )
+                    )));
+        }
+    }
+
+    private static void filterByCity(String address, BoolQuery.Builder boolQueryBuilder) {
+        if (address != null && !address.isBlank()) {
+            boolQueryBuilder.must(Query.of(q -> q
+                    .nested(n -> n
+                            .path("address")
+                            .query(q2 -> q2
+                                    .bool(b -> b
+                                            .should(
+                                                    Query.of(t -> t.match(m -> m
+                                                            .field("address.city")
+                                                            .query(address)
+                                                            .fuzziness("AUTO")
+                                                    )),
+                                                    Query.of(t -> t.match(m -> m
+                                                            .field("address.streetName")
+                                                            .query(address)
+                                                            .fuzziness("AUTO")
+                                                    )),
+                                                    Query.of(t -> t.match(m -> m
+                                                            .field("address.country")
+                                                            .query(address)
+                                                            .fuzziness("AUTO")
+                                                    ))
+                                            )
+                                            .minimumShouldMatch("1")
+                                    )
+                            )
+                    )
+            ));
+        }
+    }
+}
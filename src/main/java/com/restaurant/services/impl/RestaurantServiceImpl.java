@@ -1,45 +1,97 @@
 package com.restaurant.services.impl;
 
-import co.elastic.clients.elasticsearch._types.DistanceUnit;
-import co.elastic.clients.elasticsearch._types.FieldValue;
+import co.elastic.clients.elasticsearch._types.LatLonGeoLocation;
 import co.elastic.clients.elasticsearch._types.SortOrder;
-import co.elastic.clients.elasticsearch._types.query_dsl.BoolQuery;
+import co.elastic.clients.elasticsearch._types.aggregations.GeoTileGridBucket;
 import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import co.elastic.clients.elasticsearch.core.SearchResponse;
+import co.elastic.clients.elasticsearch.core.search.CompletionSuggestOption;
+import co.elastic.clients.elasticsearch.core.search.Hit;
+import co.elastic.clients.elasticsearch.core.search.Suggester;
+import co.elastic.clients.json.JsonData;
+import co.elastic.clients.transport.endpoints.BinaryResponse;
 import com.restaurant.domain.GeoLocation;
+import com.restaurant.domain.OpeningIntervals;
+import com.restaurant.domain.RestaurantCluster;
 import com.restaurant.domain.RestaurantCreateUpdateRequest;
+import com.restaurant.domain.RestaurantSearchCriteria;
+import com.restaurant.domain.RestaurantSuggestion;
+import com.restaurant.domain.RestaurantSummary;
+import com.restaurant.domain.SearchCursor;
+import com.restaurant.domain.dtos.CursorPage;
+import com.restaurant.domain.dtos.FacetedPage;
+import com.restaurant.domain.events.RestaurantChangedEvent;
 import com.restaurant.domain.entities.Address;
 import com.restaurant.domain.entities.Photo;
 import com.restaurant.domain.entities.Restaurant;
+import com.restaurant.exceptions.InvalidTileException;
+import com.restaurant.exceptions.MissingGeoCoordinatesException;
 import com.restaurant.exceptions.RestaurantNotFoundException;
 import com.restaurant.repositories.RestaurantRepository;
+import com.restaurant.repositories.ReviewRepository;
 import com.restaurant.services.GeoLocationService;
 import com.restaurant.services.RestaurantService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.elasticsearch.client.elc.ElasticsearchAggregations;
+import org.springframework.data.elasticsearch.client.elc.ElasticsearchTemplate;
+import org.springframework.data.elasticsearch.client.elc.NativeQuery;
 import org.springframework.data.elasticsearch.client.elc.NativeQueryBuilder;
 import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
 import org.springframework.data.elasticsearch.core.SearchHit;
+import org.springframework.data.elasticsearch.core.SearchHits;
+import org.springframework.data.elasticsearch.core.document.Document;
 import org.springframework.data.elasticsearch.core.geo.GeoPoint;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.data.elasticsearch.core.query.Query.PointInTime;
+import org.springframework.data.elasticsearch.core.suggest.Completion;
 import org.springframework.stereotype.Service;
 
-import java.time.DayOfWeek;
-import java.time.LocalTime;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class RestaurantServiceImpl implements RestaurantService {
 
+    private static final int MAX_SCROLL_PAGE_SIZE = 100;
+    private static final Duration POINT_IN_TIME_KEEP_ALIVE = Duration.ofMinutes(1);
+    // Two extra zoom levels split each 256px map tile into 4x4 cells of 64px.
+    private static final int CLUSTER_PRECISION_OFFSET = 2;
+    private static final int MAX_GEOTILE_PRECISION = 29;
+    private static final int MAX_CLUSTERS = 500;
+    private static final int CLUSTER_PIN_THRESHOLD = 5;
+    private static final List<String> TILE_FIELDS = List.of("averageRating", "cuisineType", "priceRange");
+    private static final int MAX_SUGGESTIONS = 10;
+    // Every field updateRestaurantDetails sets.
+    private static final List<String> UPDATED_FIELDS = List.of("name", "cuisineType", "contactInformation",
+            "address", "geoLocation", "operatingHours", "openIntervals", "photos", "website", "priceRange",
+            "suggest", "lastModified");
+
     private final RestaurantRepository restaurantRepository;
+    private final ReviewRepository reviewRepository;
     private final GeoLocationService geoLocationService;
     private final ElasticsearchOperations elasticsearchOperations;
-
-    private static Restaurant createRestaurant(RestaurantCreateUpdateRequest request, GeoPoint geoPoint, List<Photo> photos) {
+    private final ElasticsearchTemplate elasticsearchTemplate;
+    private final OptimisticRetry optimisticRetry;
+    private final RestaurantFieldWriter restaurantFieldWriter;
+    private final WriteBlockRetry writeBlockRetry;
+    private final RestaurantSearchCache restaurantSearchCache;
+    private final RestaurantDocumentCache restaurantDocumentCache;
+    private final RestaurantClock restaurantClock;
+    private final NearbyIndex nearbyIndex;
+    private final ColumnarSearchEngine columnarSearchEngine;
+    private final ApplicationEventPublisher eventPublisher;
+
+    static Restaurant createRestaurant(RestaurantCreateUpdateRequest request, GeoPoint geoPoint, List<Photo> photos) {
         return Restaurant.builder()
                 .name(request.getName())
                 .cuisineType(request.getCuisineType())
@@ -47,10 +99,15 @@ public class RestaurantServiceImpl implements RestaurantService {
                 .address(request.getAddress())
                 .geoLocation(geoPoint)
                 .operatingHours(request.getOperatingHours())
+                .openIntervals(OpeningIntervals.of(request.getOperatingHours()))
                 .averageRating(0f)
+                .ratingSum(0L)
+                .ratingCount(0)
                 .photos(photos)
                 .website(request.getWebsite())
                 .priceRange(request.getPriceRange())
+                .suggest(suggestInputs(request.getName(), request.getAddress()))
+                .lastModified(Instant.now())
                 .build();
     }
 
@@ -61,301 +118,322 @@ public class RestaurantServiceImpl implements RestaurantService {
         restaurant.setAddress(request.getAddress());
         restaurant.setGeoLocation(newGeoPoint);
         restaurant.setOperatingHours(request.getOperatingHours());
+        restaurant.setOpenIntervals(OpeningIntervals.of(request.getOperatingHours()));
         restaurant.setPhotos(photos);
         restaurant.setWebsite(request.getWebsite());
         restaurant.setPriceRange(request.getPriceRange());
+        restaurant.setSuggest(suggestInputs(request.getName(), request.getAddress()));
+        restaurant.setLastModified(Instant.now());
     }
 
-    private static NativeQueryBuilder filterQuery(PageRequest of, List<String> cuisineTypes, String name, Float minRating, Double latitude, Double longitude, Double maxDistanceKm, boolean filterOpenNow, boolean requirePhotos, String createdById, String address, List<String> priceRanges, List<String> features) {
-        BoolQuery.Builder boolQueryBuilder = new BoolQuery.Builder();
-
-        filterByCity(address, boolQueryBuilder);
-        filterByCuisineTypes(cuisineTypes, boolQueryBuilder);
-        filterByAverageRating(minRating, boolQueryBuilder);
-        filterByGeoLocation(latitude, longitude, maxDistanceKm, boolQueryBuilder);
-        filterByOpeningHours(filterOpenNow, boolQueryBuilder);
-        filterByPhoto(requirePhotos, boolQueryBuilder);
-        filterByCreatedBy(createdById, boolQueryBuilder);
-        filterByPriceRange(priceRanges, boolQueryBuilder);
-        filterByName(name, boolQueryBuilder);
-        filterByFeatures(features, boolQueryBuilder);
-
-        return new NativeQueryBuilder()
-                .withQuery(q -> q.bool(boolQueryBuilder.build()))
-                .withPageable(of);
+    static Completion suggestInputs(String name, Address address) {
+        String city = address == null ? null : address.getCity();
+        return new Completion(Stream.of(name, city)
+                .filter(input -> input != null && !input.isBlank())
+                .toList());
     }
 
-    private static void filterByFeatures(List<String> features, BoolQuery.Builder boolQueryBuilder) {
-        if (features != null && !features.isEmpty()) {
-            boolQueryBuilder.filter(Query.of(q -> q
-                    .terms(t -> t
-                            .field("features")
-                            .terms(ts -> ts
-                                    .value(features.stream()
-                                            .map(FieldValue::of)
-                                            .collect(Collectors.toList())
-                                    )
-                            )
-                    )));
-        }
+    @Override
+    public Restaurant createRestaurant(@Valid RestaurantCreateUpdateRequest request) {
+        AddressInfo addressInfo = buildAddressInfo(request);
+
+        var photos = Photo.buildPhotos(request.getPhotoIds());
+
+        Restaurant restaurant = createRestaurant(request, addressInfo.geoPoint(), photos);
+
+        Restaurant savedRestaurant = writeBlockRetry.execute("restaurant.create", () -> restaurantRepository.save(restaurant));
+        eventPublisher.publishEvent(new RestaurantChangedEvent(savedRestaurant.getId()));
+        return savedRestaurant;
     }
 
-    private static void filterByName(String name, BoolQuery.Builder boolQueryBuilder) {
-        if (name != null && !name.isEmpty()) {
-            boolQueryBuilder.must(Query.of(q -> q
-                    .wildcard(t -> t
-                            .field("name")
-                            .caseInsensitive(true)
-                            .value("*" + name + "*")
-                    )
-            ));
-        }
+    private AddressInfo buildAddressInfo(@Valid RestaurantCreateUpdateRequest request) {
+        Address address = request.getAddress();
+        GeoLocation geoLocation = geoLocationService.geoLocate(address);
+        GeoPoint geoPoint = new GeoPoint(geoLocation.getLatitude(), geoLocation.getLongitude());
+        return new AddressInfo(address, geoPoint);
     }
 
-    private static void filterByPriceRange(List<String> priceRanges, BoolQuery.Builder boolQueryBuilder) {
-        if (priceRanges != null && !priceRanges.isEmpty()) {
-            boolQueryBuilder.must(Query.of(q -> q
-                    .terms(t -> t
-                            .field("priceRange")
-                            .terms(ts -> ts
-                                    .value(priceRanges.stream()
-                                            .map(FieldValue::of)
-                                            .collect(Collectors.toList())
-                                    )
-                            )
-                    )));
+    @Override
+    public Page<RestaurantSummary> searchRestaurants(PageRequest of, RestaurantSearchCriteria criteria) {
+        // The in-process replicas answer the common shapes; everything else, or a replica not loaded yet, falls through.
+        Optional<Page<String>> local = nearbyIndex.search(criteria, of)
+                .or(() -> columnarSearchEngine.search(resolveOpenAt(criteria), of));
+        if (local.isPresent()) {
+            return hydrateSummaries(local.get());
         }
-    }
 
+        // Search with the canonical criteria so the cached page is exactly what the key describes.
+        RestaurantSearchCacheKey key = restaurantSearchCache.keyFor(criteria, of);
 
-    private static void sortByDistance(Double latitude, Double longitude, NativeQueryBuilder queryBuilder) {
-        if (latitude != null && longitude != null) {
-            queryBuilder.withSort(s -> s
-                    .geoDistance(g -> g
-                            .field("geoLocation")
-                            .location(gl -> gl.latlon(l -> l.lat(latitude).lon(longitude)))
-                            .order(SortOrder.Asc)
-                            .unit(DistanceUnit.Kilometers)
-                    )
-            );
-        }
+        return restaurantSearchCache.get(key, () -> {
+            NativeQueryBuilder queryBuilder = RestaurantSearchQueries.filterQuery(key.criteria()).withPageable(of);
+
+            RestaurantSearchQueries.sortByDistance(key.criteria(), queryBuilder);
+
+            return searchSummaries(queryBuilder.build(), of);
+        });
     }
 
-    private static void filterByGeoLocation(Double latitude, Double longitude, Double maxDistanceKm, BoolQuery.Builder boolQueryBuilder) {
-        if (latitude != null && longitude != null && maxDistanceKm != null) {
-            boolQueryBuilder.filter(Query.of(q -> q
-                    .geoDistance(g -> g
-                            .field("geoLocation")
-                            .distance(maxDistanceKm + "km")
-                            .location(gl -> gl
-                                    .latlon(l -> l
-                                            .lat(latitude)
-                                            .lon(longitude)
-                                    )
-                            )
-                    )
-            ));
-        }
+    @Override
+    public FacetedPage<RestaurantSummary> searchRestaurantsWithFacets(PageRequest pageRequest,
+                                                                      RestaurantSearchCriteria criteria) {
+        RestaurantSearchCriteria resolved = resolveOpenAt(criteria);
+        NativeQueryBuilder queryBuilder = RestaurantSearchQueries.facetedQuery(resolved).withPageable(pageRequest);
+        RestaurantSearchQueries.sortByDistance(resolved, queryBuilder);
+
+        SearchHits<RestaurantSummary> searchHits = elasticsearchOperations.search(
+                queryBuilder.build(), RestaurantSummary.class, elasticsearchOperations.getIndexCoordinatesFor(Restaurant.class));
+        Page<RestaurantSummary> page = new PageImpl<>(
+                searchHits.stream().map(SearchHit::getContent).toList(), pageRequest, searchHits.getTotalHits());
+
+        return new FacetedPage<>(page, RestaurantSearchQueries.readFacets(searchHits.getAggregations()));
     }
 
-    private static void filterByCreatedBy(String createdById, BoolQuery.Builder boolQueryBuilder) {
-        if (createdById != null) {
-            boolQueryBuilder.must(Query.of(q -> q
-                    .nested(n -> n
-                            .path("createdBy")
-                            .query(q2 -> q2.term(t -> t.field("createdBy.id").value(createdById)))
-                    )
-            ));
+    @Override
+    public CursorPage<RestaurantSummary> scrollRestaurants(RestaurantSearchCriteria criteria,
+                                                           Sort sort,
+                                                           String cursor,
+                                                           int size,
+                                                           boolean pointInTime) {
+        int pageSize = Math.clamp(size, 1, MAX_SCROLL_PAGE_SIZE);
+        criteria = resolveOpenAt(criteria);
+        SearchCursor position = cursor == null || cursor.isBlank() ? null : SearchCursor.decode(cursor);
+        IndexCoordinates index = elasticsearchOperations.getIndexCoordinatesFor(Restaurant.class);
+
+        // The point in time is opened once, on the first page, and travels inside the cursor after that.
+        String pitId = position != null
+                ? position.pitId()
+                : pointInTime ? elasticsearchOperations.openPointInTime(index, POINT_IN_TIME_KEEP_ALIVE) : null;
+
+        NativeQueryBuilder queryBuilder = RestaurantSearchQueries.filterQuery(criteria)
+                // One extra hit tells us whether another page exists without a count query.
+                .withMaxResults(pageSize + 1);
+        for (Sort.Order order : sort) {
+            queryBuilder.withSort(s -> s.field(f -> f
+                    .field(order.getProperty())
+                    .order(order.isAscending() ? SortOrder.Asc : SortOrder.Desc)));
         }
-    }
+        RestaurantSearchQueries.sortByDistance(criteria, queryBuilder);
+        queryBuilder.withSort(s -> s.field(f -> f.field("id").order(SortOrder.Asc)));
 
-    private static void filterByPhoto(boolean requirePhotos, BoolQuery.Builder boolQueryBuilder) {
-        if (requirePhotos) {
-            boolQueryBuilder.must(Query.of(q -> q
-                    .nested(n -> n
-                            .path("photos")
-                            .query(q2 -> q2.exists(e -> e.field("photos.id")))
-                    )
-            ));
+        if (position != null) {
+            queryBuilder.withSearchAfter(position.searchAfter());
+        }
+        if (pitId != null) {
+            queryBuilder.withPointInTime(new PointInTime(pitId, POINT_IN_TIME_KEEP_ALIVE));
         }
-    }
 
-    private static void filterByOpeningHours(boolean filterOpenNow, BoolQuery.Builder boolQueryBuilder) {
-        if (filterOpenNow) {
-            DayOfWeek currentDay = DayOfWeek.from(java.time.LocalDate.now());
-            String currentTime = LocalTime.now().format(java.time.format.DateTimeFormatter.ofPattern("HH:mm"));
-
-            Query openHoursQuery = Query.of(q -> q
-                    .bool(b -> b
-                            .must(
-                                    // Day of week match
-                                    Query.of(q2 -> q2
-                                            .term(t -> t
-                                                    .field("operatingHours.dayOfWeek")
-                                                    .value(currentDay.toString())
-                                            )
-                                    ),
-                                    // Open time <= current time (using term range for string comparison)
-                                    Query.of(q2 -> q2
-                                            .range(r -> r
-                                                    .term(tr -> tr
-                                                            .field("operatingHours.openTime")
-                                                            .lte(currentTime)
-                                                    )
-                                            )
-                                    ),
-                                    // Close time >= current time
-                                    Query.of(q2 -> q2
-                                            .range(r -> r
-                                                    .term(tr -> tr
-                                                            .field("operatingHours.closeTime")
-                                                            .gte(currentTime)
-                                                    )
-                                            )
-                                    )
-                            )
-                    )
-            );
-
-            boolQueryBuilder.must(Query.of(q -> q
-                    .nested(n -> n
-                            .path("operatingHours")
-                            .query(openHoursQuery)
-                    )
-            ));
+        SearchHits<RestaurantSummary> searchHits = elasticsearchOperations.search(queryBuilder.build(), RestaurantSummary.class, index);
+        List<SearchHit<RestaurantSummary>> hits = searchHits.getSearchHits();
+        List<SearchHit<RestaurantSummary>> page = hits.subList(0, Math.min(pageSize, hits.size()));
+
+        // Elasticsearch may hand back a new id for the same point in time; the latest one must be used.
+        String nextPitId = searchHits.getPointInTimeId() != null ? searchHits.getPointInTimeId() : pitId;
+        String nextCursor = null;
+        if (hits.size() > pageSize) {
+            nextCursor = new SearchCursor(page.get(page.size() - 1).getSortValues(), nextPitId).encode();
+        } else if (nextPitId != null) {
+            elasticsearchOperations.closePointInTime(nextPitId);
         }
+
+        return new CursorPage<>(page.stream().map(SearchHit::getContent).toList(), nextCursor);
     }
 
-    private static void filterByAverageRating(Float minRating, BoolQuery.Builder boolQueryBuilder) {
-        if (minRating != null) {
-            boolQueryBuilder.must(Query.of(q -> q
-                    .range(r -> r
-                            .number(nr -> nr
-                                    .field("averageRating")
-                                    .gte(minRating.doubleValue())
-                            )
-                    )
-            ));
+    @Override
+    public List<RestaurantCluster> clusterRestaurants(RestaurantSearchCriteria criteria, int zoom) {
+        if (criteria.getViewport() == null) {
+            throw new MissingGeoCoordinatesException();
+        }
+        int precision = Math.clamp(zoom + CLUSTER_PRECISION_OFFSET, 0, MAX_GEOTILE_PRECISION);
+        NativeQuery query = RestaurantSearchQueries.clusterQuery(
+                resolveOpenAt(criteria), precision, MAX_CLUSTERS, CLUSTER_PIN_THRESHOLD);
+
+        SearchHits<RestaurantSummary> searchHits = elasticsearchOperations.search(
+                query, RestaurantSummary.class, elasticsearchOperations.getIndexCoordinatesFor(Restaurant.class));
+        if (!(searchHits.getAggregations() instanceof ElasticsearchAggregations aggregations)) {
+            return List.of();
         }
+
+        return aggregations.get(RestaurantSearchQueries.CLUSTERS).aggregation().getAggregate()
+                .geotileGrid().buckets().array().stream()
+                .map(this::toCluster)
+                .toList();
     }
 
-    private static void filterByCuisineTypes(List<String> cuisineTypes, BoolQuery.Builder boolQueryBuilder) {
-        if (cuisineTypes != null && !cuisineTypes.isEmpty()) {
-            boolQueryBuilder.must(Query.of(q -> q
-                    .terms(t -> t
-                            .field("cuisineType")
-                            .terms(ts -> ts
-                                    .value(cuisineTypes.stream()
-                                            .map(FieldValue::of)
-                                            .collect(Collectors.toList())
-                                    )
-                            )
-                    )));
-        }
+    private RestaurantCluster toCluster(GeoTileGridBucket bucket) {
+        LatLonGeoLocation centroid = bucket.aggregations().get(RestaurantSearchQueries.CLUSTER_CENTROID)
+                .geoCentroid().location().latlon();
+
+        List<RestaurantSummary> restaurants = bucket.docCount() <= CLUSTER_PIN_THRESHOLD
+                ? bucket.aggregations().get(RestaurantSearchQueries.CLUSTER_PINS).topHits().hits().hits().stream()
+                        .map(this::toSummary)
+                        .toList()
+                : List.of();
+
+        return new RestaurantCluster(
+                bucket.key(), bucket.docCount(), new GeoLocation(centroid.lat(), centroid.lon()), restaurants);
     }
 
-    private static void filterByCity(String address, BoolQuery.Builder boolQueryBuilder) {
-        if (address != null && !address.isBlank()) {
-            boolQueryBuilder.must(Query.of(q -> q
-                    .nested(n -> n
-                            .path("address")
-                            .query(q2 -> q2
-                                    .bool(b -> b
-                                            .should(
-                                                    Query.of(t -> t.match(m -> m
-                                                            .field("address.city")
-                                                            .query(address)
-                                                            .fuzziness("AUTO")
-                                                    )),
-                                                    Query.of(t -> t.match(m -> m
-                                                            .field("address.streetName")
-                                                            .query(address)
-                                                            .fuzziness("AUTO")
-                                                    )),
-                                                    Query.of(t -> t.match(m -> m
-                                                            .field("address.country")
-                                                            .query(address)
-                                                            .fuzziness("AUTO")
-                                                    ))
-                                            )
-                                            .minimumShouldMatch("1")
-                                    )
-                            )
-                    )
-            ));
-        }
+    private RestaurantSummary toSummary(Hit<JsonData> hit) {
+        Document document = Document.parse(hit.source().toJson().toString());
+        document.setId(hit.id());
+        return elasticsearchOperations.getElasticsearchConverter().read(RestaurantSummary.class, document);
     }
 
     @Override
-    public Restaurant createRestaurant(@Valid RestaurantCreateUpdateRequest request) {
-        AddressInfo addressInfo = buildAddressInfo(request);
-
-        var photos = Photo.buildPhotos(request.getPhotoIds());
-
-        Restaurant restaurant = createRestaurant(request, addressInfo.geoPoint(), photos);
+    public byte[] getTile(RestaurantSearchCriteria criteria, int zoom, int x, int y) {
+        if (zoom < 0 || zoom > MAX_GEOTILE_PRECISION || x < 0 || y < 0 || x >= 1 << zoom || y >= 1 << zoom) {
+            throw new InvalidTileException("No such tile: " + zoom + "/" + x + "/" + y);
+        }
+        String index = elasticsearchOperations.getIndexCoordinatesFor(Restaurant.class).getIndexName();
+        Query query = RestaurantSearchQueries.criteriaQuery(resolveOpenAt(criteria));
+
+        // Points only: grid precision 0 leaves out the aggregation layer the _mvt API adds by default.
+        return elasticsearchTemplate.execute(client -> {
+            try (BinaryResponse tile = client.searchMvt(s -> s
+                    .index(index)
+                    .field("geoLocation")
+                    .zoom(zoom)
+                    .x(x)
+                    .y(y)
+                    .query(query)
+                    .fields(TILE_FIELDS)
+                    .gridPrecision(0)
+                    .trackTotalHits(t -> t.enabled(false)))) {
+                return tile.content().readAllBytes();
+            }
+        });
+    }
 
-        return restaurantRepository.save(restaurant);
+    @Override
+    public List<RestaurantSuggestion> suggestRestaurants(String prefix, String cuisineType, GeoLocation near, int size) {
+        if (prefix == null || prefix.isBlank()) {
+            return List.of();
+        }
+        String index = elasticsearchOperations.getIndexCoordinatesFor(Restaurant.class).getIndexName();
+        Suggester suggester = RestaurantSearchQueries.suggester(
+                prefix, cuisineType, near, Math.clamp(size, 1, MAX_SUGGESTIONS));
+
+        SearchResponse<JsonData> response = elasticsearchTemplate.execute(client -> client.search(s -> s
+                        .index(index)
+                        .size(0)
+                        .trackTotalHits(t -> t.enabled(false))
+                        .source(source -> source.filter(f -> f.includes(List.of(RestaurantSuggestion.SOURCE_FIELDS))))
+                        .suggest(suggester),
+                JsonData.class));
+
+        return response.suggest().getOrDefault(RestaurantSearchQueries.SUGGESTIONS, List.of()).stream()
+                .flatMap(suggestion -> suggestion.completion().options().stream())
+                .map(this::toSuggestion)
+                .toList();
     }
 
-    private AddressInfo buildAddressInfo(@Valid RestaurantCreateUpdateRequest request) {
-        Address address = request.getAddress();
-        GeoLocation geoLocation = geoLocationService.geoLocate(address);
-        GeoPoint geoPoint = new GeoPoint(geoLocation.getLatitude(), geoLocation.getLongitude());
-        return new AddressInfo(address, geoPoint);
+    private RestaurantSuggestion toSuggestion(CompletionSuggestOption<JsonData> option) {
+        Document document = Document.parse(option.source().toJson().toString());
+        document.setId(option.id());
+        RestaurantSuggestion suggestion = elasticsearchOperations.getElasticsearchConverter()
+                .read(RestaurantSuggestion.class, document);
+        suggestion.setText(option.text());
+        return suggestion;
     }
 
     @Override
-    public Page<Restaurant> searchRestaurants(
-            PageRequest of,
-            List<String> cuisineTypes,
-            String name,
-            Float minRating,
-            Double latitude,
-            Double longitude,
-            Double maxDistanceKm,
-            boolean filterOpenNow,
-            boolean requirePhotos,
-            String createdById,
-            String address,
-            List<String> priceRanges,
-            List<String> features
-    ) {
+    public Page<RestaurantSummary> getAllRestaurants(PageRequest pageRequest) {
+        NativeQuery query = new NativeQueryBuilder()
+                .withQuery(q -> q.matchAll(m -> m))
+                .withSourceFilter(RestaurantSearchQueries.summarySourceFilter())
+                .withPageable(pageRequest)
+                .build();
+
+        return searchSummaries(query, pageRequest);
+    }
 
+    private RestaurantSearchCriteria resolveOpenAt(RestaurantSearchCriteria criteria) {
+        if (criteria.isFilterOpenNow() && criteria.getOpenAt() == null) {
+            return criteria.toBuilder().openAt(restaurantClock.now()).build();
+        }
+        return criteria;
+    }
 
-        NativeQueryBuilder queryBuilder = filterQuery(of, cuisineTypes, name, minRating, latitude, longitude, maxDistanceKm, filterOpenNow, requirePhotos, createdById, address, priceRanges, features);
+    /**
+     * Loads the summaries of a page of ids by multi-get, which is a lookup rather than a search.
+     */
+    private Page<RestaurantSummary> hydrateSummaries(Page<String> ids) {
+        if (ids.isEmpty()) {
+            return new PageImpl<>(List.of(), ids.getPageable(), ids.getTotalElements());
+        }
 
-        sortByDistance(latitude, longitude, queryBuilder);
+        NativeQuery query = NativeQuery.builder()
+                .withIds(ids.getContent())
+                .withSourceFilter(RestaurantSearchQueries.summarySourceFilter())
+                .build();
+        List<RestaurantSummary> content = multiGet(query, RestaurantSummary.class).stream()
+                .flatMap(Optional::stream)
+                .toList();
+        return new PageImpl<>(content, ids.getPageable(), ids.getTotalElements());
+    }
 
+    /**
+     * One element per requested id, in request order, as returned by {@code _mget}; empty for a missing id.
+     */
+    private <T> List<Optional<T>> multiGet(NativeQuery query, Class<T> type) {
+        return elasticsearchOperations
+                .multiGet(query, type, elasticsearchOperations.getIndexCoordinatesFor(Restaurant.class))
+                .stream()
+                .map(item -> item.hasItem() ? Optional.of(item.getItem()) : Optional.<T>empty())
+                .toList();
+    }
 
-        var searchHits = elasticsearchOperations.search(queryBuilder.build(), Restaurant.class);
+    private Page<RestaurantSummary> searchSummaries(NativeQuery query, PageRequest pageRequest) {
+        var searchHits = elasticsearchOperations.search(
+                query, RestaurantSummary.class, elasticsearchOperations.getIndexCoordinatesFor(Restaurant.class));
         var content = searchHits
                 .stream()
                 .map(SearchHit::getContent)
                 .toList();
-        return new PageImpl<>(content, of, searchHits.getTotalHits());
+        return new PageImpl<>(content, pageRequest, searchHits.getTotalHits());
     }
 
     @Override
-    public Page<Restaurant> getAllRestaurants(PageRequest pageRequest) {
-        return restaurantRepository.findAll(pageRequest);
+    public Optional<Restaurant> getRestaurantById(String id) {
+        return restaurantDocumentCache.get(id, restaurantRepository::findById);
     }
 
     @Override
-    public Optional<Restaurant> getRestaurantById(String id) {
-        return restaurantRepository.findById(id);
+    public List<Optional<RestaurantSummary>> getRestaurantSummariesByIds(List<String> ids) {
+        NativeQuery query = NativeQuery.builder()
+                .withIds(ids)
+                .withSourceFilter(RestaurantSearchQueries.summarySourceFilter())
+                .build();
+        return multiGet(query, RestaurantSummary.class);
+    }
+
+    @Override
+    public List<Optional<Restaurant>> getRestaurantsByIds(List<String> ids) {
+        return restaurantDocumentCache.getAll(ids, misses -> multiGet(
+                NativeQuery.builder().withIds(misses).build(), Restaurant.class));
     }
 
     @Override
     public Restaurant updateRestaurant(String id, @Valid RestaurantCreateUpdateRequest request) {
-        Restaurant restaurant = getRestaurantOrThrows(id);
+        getRestaurantOrThrows(id);
 
         AddressInfo addressInfo = buildAddressInfo(request);
         List<Photo> photos = Photo.buildPhotos(request.getPhotoIds());
 
-        updateRestaurantDetails(request, restaurant, addressInfo.geoPoint, photos);
-
-        return restaurantRepository.save(restaurant);
-
+        // Re-read from the index on every attempt: the write is guarded by the seq_no/primary_term of this read.
+        // Only the updated fields are written, so fields the entity does not map survive.
+        Restaurant savedRestaurant = optimisticRetry.execute("restaurant.update", () -> {
+            Restaurant restaurant = restaurantRepository.findById(id)
+                    .orElseThrow(() -> new RestaurantNotFoundException("Restaurant with ID does not exist: " + id));
+            updateRestaurantDetails(request, restaurant, addressInfo.geoPoint, photos);
+            restaurant.setSeqNoPrimaryTerm(restaurantFieldWriter.write(
+                    id, restaurant, UPDATED_FIELDS, restaurant.getSeqNoPrimaryTerm()));
+            return restaurant;
+        });
+        eventPublisher.publishEvent(new RestaurantChangedEvent(id));
+        restaurantDocumentCache.put(savedRestaurant);
+        return savedRestaurant;
     }
 
     private Restaurant getRestaurantOrThrows(String id) {
@@ -365,7 +443,9 @@ public class RestaurantServiceImpl implements RestaurantService {
 
     @Override
     public void deleteRestaurant(String restaurantId) {
-        restaurantRepository.deleteById(restaurantId);
+        writeBlockRetry.run("restaurant.delete", () -> restaurantRepository.deleteById(restaurantId));
+        reviewRepository.deleteByRestaurantId(restaurantId);
+        eventPublisher.publishEvent(new RestaurantChangedEvent(restaurantId));
     }
 
     private record AddressInfo(Address address, GeoPoint geoPoint) {
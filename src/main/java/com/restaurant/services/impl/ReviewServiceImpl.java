@@ -1,25 +1,34 @@
 package com.restaurant.services.impl;
 
-import co.elastic.clients.elasticsearch._types.query_dsl.BoolQuery;
-import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import com.restaurant.domain.RestaurantHeader;
 import com.restaurant.domain.ReviewCreateUpdateRequest;
+import com.restaurant.domain.SearchCursor;
+import com.restaurant.domain.dtos.CursorPage;
 import com.restaurant.domain.dtos.ReviewWithRestaurant;
+import com.restaurant.domain.events.RestaurantChangedEvent;
 import com.restaurant.domain.entities.Photo;
 import com.restaurant.domain.entities.Restaurant;
 import com.restaurant.domain.entities.Review;
 import com.restaurant.domain.entities.User;
+import com.restaurant.exceptions.InvalidSortPropertyException;
 import com.restaurant.exceptions.RestaurantNotFoundException;
 import com.restaurant.exceptions.ReviewNotAllowedException;
-import com.restaurant.repositories.RestaurantRepository;
+import com.restaurant.repositories.ReviewRepository;
+import com.restaurant.services.RestaurantService;
 import com.restaurant.services.ReviewService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.elasticsearch.client.elc.NativeQuery;
 import org.springframework.data.elasticsearch.client.elc.NativeQueryBuilder;
 import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.MultiGetItem;
 import org.springframework.data.elasticsearch.core.SearchHit;
+import org.springframework.data.elasticsearch.core.query.FetchSourceFilterBuilder;
+import org.springframework.data.elasticsearch.core.query.UpdateQuery;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
@@ -29,21 +38,22 @@ import java.util.stream.Collectors;
 @Service
 @RequiredArgsConstructor
 public class ReviewServiceImpl implements ReviewService {
-    private final ElasticsearchOperations elasticsearchOperations;
-    private final RestaurantRepository restaurantRepository;
+    private static final Set<String> REVIEW_SORT_FIELDS = Set.of("datePosted", "rating", "lastEdited");
+    private static final int MAX_USER_REVIEWS_PAGE_SIZE = 100;
 
-    private static Optional<Review> getReviewFromRestaurant(String reviewId, Restaurant restaurant) {
-        return restaurant.getReviews()
-                .stream()
-                .filter(r -> reviewId.equals(r.getId()))
-                .findFirst();
-    }
+    private final ElasticsearchOperations elasticsearchOperations;
+    private final RestaurantService restaurantService;
+    private final ReviewRepository reviewRepository;
+    private final OptimisticRetry optimisticRetry;
+    private final WriteBlockRetry writeBlockRetry;
+    private final ApplicationEventPublisher eventPublisher;
 
-    private static Review buildReview(ReviewCreateUpdateRequest review, List<Photo> photos, User author) {
+    private static Review buildReview(ReviewCreateUpdateRequest review, List<Photo> photos, User author, String restaurantId) {
         LocalDateTime now = LocalDateTime.now();
 
         return Review.builder()
                 .id(UUID.randomUUID().toString())
+                .restaurantId(restaurantId)
                 .content(review.getContent())
                 .rating(review.getRating())
                 .photos(photos)
@@ -53,32 +63,16 @@ public class ReviewServiceImpl implements ReviewService {
                 .build();
     }
 
-    private static void checkExistingReview(User author, Restaurant restaurant) {
-        boolean hasExistingReview = restaurant.getReviews().stream()
-                .anyMatch(r -> r.getWrittenBy().getId().equals(author.getId()));
-
-        if (hasExistingReview) {
-            throw new ReviewNotAllowedException("User has already reviewed this restaurant");
-        }
-    }
-
-    private static void updateReview(String reviewId, ReviewCreateUpdateRequest newReview, Review existingReview, Restaurant restaurant) {
+    private static void updateReview(ReviewCreateUpdateRequest newReview, Review existingReview) {
         existingReview.setContent(newReview.getContent());
         existingReview.setRating(newReview.getRating());
         existingReview.setLastEdited(LocalDateTime.now());
 
         existingReview.setPhotos(Photo.buildPhotos(newReview.getPhotoIds()));
-
-        List<Review> updatedReviews = restaurant.getReviews().stream()
-                .filter(r -> !reviewId.equals(r.getId()))
-                .collect(Collectors.toList());
-        updatedReviews.add(existingReview);
-
-        restaurant.setReviews(updatedReviews);
     }
 
     private static void userAbleToUpdateReview(String authorId, Review existingReview) {
-        if (!authorId.equals(existingReview.getWrittenBy().getId())) {
+        if (existingReview.getWrittenBy() == null || !authorId.equals(existingReview.getWrittenBy().getId())) {
             throw new ReviewNotAllowedException("Cannot update another user's review");
         }
 
@@ -87,168 +81,189 @@ public class ReviewServiceImpl implements ReviewService {
         }
     }
 
-    private static void sortReviews(Pageable pageable, List<Review> reviews) {
-        Sort sort = pageable.getSort();
-
-        if (sort.isSorted()) {
-            Sort.Order order = sort.iterator().next();
-            String property = order.getProperty();
-            boolean isAscending = order.getDirection().isAscending();
+    /**
+     * Validates the requested sort and appends {@code id} as a tie-breaker, so reviews sharing a date or
+     * rating keep a stable order across pages instead of shuffling between shards.
+     */
+    private static Pageable toReviewPage(Pageable pageable) {
+        Sort sort = pageable.getSort().isSorted()
+                ? pageable.getSort()
+                : Sort.by(Sort.Direction.DESC, "datePosted");
+
+        for (Sort.Order order : sort) {
+            if (!REVIEW_SORT_FIELDS.contains(order.getProperty())) {
+                throw new InvalidSortPropertyException("Invalid sort property: " + order.getProperty());
+            }
+        }
 
-            Comparator<Review> comparator = switch (property) {
-                case "rating" -> Comparator.comparing(Review::getRating);
-                default -> Comparator.comparing(Review::getDatePosted);
-            };
+        return PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), sort.and(Sort.by("id")));
+    }
 
-            reviews.sort(isAscending ? comparator : comparator.reversed());
-        } else {
-            reviews.sort(Comparator.comparing(Review::getDatePosted).reversed());
+    private void checkExistingReview(User author, String restaurantId) {
+        if (reviewRepository.existsByRestaurantIdAndWrittenById(restaurantId, author.getId())) {
+            throw new ReviewNotAllowedException("User has already reviewed this restaurant");
         }
     }
 
+    private Optional<Review> getReviewFromRestaurant(String reviewId, String restaurantId) {
+        return reviewRepository.findById(reviewId)
+                .filter(r -> restaurantId.equals(r.getRestaurantId()));
+    }
+
     @Override
     public Review createAnonymousReview(String restaurantId, ReviewCreateUpdateRequest review) {
-        Restaurant restaurant = getRestaurantOrThrow(restaurantId);
+        checkRestaurantExists(restaurantId);
 
-        return createReview(review, restaurant, null);
+        return createReview(review, restaurantId, null);
     }
 
     @Override
-    public List<ReviewWithRestaurant> listUserReviews(User author) {
-        System.out.println("Searching reviews for user: " + author);
-
-        BoolQuery.Builder boolQueryBuilder = new BoolQuery.Builder();
-
-        // Filter reviews written by the user
-        boolQueryBuilder.must(Query.of(q -> q
-                .nested(n -> n
-                        .path("reviews.writtenBy")
-                        .query(q2 -> q2
-                                .term(t -> t
-                                        .field("reviews.writtenBy.id")
-                                        .value(author.getId())
-                                )
+    public CursorPage<ReviewWithRestaurant> listUserReviews(User author, String cursor, int size) {
+        int pageSize = Math.clamp(size, 1, MAX_USER_REVIEWS_PAGE_SIZE);
+
+        NativeQueryBuilder queryBuilder = NativeQuery.builder()
+                .withQuery(q -> q
+                        .term(t -> t
+                                .field("writtenBy.id")
+                                .value(author.getId())
                         )
                 )
-        ));
+                .withSort(Sort.by(Sort.Order.asc("lastEdited"), Sort.Order.asc("id")))
+                // One extra hit tells us whether another page exists without a count query.
+                .withMaxResults(pageSize + 1);
 
-        NativeQueryBuilder queryBuilder = new NativeQueryBuilder()
-                .withQuery(q -> q.bool(boolQueryBuilder.build()));
+        if (cursor != null && !cursor.isBlank()) {
+            queryBuilder.withSearchAfter(SearchCursor.decode(cursor).searchAfter());
+        }
 
+        List<SearchHit<Review>> hits = elasticsearchOperations.search(queryBuilder.build(), Review.class).getSearchHits();
+        List<SearchHit<Review>> page = hits.subList(0, Math.min(pageSize, hits.size()));
 
-        var searchHits = elasticsearchOperations.search(queryBuilder.build(), Restaurant.class);
+        String nextCursor = hits.size() > pageSize
+                ? new SearchCursor(page.get(page.size() - 1).getSortValues()).encode()
+                : null;
 
+        Map<String, RestaurantHeader> restaurants = getRestaurantHeaders(page.stream()
+                .map(hit -> hit.getContent().getRestaurantId())
+                .collect(Collectors.toSet()));
 
-        return searchHits.stream()
+        List<ReviewWithRestaurant> content = page.stream()
                 .map(SearchHit::getContent)
-                .flatMap(restaurant -> restaurant.getReviews().stream()
-                        .map(review -> new ReviewWithRestaurant(review, restaurant)))
-                .filter(review -> review.getReview().getWrittenBy() != null && review.getReview().getWrittenBy().getId().equals(author.getId()))
-                .sorted(Comparator.comparing(r -> r.getReview().getLastEdited()))
+                .filter(review -> restaurants.containsKey(review.getRestaurantId()))
+                .map(review -> new ReviewWithRestaurant(review, restaurants.get(review.getRestaurantId())))
                 .toList();
+
+        return new CursorPage<>(content, nextCursor);
+    }
+
+    private Map<String, RestaurantHeader> getRestaurantHeaders(Set<String> restaurantIds) {
+        if (restaurantIds.isEmpty()) {
+            return Map.of();
+        }
+
+        NativeQuery query = NativeQuery.builder()
+                .withIds(restaurantIds)
+                .withSourceFilter(new FetchSourceFilterBuilder()
+                        .withIncludes(RestaurantHeader.SOURCE_FIELDS)
+                        .build())
+                .build();
+
+        Map<String, RestaurantHeader> restaurants = new HashMap<>();
+        elasticsearchOperations.multiGet(query, RestaurantHeader.Stored.class, elasticsearchOperations.getIndexCoordinatesFor(Restaurant.class))
+                .stream()
+                .filter(MultiGetItem::hasItem)
+                .map(MultiGetItem::getItem)
+                .map(RestaurantHeader::of)
+                .forEach(restaurant -> restaurants.put(restaurant.getId(), restaurant));
+        return restaurants;
     }
 
     @Override
     public Review createReviewWithAuthor(User author, String restaurantId, ReviewCreateUpdateRequest review) {
-        Restaurant restaurant = getRestaurantOrThrow(restaurantId);
+        checkRestaurantExists(restaurantId);
 
-        checkExistingReview(author, restaurant);
+        checkExistingReview(author, restaurantId);
 
-        return createReview(review, restaurant, author);
+        return createReview(review, restaurantId, author);
     }
 
-    private Review createReview(ReviewCreateUpdateRequest review, Restaurant restaurant, User author) {
+    private Review createReview(ReviewCreateUpdateRequest review, String restaurantId, User author) {
         List<Photo> photos = Photo.buildPhotos(review.getPhotoIds());
 
+        Review reviewToCreate = buildReview(review, photos, author, restaurantId);
 
-        Review reviewToCreate = buildReview(review, photos, author);
-
-        if (restaurant.getReviews() != null) restaurant.getReviews().add(reviewToCreate);
-        else restaurant.setReviews(new ArrayList<>(List.of(reviewToCreate)));
-
-        updateRestaurantAverageRating(restaurant);
+        Review savedReview = reviewRepository.save(reviewToCreate);
 
-        Restaurant savedRestaurant = restaurantRepository.save(restaurant);
+        updateRestaurantRating(RestaurantRatingUpdates.reviewAdded(restaurantId, savedReview.getRating()));
 
-        return getReviewFromRestaurant(reviewToCreate.getId(), savedRestaurant)
-                .orElseThrow(() -> new RuntimeException("Error retrieving created review"));
+        return savedReview;
     }
 
     @Override
     public Page<Review> listReviews(String restaurantId, Pageable pageable) {
-        Restaurant restaurant = getRestaurantOrThrow(restaurantId);
-        List<Review> reviews = restaurant.getReviews();
-
-        sortReviews(pageable, reviews);
-
-        int start = (int) pageable.getOffset();
+        checkRestaurantExists(restaurantId);
 
-        if (start >= reviews.size()) {
-            return new PageImpl<>(Collections.emptyList(), pageable, reviews.size());
-        }
-
-        int end = Math.min((start + pageable.getPageSize()), reviews.size());
-
-        return new PageImpl<>(reviews.subList(start, end), pageable, reviews.size());
+        return reviewRepository.findByRestaurantId(restaurantId, toReviewPage(pageable));
     }
 
     @Override
     public Optional<Review> getReview(String restaurantId, String reviewId) {
-        Restaurant restaurant = getRestaurantOrThrow(restaurantId);
-        return getReviewFromRestaurant(reviewId, restaurant);
+        checkRestaurantExists(restaurantId);
+        return getReviewFromRestaurant(reviewId, restaurantId);
     }
 
     @Override
     public Review updateReview(User author, String restaurantId, String reviewId, ReviewCreateUpdateRequest review) {
-        Restaurant restaurant = getRestaurantOrThrow(restaurantId);
+        checkRestaurantExists(restaurantId);
 
         String authorId = author.getId();
-        Review existingReview = getReviewFromRestaurant(reviewId, restaurant)
-                .orElseThrow(() -> new ReviewNotAllowedException("Review does not exist"));
 
-        userAbleToUpdateReview(authorId, existingReview);
+        // Only the read and the save are retried: the save is guarded by the seq_no of the read, and the rating
+        // delta is applied once, after it, from the rating that save replaced.
+        RatingEdit edit = optimisticRetry.execute("review.update", () -> {
+            Review existingReview = getReviewFromRestaurant(reviewId, restaurantId)
+                    .orElseThrow(() -> new ReviewNotAllowedException("Review does not exist"));
 
-        updateReview(reviewId, review, existingReview, restaurant);
+            userAbleToUpdateReview(authorId, existingReview);
 
-        updateRestaurantAverageRating(restaurant);
+            int previousRating = existingReview.getRating();
+            updateReview(review, existingReview);
 
-        restaurantRepository.save(restaurant);
+            return new RatingEdit(reviewRepository.save(existingReview), previousRating);
+        });
 
-        return existingReview;
+        updateRestaurantRating(RestaurantRatingUpdates.reviewEdited(restaurantId, edit.previousRating(), edit.review().getRating()));
+
+        return edit.review();
     }
 
     @Override
     public void deleteReview(String restaurantId, String reviewId) {
-        Restaurant restaurant = getRestaurantOrThrow(restaurantId);
-        List<Review> filteredReviews = restaurant.getReviews().stream()
-                .filter(r -> !reviewId.equals(r.getId()))
-                .toList();
+        checkRestaurantExists(restaurantId);
 
-        restaurant.setReviews(filteredReviews);
+        Optional<Review> deleted = optimisticRetry.execute("review.delete", () ->
+                getReviewFromRestaurant(reviewId, restaurantId).filter(reviewRepository::deleteIfUnchanged));
 
-        updateRestaurantAverageRating(restaurant);
-
-        restaurantRepository.save(restaurant);
+        deleted.ifPresent(review ->
+                updateRestaurantRating(RestaurantRatingUpdates.reviewRemoved(restaurantId, review.getRating())));
     }
 
-    public Restaurant getRestaurantOrThrow(String restaurantId) {
-        return restaurantRepository.findById(restaurantId)
-                .orElseThrow(() -> new RestaurantNotFoundException(
-                                "Restaurant with id not found: " + restaurantId
-                        )
-                );
-    }
-
-    public void updateRestaurantAverageRating(Restaurant restaurant) {
-        List<Review> reviews = restaurant.getReviews();
-        if (reviews.isEmpty()) {
-            restaurant.setAverageRating(0.0f);
-        } else {
-            double averageRating = reviews.stream().mapToDouble(Review::getRating)
-                    .average()
-                    .orElse(0.0);
-            restaurant.setAverageRating((float) averageRating);
+    private void checkRestaurantExists(String restaurantId) {
+        if (restaurantService.getRestaurantById(restaurantId).isEmpty()) {
+            throw new RestaurantNotFoundException("Restaurant with id not found: " + restaurantId);
         }
     }
 
+    /**
+     * Applies a rating delta to the restaurant in place, so a review write never loads or re-indexes
+     * the restaurant document and concurrent reviewers cannot overwrite each other's counters.
+     */
+    private void updateRestaurantRating(UpdateQuery ratingUpdate) {
+        writeBlockRetry.run("restaurant.rating", () ->
+                elasticsearchOperations.update(ratingUpdate, elasticsearchOperations.getIndexCoordinatesFor(Restaurant.class)));
+        eventPublisher.publishEvent(new RestaurantChangedEvent(ratingUpdate.getId()));
+    }
+
+    private record RatingEdit(Review review, int previousRating) {
+    }
 }
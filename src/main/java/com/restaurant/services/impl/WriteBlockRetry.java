@@ -0,0 +1,97 @@
+package com.restaurant.services.impl;
+
+import com.restaurant.exceptions.WritesSuspendedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.elasticsearch.UncategorizedElasticsearchException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Re-sends a restaurant write that Elasticsearch rejected with a {@code cluster_block_exception}. The
+ * restaurant index migration write-blocks the old index for its final catch-up copy, until the alias moves to
+ * the new index; a write retried after that lands in the new index. Waits use capped exponential backoff with
+ * full jitter and give up after {@code app.write-block.max-wait}.
+ * <p>
+ * A write guarded by a {@code _seq_no} read from the old index is rejected by the new one as a version
+ * conflict, so callers that retry conflicts re-read and try again as usual.
+ */
+@Component
+@Slf4j
+public class WriteBlockRetry {
+
+    private static final int FORBIDDEN = 403;
+    private static final String CLUSTER_BLOCK = "cluster_block_exception";
+
+    private final MeterRegistry meterRegistry;
+    private final long maxWaitMillis;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+
+    public WriteBlockRetry(MeterRegistry meterRegistry,
+                           @Value("${app.write-block.max-wait:2m}") Duration maxWait,
+                           @Value("${app.write-block.initial-backoff:50ms}") Duration initialBackoff,
+                           @Value("${app.write-block.max-backoff:2s}") Duration maxBackoff) {
+        this.meterRegistry = meterRegistry;
+        this.maxWaitMillis = Math.max(0, maxWait.toMillis());
+        this.initialBackoffMillis = Math.max(1, initialBackoff.toMillis());
+        this.maxBackoffMillis = Math.max(initialBackoffMillis, maxBackoff.toMillis());
+    }
+
+    public void run(String operation, Runnable write) {
+        execute(operation, () -> {
+            write.run();
+            return null;
+        });
+    }
+
+    public <T> T execute(String operation, Supplier<T> write) {
+        long deadline = System.currentTimeMillis() + maxWaitMillis;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return write.get();
+            } catch (UncategorizedElasticsearchException e) {
+                if (!isWriteBlock(e)) {
+                    throw e;
+                }
+                counter("restaurant.write_block.rejections", operation).increment();
+
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    counter("restaurant.write_block.exhausted", operation).increment();
+                    throw new WritesSuspendedException(
+                            "Gave up on " + operation + " after " + attempt + " blocked attempts", e);
+                }
+
+                log.debug("{} rejected by a write block (attempt {}), retrying", operation, attempt);
+                backoff(attempt, remaining, operation, e);
+            }
+        }
+    }
+
+    static boolean isWriteBlock(UncategorizedElasticsearchException e) {
+        return e.getStatusCode() != null && e.getStatusCode() == FORBIDDEN
+                && e.getMessage() != null && e.getMessage().contains(CLUSTER_BLOCK);
+    }
+
+    private void backoff(int attempt, long remaining, String operation, RuntimeException rejection) {
+        long ceiling = Math.min(remaining, Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(attempt - 1, 20)));
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new WritesSuspendedException("Interrupted while retrying " + operation, rejection);
+        }
+    }
+
+    private Counter counter(String name, String operation) {
+        return Counter.builder(name)
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+}
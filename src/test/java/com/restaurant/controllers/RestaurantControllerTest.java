@@ -1,16 +1,40 @@
 package com.restaurant.controllers;
 
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.restaurant.domain.BoundingBox;
+import com.restaurant.domain.GeoLocation;
+import com.restaurant.domain.RestaurantCluster;
 import com.restaurant.domain.RestaurantCreateUpdateRequest;
+import com.restaurant.domain.RestaurantImportFormat;
+import com.restaurant.domain.RestaurantProjection;
+import com.restaurant.domain.RestaurantSearchCriteria;
+import com.restaurant.domain.RestaurantSuggestion;
+import com.restaurant.domain.RestaurantSummary;
+import com.restaurant.domain.dtos.CursorPage;
+import com.restaurant.domain.dtos.FacetBucket;
+import com.restaurant.domain.dtos.FacetedPage;
+import com.restaurant.domain.dtos.RestaurantBatch;
+import com.restaurant.domain.dtos.RestaurantBatchRequestDto;
+import com.restaurant.domain.dtos.RestaurantClusterDto;
 import com.restaurant.domain.dtos.RestaurantCreateUpdateRequestDto;
 import com.restaurant.domain.dtos.RestaurantDto;
+import com.restaurant.domain.dtos.RestaurantImportReport;
+import com.restaurant.domain.dtos.RestaurantSearchParamsDto;
+import com.restaurant.domain.dtos.RestaurantSuggestionDto;
 import com.restaurant.domain.dtos.RestaurantSummaryDto;
 import com.restaurant.domain.entities.Restaurant;
+import com.restaurant.exceptions.InvalidSearchRequestException;
 import com.restaurant.exceptions.InvalidSortPropertyException;
+import com.restaurant.exceptions.MissingGeoCoordinatesException;
 import com.restaurant.mappers.RestaurantMapper;
+import com.restaurant.services.RestaurantImportService;
+import com.restaurant.services.RestaurantPatchService;
 import com.restaurant.services.RestaurantService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -18,11 +42,15 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -37,20 +65,28 @@ public class RestaurantControllerTest {
     @Mock
     private RestaurantService restaurantService;
 
+    @Mock
+    private RestaurantImportService restaurantImportService;
+
+    @Mock
+    private RestaurantPatchService restaurantPatchService;
+
     @Mock
     private RestaurantMapper restaurantMapper;
 
     private RestaurantCreateUpdateRequestDto requestDto;
     private Restaurant restaurant;
     private RestaurantDto restaurantDto;
-    private Page<Restaurant> restaurantPage;
+    private RestaurantSummary restaurantSummary;
+    private Page<RestaurantSummary> restaurantPage;
 
     @BeforeEach
     void setUp() {
         requestDto = new RestaurantCreateUpdateRequestDto();
         restaurant = new Restaurant();
         restaurantDto = new RestaurantDto();
-        restaurantPage = new PageImpl<>(Collections.singletonList(restaurant));
+        restaurantSummary = new RestaurantSummary();
+        restaurantPage = new PageImpl<>(Collections.singletonList(restaurantSummary));
         Page<RestaurantSummaryDto> restaurantSummaryDtoPage = new PageImpl<>(Collections.singletonList(new RestaurantSummaryDto()));
     }
 
@@ -68,24 +104,38 @@ public class RestaurantControllerTest {
     @Test
     void searchRestaurants() {
         PageRequest pageRequest = PageRequest.of(0, 20, Sort.by(Sort.Direction.DESC, "averageRating"));
-        List<String> cuisineTypes = Arrays.asList("Italian", "Chinese");
-        List<String> priceRanges = Arrays.asList("1", "2");
-        List<String> features = List.of("");
-
-
-        when(restaurantService.searchRestaurants(eq(pageRequest), eq(cuisineTypes), isNull(), eq(4.0f), eq(40.7128), eq(-74.0060), eq(10.0), eq(false), eq(false), isNull(), isNull(), eq(priceRanges), eq(features))).thenReturn(restaurantPage);
-        when(restaurantMapper.toSummaryDto(any(Restaurant.class))).thenReturn(new RestaurantSummaryDto());
-
-        Page<RestaurantSummaryDto> response = restaurantController.searchRestaurants("Italian,Chinese", "", 4.0f, 40.7128, -74.0060, 10.0, "1,2", "", false, false, null, null, 1, 20, "DESC", "averageRating");
+        RestaurantSearchParamsDto params = RestaurantSearchParamsDto.builder()
+                .cuisineTypes("Italian,Chinese")
+                .name("")
+                .minRating(4.0f)
+                .latitude(40.7128)
+                .longitude(-74.0060)
+                .maxDistanceKm(10.0)
+                .priceRanges("1,2")
+                .features("")
+                .build();
+
+        when(restaurantService.searchRestaurants(eq(pageRequest), any(RestaurantSearchCriteria.class))).thenReturn(restaurantPage);
+        when(restaurantMapper.toSummaryDto(any(RestaurantSummary.class))).thenReturn(new RestaurantSummaryDto());
+
+        Page<RestaurantSummaryDto> response = restaurantController.searchRestaurants(params, 1, 20, "DESC", "averageRating");
 
         assertNotNull(response);
         assertFalse(response.isEmpty());
+
+        ArgumentCaptor<RestaurantSearchCriteria> criteria = ArgumentCaptor.forClass(RestaurantSearchCriteria.class);
+        verify(restaurantService).searchRestaurants(eq(pageRequest), criteria.capture());
+        assertEquals(Arrays.asList("Italian", "Chinese"), criteria.getValue().getCuisineTypes());
+        assertEquals(Arrays.asList("1", "2"), criteria.getValue().getPriceRanges());
+        assertNull(criteria.getValue().getFeatures());
+        assertEquals(4.0f, criteria.getValue().getMinRating());
+        assertEquals(10.0, criteria.getValue().getMaxDistanceKm());
     }
 
 
     @Test
     void searchRestaurantsInvalidSortProperty() {
-        Exception exception = assertThrows(InvalidSortPropertyException.class, () -> restaurantController.searchRestaurants(null, null, null, null, null, null, null, "", false, false, null, null, 1, 20, "DESC", "invalidSort"));
+        Exception exception = assertThrows(InvalidSortPropertyException.class, () -> restaurantController.searchRestaurants(new RestaurantSearchParamsDto(), 1, 20, "DESC", "invalidSort"));
 
         String expectedMessage = "Invalid sort property: invalidSort";
         String actualMessage = exception.getMessage();
@@ -93,10 +143,121 @@ public class RestaurantControllerTest {
         assertTrue(actualMessage.contains(expectedMessage));
     }
 
+    @Test
+    void scrollRestaurants() {
+        when(restaurantService.scrollRestaurants(any(RestaurantSearchCriteria.class), eq(Sort.by(Sort.Direction.DESC, "averageRating")), eq("cursor"), eq(20), eq(true)))
+                .thenReturn(new CursorPage<>(List.of(restaurantSummary), "nextCursor"));
+        when(restaurantMapper.toSummaryDto(restaurantSummary)).thenReturn(new RestaurantSummaryDto());
+
+        CursorPage<RestaurantSummaryDto> response = restaurantController.scrollRestaurants(
+                new RestaurantSearchParamsDto(), "cursor", true, 20, "DESC", "averageRating", false);
+
+        assertEquals(1, response.getContent().size());
+        assertEquals("nextCursor", response.getNextCursor());
+    }
+
+    @Test
+    void scrollRestaurants_rejectsFacets() {
+        assertThrows(InvalidSearchRequestException.class, () -> restaurantController.scrollRestaurants(
+                new RestaurantSearchParamsDto(), null, false, 20, "DESC", "averageRating", true));
+
+        verifyNoInteractions(restaurantService);
+    }
+
+    @Test
+    void getTile_isSharedForLongWithoutVolatileFilters() {
+        when(restaurantService.getTile(any(RestaurantSearchCriteria.class), eq(12), eq(2048), eq(1361)))
+                .thenReturn(new byte[0]);
+
+        ResponseEntity<byte[]> response = restaurantController.getTile(new RestaurantSearchParamsDto(), 12, 2048, 1361);
+
+        assertEquals("max-age=3600, public, stale-while-revalidate=86400",
+                response.getHeaders().getCacheControl());
+    }
+
+    @Test
+    void getTile_isPrivateAndShortLivedWhenFilteredByOpenNow() {
+        when(restaurantService.getTile(any(RestaurantSearchCriteria.class), eq(12), eq(2048), eq(1361)))
+                .thenReturn(new byte[0]);
+        RestaurantSearchParamsDto params = new RestaurantSearchParamsDto();
+        params.setFilterOpenNow(true);
+
+        ResponseEntity<byte[]> response = restaurantController.getTile(params, 12, 2048, 1361);
+
+        assertEquals("max-age=60, private", response.getHeaders().getCacheControl());
+    }
+
+    @Test
+    void searchRestaurantsWithFacets() {
+        Map<String, List<FacetBucket>> facets = Map.of("cuisineType", List.of(new FacetBucket("Tunisian", 3)));
+        when(restaurantService.searchRestaurantsWithFacets(any(PageRequest.class), any(RestaurantSearchCriteria.class)))
+                .thenReturn(new FacetedPage<>(restaurantPage, facets));
+        when(restaurantMapper.toSummaryDto(restaurantSummary)).thenReturn(new RestaurantSummaryDto());
+
+        FacetedPage<RestaurantSummaryDto> response = restaurantController.searchRestaurantsWithFacets(
+                new RestaurantSearchParamsDto(), 1, 20, "DESC", "averageRating");
+
+        assertEquals(1, response.getResults().getContent().size());
+        assertEquals(facets, response.getFacets());
+    }
+
+    @Test
+    void clusterRestaurants() {
+        RestaurantCluster cluster = new RestaurantCluster("12/2186/1571", 42, new GeoLocation(36.8, 10.18), List.of());
+        ArgumentCaptor<RestaurantSearchCriteria> criteria = ArgumentCaptor.forClass(RestaurantSearchCriteria.class);
+        when(restaurantService.clusterRestaurants(criteria.capture(), eq(12))).thenReturn(List.of(cluster));
+        when(restaurantMapper.toClusterDto(cluster)).thenReturn(new RestaurantClusterDto());
+        RestaurantSearchParamsDto params = RestaurantSearchParamsDto.builder()
+                .topLeftLat(36.9).topLeftLon(10.1).bottomRightLat(36.7).bottomRightLon(10.3)
+                .build();
+
+        List<RestaurantClusterDto> response = restaurantController.clusterRestaurants(params, 12);
+
+        assertEquals(1, response.size());
+        assertEquals(new BoundingBox(new GeoLocation(36.9, 10.1), new GeoLocation(36.7, 10.3)), criteria.getValue().getViewport());
+    }
+
+    @Test
+    void partialViewportIsRejected() {
+        RestaurantSearchParamsDto params = RestaurantSearchParamsDto.builder().topLeftLat(36.9).build();
+
+        assertThrows(MissingGeoCoordinatesException.class, () -> restaurantController.clusterRestaurants(params, 12));
+    }
+
+    @Test
+    void importRestaurantsPicksFormatFromContentType() {
+        InputStream body = new ByteArrayInputStream(new byte[0]);
+        RestaurantImportReport report = new RestaurantImportReport();
+        when(restaurantImportService.importRestaurants(body, RestaurantImportFormat.CSV)).thenReturn(report);
+
+        RestaurantImportReport response = restaurantController.importRestaurants(
+                MediaType.parseMediaType("text/csv;charset=UTF-8"), body);
+
+        assertSame(report, response);
+    }
+
+    @Test
+    void suggestRestaurants() {
+        RestaurantSuggestion suggestion = RestaurantSuggestion.builder().id("1").text("Dar El Jeld").build();
+        when(restaurantService.suggestRestaurants("dar", "Tunisian", new GeoLocation(36.8, 10.18), 5))
+                .thenReturn(List.of(suggestion));
+        when(restaurantMapper.toSuggestionDto(suggestion)).thenReturn(new RestaurantSuggestionDto());
+
+        List<RestaurantSuggestionDto> response = restaurantController.suggestRestaurants("dar", "Tunisian", 36.8, 10.18, 5);
+
+        assertEquals(1, response.size());
+    }
+
+    @Test
+    void suggestRestaurantsRejectsPartialLocation() {
+        assertThrows(MissingGeoCoordinatesException.class,
+                () -> restaurantController.suggestRestaurants("dar", null, 36.8, null, 5));
+    }
+
     @Test
     void getAllRestaurants() {
         when(restaurantService.getAllRestaurants(any())).thenReturn(restaurantPage);
-        when(restaurantMapper.toSummaryDto(restaurant)).thenReturn(new RestaurantSummaryDto());
+        when(restaurantMapper.toSummaryDto(restaurantSummary)).thenReturn(new RestaurantSummaryDto());
 
         Page<RestaurantSummaryDto> response = restaurantController.getAllRestaurants(1, 20);
 
@@ -123,6 +284,39 @@ public class RestaurantControllerTest {
         assertEquals(ResponseEntity.notFound().build(), response);
     }
 
+    @Test
+    void getRestaurantsByIdsKeepsOrderAndReportsMissing() {
+        RestaurantSummary first = RestaurantSummary.builder().id("3").build();
+        RestaurantSummary second = RestaurantSummary.builder().id("1").build();
+        RestaurantSummaryDto firstDto = RestaurantSummaryDto.builder().id("3").build();
+        RestaurantSummaryDto secondDto = RestaurantSummaryDto.builder().id("1").build();
+        when(restaurantService.getRestaurantSummariesByIds(List.of("3", "2", "1")))
+                .thenReturn(List.of(Optional.of(first), Optional.empty(), Optional.of(second)));
+        when(restaurantMapper.toSummaryDto(first)).thenReturn(firstDto);
+        when(restaurantMapper.toSummaryDto(second)).thenReturn(secondDto);
+
+        RestaurantBatch<?> batch = restaurantController.getRestaurantsByIds(
+                RestaurantBatchRequestDto.builder().ids(List.of("3", "2", "3", "1")).build());
+
+        assertEquals(List.of(firstDto, secondDto), batch.getRestaurants());
+        assertEquals(List.of("2"), batch.getMissingIds());
+    }
+
+    @Test
+    void getRestaurantsByIdsWithDetailProjection() {
+        when(restaurantService.getRestaurantsByIds(List.of("1"))).thenReturn(List.of(Optional.of(restaurant)));
+        when(restaurantMapper.toRestaurantDto(restaurant)).thenReturn(restaurantDto);
+
+        RestaurantBatch<?> batch = restaurantController.getRestaurantsByIds(RestaurantBatchRequestDto.builder()
+                .ids(List.of("1"))
+                .projection(RestaurantProjection.DETAIL)
+                .build());
+
+        assertEquals(List.of(restaurantDto), batch.getRestaurants());
+        assertEquals(List.of(), batch.getMissingIds());
+        verify(restaurantService, never()).getRestaurantSummariesByIds(any());
+    }
+
     @Test
     void updateRestaurant() {
         when(restaurantMapper.toRestaurantCreateUpdateRequest(requestDto)).thenReturn(new RestaurantCreateUpdateRequest());
@@ -134,6 +328,17 @@ public class RestaurantControllerTest {
         assertEquals(ResponseEntity.ok(restaurantDto), response);
     }
 
+    @Test
+    void patchRestaurant() {
+        ObjectNode patch = JsonNodeFactory.instance.objectNode().put("website", "https://example.com");
+
+        ResponseEntity<Void> response = restaurantController.patchRestaurant("1", patch);
+
+        assertEquals(ResponseEntity.noContent().build(), response);
+        verify(restaurantPatchService).patchRestaurant("1", patch);
+        verifyNoInteractions(restaurantService);
+    }
+
     @Test
     void deleteRestaurant() {
         ResponseEntity<Void> response = restaurantController.deleteRestaurant("1");
@@ -0,0 +1,75 @@
+package com.restaurant.domain;
+
+import com.restaurant.domain.entities.MinuteRange;
+import com.restaurant.domain.entities.OperatingHours;
+import com.restaurant.domain.entities.TimeRange;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class OpeningIntervalsTest {
+
+    private static final int MONDAY = 0;
+    private static final int TUESDAY = OpeningIntervals.MINUTES_PER_DAY;
+    private static final int SUNDAY = 6 * OpeningIntervals.MINUTES_PER_DAY;
+
+    @Test
+    void excludesTheClosingMinute() {
+        OperatingHours hours = OperatingHours.builder().monday(new TimeRange("09:00", "17:30")).build();
+
+        assertEquals(List.of(new MinuteRange(MONDAY + 540, MONDAY + 1049)), OpeningIntervals.of(hours));
+    }
+
+    @Test
+    void runsOvernightHoursIntoTheNextDay() {
+        OperatingHours hours = OperatingHours.builder().monday(new TimeRange("18:00", "02:00")).build();
+
+        assertEquals(List.of(new MinuteRange(MONDAY + 1080, TUESDAY + 119)), OpeningIntervals.of(hours));
+    }
+
+    @Test
+    void wrapsSundayNightToMondayMorning() {
+        OperatingHours hours = OperatingHours.builder().sunday(new TimeRange("20:00", "01:00")).build();
+
+        assertEquals(List.of(
+                new MinuteRange(MONDAY, MONDAY + 59),
+                new MinuteRange(SUNDAY + 1200, OpeningIntervals.MINUTES_PER_WEEK - 1)
+        ), OpeningIntervals.of(hours));
+    }
+
+    @Test
+    void treatsEqualOpenAndCloseAsOpenAroundTheClock() {
+        OperatingHours hours = OperatingHours.builder().tuesday(new TimeRange("00:00", "00:00")).build();
+
+        assertEquals(List.of(new MinuteRange(TUESDAY, TUESDAY + OpeningIntervals.MINUTES_PER_DAY - 1)),
+                OpeningIntervals.of(hours));
+    }
+
+    @Test
+    void mergesDaysThatRunIntoEachOther() {
+        TimeRange allDay = new TimeRange("00:00", "00:00");
+        OperatingHours hours = new OperatingHours(allDay, allDay, allDay, allDay, allDay, allDay, allDay);
+
+        assertEquals(List.of(new MinuteRange(0, OpeningIntervals.MINUTES_PER_WEEK - 1)), OpeningIntervals.of(hours));
+    }
+
+    @Test
+    void acceptsSingleDigitHoursAndSkipsIncompleteDays() {
+        OperatingHours hours = OperatingHours.builder()
+                .monday(new TimeRange("9:00", "12:00"))
+                .tuesday(new TimeRange("09:00", null))
+                .build();
+
+        assertEquals(List.of(new MinuteRange(MONDAY + 540, MONDAY + 719)), OpeningIntervals.of(hours));
+        assertEquals(List.of(), OpeningIntervals.of(null));
+    }
+
+    @Test
+    void countsMinutesOfTheWeekFromMonday() {
+        assertEquals(0, OpeningIntervals.minuteOfWeek(LocalDateTime.of(2024, 1, 1, 0, 0)));
+        assertEquals(SUNDAY + 23 * 60 + 59, OpeningIntervals.minuteOfWeek(LocalDateTime.of(2024, 1, 7, 23, 59)));
+    }
+}
@@ -0,0 +1,215 @@
+package com.restaurant.services;
+
+import co.elastic.clients.elasticsearch.core.GetResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.restaurant.domain.GeoLocation;
+import com.restaurant.domain.entities.Address;
+import com.restaurant.domain.entities.Restaurant;
+import com.restaurant.domain.events.RestaurantChangedEvent;
+import com.restaurant.exceptions.InvalidPatchException;
+import com.restaurant.services.impl.OptimisticRetry;
+import com.restaurant.services.impl.RestaurantFieldWriter;
+import com.restaurant.services.impl.RestaurantPatchServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.elasticsearch.client.elc.ElasticsearchTemplate;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.convert.MappingElasticsearchConverter;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.data.elasticsearch.core.mapping.SimpleElasticsearchMappingContext;
+import org.springframework.data.elasticsearch.core.query.SeqNoPrimaryTerm;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class RestaurantPatchServiceImplTest {
+
+    private static final String CURRENT = """
+            {"name": "Le Bistro",
+             "address": {"streetNumber": "12", "streetName": "Rue de Rivoli", "city": "Paris",
+                         "state": "IDF", "postalCode": "75001", "country": "France"}}
+            """;
+
+    @Mock
+    private ElasticsearchTemplate elasticsearchTemplate;
+
+    @Mock
+    private ElasticsearchOperations elasticsearchOperations;
+
+    @Mock
+    private RestaurantFieldWriter restaurantFieldWriter;
+
+    @Mock
+    private GeoLocationService geoLocationService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Spy
+    private OptimisticRetry optimisticRetry = new OptimisticRetry(new SimpleMeterRegistry(), 3, Duration.ofMillis(1), Duration.ofMillis(1));
+
+    @Spy
+    private Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    private RestaurantPatchServiceImpl restaurantPatchService;
+
+    @BeforeEach
+    void setUp() {
+        // Built by hand: ElasticsearchTemplate is itself an ElasticsearchOperations, which constructor injection
+        // cannot tell apart.
+        restaurantPatchService = new RestaurantPatchServiceImpl(elasticsearchTemplate, elasticsearchOperations,
+                restaurantFieldWriter, geoLocationService, optimisticRetry, validator, objectMapper, eventPublisher);
+
+        MappingElasticsearchConverter converter = new MappingElasticsearchConverter(new SimpleElasticsearchMappingContext());
+        converter.afterPropertiesSet();
+        lenient().when(elasticsearchOperations.getElasticsearchConverter()).thenReturn(converter);
+        lenient().when(elasticsearchOperations.getIndexCoordinatesFor(Restaurant.class))
+                .thenReturn(IndexCoordinates.of("restaurants"));
+    }
+
+    @Test
+    void patchRestaurant_plainFieldsAreWrittenWithoutReading() throws Exception {
+        restaurantPatchService.patchRestaurant("r1", patch("{\"cuisineType\": \"Thai\", \"priceRange\": 3}"));
+
+        Map<String, Object> set = captureWrite(null);
+        assertEquals("Thai", set.get("cuisineType"));
+        assertEquals(3, set.get("priceRange"));
+        assertFalse(set.containsKey("name"));
+        verify(elasticsearchTemplate, never()).execute(any());
+        verify(eventPublisher).publishEvent(new RestaurantChangedEvent("r1"));
+    }
+
+    @Test
+    void patchRestaurant_nullPhotoIdsRemovesPhotos() throws Exception {
+        restaurantPatchService.patchRestaurant("r1", patch("{\"photoIds\": null}"));
+
+        verify(restaurantFieldWriter).write(eq("r1"), anyMap(), eq(List.of("photos")), isNull());
+    }
+
+    @Test
+    void patchRestaurant_mergesAddressAndGeolocatesIt() throws Exception {
+        givenCurrent(CURRENT);
+        when(geoLocationService.geoLocate(any(Address.class))).thenReturn(new GeoLocation(45.76, 4.83));
+
+        restaurantPatchService.patchRestaurant("r1", patch("{\"address\": {\"city\": \"Lyon\", \"postalCode\": \"69001\"}}"));
+
+        ArgumentCaptor<Address> geolocated = ArgumentCaptor.forClass(Address.class);
+        verify(geoLocationService).geoLocate(geolocated.capture());
+        assertEquals("Lyon", geolocated.getValue().getCity());
+        assertEquals("Rue de Rivoli", geolocated.getValue().getStreetName());
+
+        Map<String, Object> set = captureWrite(new SeqNoPrimaryTerm(7, 1));
+        Map<?, ?> address = (Map<?, ?>) set.get("address");
+        assertEquals("Lyon", address.get("city"));
+        assertEquals("69001", address.get("postalCode"));
+        assertEquals("12", address.get("streetNumber"));
+        assertTrue(set.containsKey("geoLocation"));
+        assertTrue(set.get("suggest").toString().contains("Lyon"));
+    }
+
+    @Test
+    void patchRestaurant_nullAddressRemovesAddressAndGeolocation() throws Exception {
+        givenCurrent(CURRENT);
+
+        restaurantPatchService.patchRestaurant("r1", patch("{\"address\": null}"));
+
+        verify(restaurantFieldWriter).write(eq("r1"), anyMap(), eq(List.of("address", "geoLocation")),
+                eq(new SeqNoPrimaryTerm(7, 1)));
+        verifyNoInteractions(geoLocationService);
+    }
+
+    @Test
+    void patchRestaurant_nameKeepsCurrentCityInSuggest() throws Exception {
+        givenCurrent(CURRENT);
+
+        restaurantPatchService.patchRestaurant("r1", patch("{\"name\": \"Chez Nous\"}"));
+
+        Map<String, Object> set = captureWrite(new SeqNoPrimaryTerm(7, 1));
+        assertEquals("Chez Nous", set.get("name"));
+        assertTrue(set.get("suggest").toString().contains("Chez Nous"));
+        assertTrue(set.get("suggest").toString().contains("Paris"));
+        verifyNoInteractions(geoLocationService);
+    }
+
+    @Test
+    void patchRestaurant_rejectsUnknownAndInvalidFields() {
+        InvalidPatchException exception = assertThrows(InvalidPatchException.class, () ->
+                restaurantPatchService.patchRestaurant("r1", patch("{\"rating\": 5, \"priceRange\": 9}")));
+
+        assertTrue(exception.getMessage().contains("rating: unknown field"));
+        assertTrue(exception.getMessage().contains("priceRange: Price range must be between 0 and 4"));
+        verifyNoInteractions(restaurantFieldWriter, eventPublisher);
+    }
+
+    @Test
+    void patchRestaurant_rejectsInvalidNestedField() {
+        assertThrows(InvalidPatchException.class, () ->
+                restaurantPatchService.patchRestaurant("r1", patch("{\"address\": {\"streetNumber\": \"abc!\"}}")));
+
+        verifyNoInteractions(restaurantFieldWriter, elasticsearchTemplate);
+    }
+
+    @Test
+    void patchRestaurant_rereadsAfterVersionConflict() throws Exception {
+        givenCurrent(CURRENT);
+        when(restaurantFieldWriter.write(eq("r1"), anyMap(), anyCollection(), any(SeqNoPrimaryTerm.class)))
+                .thenThrow(new OptimisticLockingFailureException("conflict"))
+                .thenReturn(new SeqNoPrimaryTerm(8, 1));
+
+        restaurantPatchService.patchRestaurant("r1", patch("{\"name\": \"Chez Nous\"}"));
+
+        verify(elasticsearchTemplate, times(2)).execute(any());
+        verify(restaurantFieldWriter, times(2)).write(eq("r1"), anyMap(), anyCollection(), any(SeqNoPrimaryTerm.class));
+        verify(eventPublisher).publishEvent(new RestaurantChangedEvent("r1"));
+    }
+
+    @Test
+    void patchRestaurant_emptyPatchDoesNothing() throws Exception {
+        restaurantPatchService.patchRestaurant("r1", patch("{}"));
+
+        verifyNoInteractions(restaurantFieldWriter, eventPublisher);
+    }
+
+    private void givenCurrent(String source) throws Exception {
+        ObjectNode node = patch(source);
+        GetResponse<ObjectNode> response = GetResponse.of(g -> g
+                .index("restaurants")
+                .id("r1")
+                .found(true)
+                .seqNo(7L)
+                .primaryTerm(1L)
+                .source(node));
+        when(elasticsearchTemplate.<GetResponse<ObjectNode>>execute(any())).thenReturn(response);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> captureWrite(SeqNoPrimaryTerm basedOn) {
+        ArgumentCaptor<Map<String, Object>> set = ArgumentCaptor.forClass(Map.class);
+        verify(restaurantFieldWriter).write(eq("r1"), set.capture(), any(Collection.class), eq(basedOn));
+        return set.getValue();
+    }
+
+    private ObjectNode patch(String json) throws Exception {
+        return (ObjectNode) objectMapper.readTree(json);
+    }
+}
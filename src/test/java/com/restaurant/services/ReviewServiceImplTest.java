@@ -1,24 +1,51 @@
 package com.restaurant.services;
 
+import com.restaurant.domain.RestaurantHeader;
 import com.restaurant.domain.ReviewCreateUpdateRequest;
+import com.restaurant.domain.SearchCursor;
+import com.restaurant.domain.dtos.CursorPage;
+import com.restaurant.domain.dtos.ReviewWithRestaurant;
+import com.restaurant.domain.events.RestaurantChangedEvent;
+import com.restaurant.domain.entities.Photo;
 import com.restaurant.domain.entities.Restaurant;
 import com.restaurant.domain.entities.Review;
 import com.restaurant.domain.entities.User;
+import com.restaurant.exceptions.InvalidSortPropertyException;
 import com.restaurant.exceptions.RestaurantNotFoundException;
-import com.restaurant.repositories.RestaurantRepository;
+import com.restaurant.exceptions.ReviewNotAllowedException;
+import com.restaurant.repositories.ReviewRepository;
+import com.restaurant.services.impl.OptimisticRetry;
 import com.restaurant.services.impl.ReviewServiceImpl;
+import com.restaurant.services.impl.WriteBlockRetry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
-
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.elasticsearch.UncategorizedElasticsearchException;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.MultiGetItem;
+import org.springframework.data.elasticsearch.core.SearchHit;
+import org.springframework.data.elasticsearch.core.SearchHits;
+import org.springframework.data.elasticsearch.core.query.Query;
+import org.springframework.data.elasticsearch.core.query.UpdateQuery;
+
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Arrays;
-import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -28,19 +55,31 @@ import static org.mockito.Mockito.*;
 public class ReviewServiceImplTest {
 
     @Mock
-    private RestaurantRepository restaurantRepository;
+    private RestaurantService restaurantService;
+
+    @Mock
+    private ReviewRepository reviewRepository;
+
+    @Mock
+    private ElasticsearchOperations elasticsearchOperations;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Spy
+    private OptimisticRetry optimisticRetry = new OptimisticRetry(new SimpleMeterRegistry(), 3, Duration.ofMillis(1), Duration.ofMillis(1));
+
+    @Spy
+    private WriteBlockRetry writeBlockRetry = new WriteBlockRetry(new SimpleMeterRegistry(), Duration.ofMillis(50), Duration.ofMillis(1), Duration.ofMillis(1));
 
     @InjectMocks
     private ReviewServiceImpl reviewService;
 
-    private Restaurant restaurant;
     private User author;
     private ReviewCreateUpdateRequest reviewRequest;
 
     @BeforeEach
     void setUp() {
-        restaurant = new Restaurant();
-        restaurant.setId("restaurantId");
         author = new User();
         author.setId("authorId");
 
@@ -50,6 +89,12 @@ public class ReviewServiceImplTest {
         reviewRequest.setPhotoIds(Arrays.asList("photo1", "photo2"));
     }
 
+    private Map<String, Object> capturedRatingUpdate() {
+        ArgumentCaptor<UpdateQuery> updateQuery = ArgumentCaptor.forClass(UpdateQuery.class);
+        verify(elasticsearchOperations).update(updateQuery.capture(), any());
+        assertEquals("restaurantId", updateQuery.getValue().getId());
+        return updateQuery.getValue().getParams();
+    }
 
     @Test
     void createAnonymousReview_success() {
@@ -59,12 +104,8 @@ public class ReviewServiceImplTest {
         reviewRequest.setRating(5);
         reviewRequest.setContent("Great food!");
 
-        Restaurant restaurant = new Restaurant();
-        restaurant.setId(restaurantId);
-        restaurant.setName("Test Restaurant");
-
-        when(restaurantRepository.findById(restaurantId)).thenReturn(Optional.of(restaurant));
-        when(restaurantRepository.save(any())).thenReturn(restaurant);
+        when(restaurantService.getRestaurantById(restaurantId)).thenReturn(Optional.of(new Restaurant()));
+        when(reviewRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
 
         // When
         Review createdReview = reviewService.createAnonymousReview(restaurantId, reviewRequest);
@@ -73,9 +114,11 @@ public class ReviewServiceImplTest {
         assertNotNull(createdReview);
         assertEquals(reviewRequest.getRating(), createdReview.getRating());
         assertEquals(reviewRequest.getContent(), createdReview.getContent());
+        assertEquals(restaurantId, createdReview.getRestaurantId());
         assertNull(createdReview.getWrittenBy());
 
-        verify(restaurantRepository, times(1)).save(restaurant);
+        verify(reviewRepository, times(1)).save(createdReview);
+        verify(elasticsearchOperations, never()).save(any(Restaurant.class));
     }
 
     @Test
@@ -86,17 +129,18 @@ public class ReviewServiceImplTest {
         reviewRequest.setRating(5);
         reviewRequest.setContent("Great food!");
 
-        when(restaurantRepository.findById(restaurantId)).thenReturn(Optional.empty());
+        when(restaurantService.getRestaurantById(restaurantId)).thenReturn(Optional.empty());
 
         // When & Then
         assertThrows(RestaurantNotFoundException.class, () -> reviewService.createAnonymousReview(restaurantId, reviewRequest));
-        verify(restaurantRepository, never()).save(any(Restaurant.class));
+        verify(reviewRepository, never()).save(any(Review.class));
     }
 
     @Test
     void createReviewWithAuthor() {
-        when(restaurantRepository.findById(anyString())).thenReturn(Optional.of(restaurant));
-        when(restaurantRepository.save(any())).thenReturn(restaurant);
+        when(restaurantService.getRestaurantById(anyString())).thenReturn(Optional.of(new Restaurant()));
+        when(reviewRepository.existsByRestaurantIdAndWrittenById("restaurantId", "authorId")).thenReturn(false);
+        when(reviewRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
 
         Review review = reviewService.createReviewWithAuthor(author, "restaurantId", reviewRequest);
 
@@ -107,6 +151,37 @@ public class ReviewServiceImplTest {
         assertNotNull(review.getDatePosted());
         assertNotNull(review.getLastEdited());
         assertEquals(author, review.getWrittenBy());
+
+        Map<String, Object> ratingUpdate = capturedRatingUpdate();
+        assertEquals(5L, ratingUpdate.get("sumDelta"));
+        assertEquals(1, ratingUpdate.get("countDelta"));
+    }
+
+    @Test
+    void createReviewWithAuthor_ratingWaitsOutWriteBlock() {
+        when(restaurantService.getRestaurantById(anyString())).thenReturn(Optional.of(new Restaurant()));
+        when(reviewRepository.existsByRestaurantIdAndWrittenById("restaurantId", "authorId")).thenReturn(false);
+        when(reviewRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(elasticsearchOperations.update(any(UpdateQuery.class), any()))
+                .thenThrow(new UncategorizedElasticsearchException(
+                        "[es/update] failed: [cluster_block_exception] index [restaurants] blocked by: [FORBIDDEN/8/index write (api)];",
+                        403, null, null))
+                .thenReturn(null);
+
+        reviewService.createReviewWithAuthor(author, "restaurantId", reviewRequest);
+
+        verify(elasticsearchOperations, times(2)).update(any(UpdateQuery.class), any());
+        verify(reviewRepository, times(1)).save(any());
+    }
+
+    @Test
+    void createReviewWithAuthor_alreadyReviewed() {
+        when(restaurantService.getRestaurantById(anyString())).thenReturn(Optional.of(new Restaurant()));
+        when(reviewRepository.existsByRestaurantIdAndWrittenById("restaurantId", "authorId")).thenReturn(true);
+
+        assertThrows(ReviewNotAllowedException.class,
+                () -> reviewService.createReviewWithAuthor(author, "restaurantId", reviewRequest));
+        verify(reviewRepository, never()).save(any(Review.class));
     }
 
     @Test
@@ -115,21 +190,36 @@ public class ReviewServiceImplTest {
 
                 .datePosted(LocalDateTime.now())
                 .build();
-        restaurant.setReviews(Arrays.asList(review, review));
-        when(restaurantRepository.findById(anyString())).thenReturn(Optional.of(restaurant));
+        when(restaurantService.getRestaurantById(anyString())).thenReturn(Optional.of(new Restaurant()));
+        when(reviewRepository.findByRestaurantId(eq("restaurantId"), any(Pageable.class)))
+                .thenAnswer(invocation -> new PageImpl<>(Arrays.asList(review, review), invocation.getArgument(1), 2));
 
         Page<Review> reviews = reviewService.listReviews("restaurantId", PageRequest.of(0, 10));
 
         assertNotNull(reviews);
         assertEquals(2, reviews.getTotalElements());
+
+        ArgumentCaptor<Pageable> pageable = ArgumentCaptor.forClass(Pageable.class);
+        verify(reviewRepository).findByRestaurantId(eq("restaurantId"), pageable.capture());
+        assertEquals(Sort.by(Sort.Order.desc("datePosted"), Sort.Order.asc("id")), pageable.getValue().getSort());
+    }
+
+    @Test
+    void listReviews_invalidSortProperty() {
+        when(restaurantService.getRestaurantById(anyString())).thenReturn(Optional.of(new Restaurant()));
+
+        assertThrows(InvalidSortPropertyException.class,
+                () -> reviewService.listReviews("restaurantId", PageRequest.of(0, 10, Sort.by("content"))));
+        verify(reviewRepository, never()).findByRestaurantId(anyString(), any(Pageable.class));
     }
 
     @Test
     void getReview() {
         Review review = new Review();
         review.setId("reviewId");
-        restaurant.setReviews(Collections.singletonList(review));
-        when(restaurantRepository.findById(anyString())).thenReturn(Optional.of(restaurant));
+        review.setRestaurantId("restaurantId");
+        when(restaurantService.getRestaurantById(anyString())).thenReturn(Optional.of(new Restaurant()));
+        when(reviewRepository.findById("reviewId")).thenReturn(Optional.of(review));
 
         Optional<Review> foundReview = reviewService.getReview("restaurantId", "reviewId");
 
@@ -137,14 +227,28 @@ public class ReviewServiceImplTest {
         assertEquals("reviewId", foundReview.get().getId());
     }
 
+    @Test
+    void getReview_belongsToAnotherRestaurant() {
+        Review review = new Review();
+        review.setId("reviewId");
+        review.setRestaurantId("otherRestaurantId");
+        when(restaurantService.getRestaurantById(anyString())).thenReturn(Optional.of(new Restaurant()));
+        when(reviewRepository.findById("reviewId")).thenReturn(Optional.of(review));
+
+        assertTrue(reviewService.getReview("restaurantId", "reviewId").isEmpty());
+    }
+
     @Test
     void updateReview() {
         Review existingReview = new Review();
         existingReview.setId("reviewId");
+        existingReview.setRestaurantId("restaurantId");
         existingReview.setWrittenBy(author);
+        existingReview.setRating(2);
         existingReview.setDatePosted(LocalDateTime.now());
-        restaurant.setReviews(Collections.singletonList(existingReview));
-        when(restaurantRepository.findById(anyString())).thenReturn(Optional.of(restaurant));
+        when(restaurantService.getRestaurantById(anyString())).thenReturn(Optional.of(new Restaurant()));
+        when(reviewRepository.findById("reviewId")).thenReturn(Optional.of(existingReview));
+        when(reviewRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
 
         Review updatedReview = reviewService.updateReview(author, "restaurantId", "reviewId", reviewRequest);
 
@@ -152,40 +256,117 @@ public class ReviewServiceImplTest {
         assertEquals(reviewRequest.getContent(), updatedReview.getContent());
         assertEquals(reviewRequest.getRating(), updatedReview.getRating());
         assertNotNull(updatedReview.getLastEdited());
+
+        Map<String, Object> ratingUpdate = capturedRatingUpdate();
+        assertEquals(3L, ratingUpdate.get("sumDelta"));
+        assertEquals(0, ratingUpdate.get("countDelta"));
     }
 
     @Test
     void deleteReview() {
         Review review = new Review();
         review.setId("reviewId");
-        restaurant.setReviews(Collections.singletonList(review));
-        when(restaurantRepository.findById(anyString())).thenReturn(Optional.of(restaurant));
+        review.setRestaurantId("restaurantId");
+        review.setRating(4);
+        when(restaurantService.getRestaurantById(anyString())).thenReturn(Optional.of(new Restaurant()));
+        when(reviewRepository.findById("reviewId")).thenReturn(Optional.of(review));
+
+        when(reviewRepository.deleteIfUnchanged(review)).thenReturn(true);
 
         reviewService.deleteReview("restaurantId", "reviewId");
 
-        assertTrue(restaurant.getReviews().isEmpty());
+        Map<String, Object> ratingUpdate = capturedRatingUpdate();
+        assertEquals(-4L, ratingUpdate.get("sumDelta"));
+        assertEquals(-1, ratingUpdate.get("countDelta"));
+        verify(eventPublisher).publishEvent(new RestaurantChangedEvent("restaurantId"));
     }
 
     @Test
-    void getRestaurantOrThrow() {
-        when(restaurantRepository.findById(anyString())).thenReturn(Optional.of(restaurant));
-
-        Restaurant foundRestaurant = reviewService.getRestaurantOrThrow("restaurantId");
+    void updateReview_retriesOnVersionConflict() {
+        when(restaurantService.getRestaurantById(anyString())).thenReturn(Optional.of(new Restaurant()));
+        when(reviewRepository.findById("reviewId"))
+                .thenReturn(Optional.of(authoredReview(2)))
+                .thenReturn(Optional.of(authoredReview(4)));
+        when(reviewRepository.save(any()))
+                .thenThrow(new OptimisticLockingFailureException("version conflict"))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        reviewService.updateReview(author, "restaurantId", "reviewId", reviewRequest);
+
+        verify(reviewRepository, times(2)).save(any());
+        Map<String, Object> ratingUpdate = capturedRatingUpdate();
+        assertEquals(1L, ratingUpdate.get("sumDelta"));
+    }
 
-        assertNotNull(foundRestaurant);
-        assertEquals("restaurantId", foundRestaurant.getId());
+    @Test
+    void updateReview_ratingFailureDoesNotRepeatTheEdit() {
+        when(restaurantService.getRestaurantById(anyString())).thenReturn(Optional.of(new Restaurant()));
+        when(reviewRepository.findById("reviewId")).thenReturn(Optional.of(authoredReview(2)));
+        when(reviewRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(elasticsearchOperations.update(any(UpdateQuery.class), any()))
+                .thenThrow(new OptimisticLockingFailureException("version conflict"));
+
+        assertThrows(OptimisticLockingFailureException.class,
+                () -> reviewService.updateReview(author, "restaurantId", "reviewId", reviewRequest));
+
+        verify(reviewRepository).findById("reviewId");
+        verify(reviewRepository).save(any());
+        assertEquals(3L, capturedRatingUpdate().get("sumDelta"));
     }
 
     @Test
-    void updateRestaurantAverageRating() {
-        Review review1 = new Review();
-        review1.setRating(5);
-        Review review2 = new Review();
-        review2.setRating(4);
-        restaurant.setReviews(Arrays.asList(review1, review2));
+    void deleteReview_deletedConcurrently() {
+        when(restaurantService.getRestaurantById(anyString())).thenReturn(Optional.of(new Restaurant()));
+        Review review = authoredReview(4);
+        when(reviewRepository.findById("reviewId"))
+                .thenReturn(Optional.of(review))
+                .thenReturn(Optional.empty());
+        when(reviewRepository.deleteIfUnchanged(review))
+                .thenThrow(new OptimisticLockingFailureException("version conflict"));
+
+        reviewService.deleteReview("restaurantId", "reviewId");
+
+        verify(elasticsearchOperations, never()).update(any(UpdateQuery.class), any());
+    }
 
-        reviewService.updateRestaurantAverageRating(restaurant);
+    private Review authoredReview(int rating) {
+        Review review = new Review();
+        review.setId("reviewId");
+        review.setRestaurantId("restaurantId");
+        review.setWrittenBy(author);
+        review.setRating(rating);
+        review.setDatePosted(LocalDateTime.now());
+        return review;
+    }
 
-        assertEquals(4.5f, restaurant.getAverageRating());
+    @Test
+    @SuppressWarnings("unchecked")
+    void listUserReviews_returnsCursorWhenMoreResultsExist() {
+        Review first = authoredReview(4);
+        Review second = authoredReview(5);
+        SearchHit<Review> firstHit = mock(SearchHit.class);
+        SearchHit<Review> secondHit = mock(SearchHit.class);
+        when(firstHit.getContent()).thenReturn(first);
+        when(firstHit.getSortValues()).thenReturn(List.of(1700000000000L, "reviewId"));
+        SearchHits<Review> searchHits = mock(SearchHits.class);
+        when(searchHits.getSearchHits()).thenReturn(List.of(firstHit, secondHit));
+        when(elasticsearchOperations.search(any(Query.class), eq(Review.class))).thenReturn(searchHits);
+
+        RestaurantHeader.Stored stored = new RestaurantHeader.Stored();
+        stored.setId("restaurantId");
+        stored.setName("Dar El Jeld");
+        stored.setPhotos(Photo.buildPhotos(List.of("first.jpg", "second.jpg")));
+        when(elasticsearchOperations.multiGet(any(Query.class), eq(RestaurantHeader.Stored.class), any()))
+                .thenReturn(List.of(MultiGetItem.of(stored, null)));
+
+        CursorPage<ReviewWithRestaurant> page = reviewService.listUserReviews(author, null, 1);
+
+        assertEquals(1, page.getContent().size());
+        assertSame(first, page.getContent().get(0).getReview());
+        RestaurantHeader header = page.getContent().get(0).getRestaurant();
+        assertEquals("restaurantId", header.getId());
+        assertEquals("Dar El Jeld", header.getName());
+        assertEquals("first.jpg", header.getPhoto().getUrl());
+        assertEquals(List.of(1700000000000L, "reviewId"), SearchCursor.decode(page.getNextCursor()).searchAfter());
     }
 }
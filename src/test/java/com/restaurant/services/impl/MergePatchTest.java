@@ -0,0 +1,65 @@
+package com.restaurant.services.impl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MergePatchTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void replacesAndAddsMembers() throws Exception {
+        assertMerged("{\"a\":\"c\",\"b\":\"d\"}", "{\"a\":\"b\"}", "{\"a\":\"c\",\"b\":\"d\"}");
+    }
+
+    @Test
+    void nullMemberRemovesIt() throws Exception {
+        assertMerged("{\"b\":\"c\"}", "{\"a\":\"b\",\"b\":\"c\"}", "{\"a\":null}");
+        assertMerged("{\"b\":\"c\"}", "{\"b\":\"c\"}", "{\"a\":null}");
+    }
+
+    @Test
+    void mergesNestedObjects() throws Exception {
+        assertMerged(
+                "{\"title\":\"Hello!\",\"author\":{\"givenName\":\"John\"},\"tags\":[\"example\"],\"content\":\"x\"}",
+                "{\"title\":\"Goodbye!\",\"author\":{\"givenName\":\"John\",\"familyName\":\"Doe\"},\"tags\":[\"example\",\"sample\"],\"content\":\"x\"}",
+                "{\"title\":\"Hello!\",\"author\":{\"familyName\":null},\"tags\":[\"example\"]}");
+    }
+
+    @Test
+    void replacesArraysWhole() throws Exception {
+        assertMerged("{\"a\":[1]}", "{\"a\":[{\"b\":\"c\"}]}", "{\"a\":[1]}");
+    }
+
+    @Test
+    void nonObjectPatchReplacesTarget() throws Exception {
+        assertMerged("[\"c\"]", "{\"a\":\"b\"}", "[\"c\"]");
+        assertMerged("\"bar\"", "{\"a\":\"foo\"}", "\"bar\"");
+        assertMerged("{\"a\":{\"bb\":{}}}", "[\"a\"]", "{\"a\":{\"bb\":{\"ccc\":null}}}");
+    }
+
+    @Test
+    void missingTargetStartsFromEmptyObject() throws Exception {
+        assertEquals(json("{\"a\":\"b\"}"), RestaurantPatchServiceImpl.mergePatch(null, json("{\"a\":\"b\",\"c\":null}")));
+    }
+
+    @Test
+    void leavesTargetUnchanged() throws Exception {
+        JsonNode target = json("{\"a\":{\"b\":\"c\"},\"d\":\"e\"}");
+
+        RestaurantPatchServiceImpl.mergePatch(target, json("{\"a\":{\"b\":\"x\"},\"d\":null}"));
+
+        assertEquals(json("{\"a\":{\"b\":\"c\"},\"d\":\"e\"}"), target);
+    }
+
+    private void assertMerged(String expected, String target, String patch) throws Exception {
+        assertEquals(json(expected), RestaurantPatchServiceImpl.mergePatch(json(target), json(patch)));
+    }
+
+    private JsonNode json(String value) throws Exception {
+        return objectMapper.readTree(value);
+    }
+}
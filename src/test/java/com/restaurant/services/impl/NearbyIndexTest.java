@@ -0,0 +1,117 @@
+package com.restaurant.services.impl;
+
+import com.restaurant.domain.RestaurantSearchCriteria;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.elasticsearch.core.geo.GeoPoint;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NearbyIndexTest {
+
+    private static final PageRequest FIRST_PAGE = PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "averageRating"));
+
+    private final NearbyIndex index = new NearbyIndex(new SimpleMeterRegistry(), true);
+
+    @BeforeEach
+    void load() {
+        index.replaceAll(List.of(
+                restaurant("near", 4.0f, 2, "Tunisian", 36.800, 10.180),
+                restaurant("close", 4.0f, 1, "Italian", 36.801, 10.181),
+                restaurant("best", 4.8f, 3, "Tunisian", 36.820, 10.200),
+                restaurant("unrated", null, 2, "Tunisian", 36.800, 10.181),
+                restaurant("far", 5.0f, 2, "Tunisian", 37.500, 11.000)
+        ));
+    }
+
+    @Test
+    void declinesUntilLoaded() {
+        NearbyIndex empty = new NearbyIndex(new SimpleMeterRegistry(), true);
+
+        assertTrue(empty.search(nearMe().build(), FIRST_PAGE).isEmpty());
+    }
+
+    @Test
+    void ordersByRatingThenDistanceWithUnratedLast() {
+        Page<String> page = index.search(nearMe().build(), FIRST_PAGE).orElseThrow();
+
+        assertEquals(List.of("best", "near", "close", "unrated"), page.getContent());
+        assertEquals(4, page.getTotalElements());
+    }
+
+    @Test
+    void pagesThroughTheMatches() {
+        Page<String> page = index.search(nearMe().build(), PageRequest.of(1, 3, FIRST_PAGE.getSort())).orElseThrow();
+
+        assertEquals(List.of("unrated"), page.getContent());
+        assertEquals(4, page.getTotalElements());
+    }
+
+    @Test
+    void filtersByRatingPriceAndCuisine() {
+        RestaurantSearchCriteria criteria = nearMe()
+                .minRating(4.0f)
+                .priceRanges(List.of("1", "2"))
+                .cuisineTypes(List.of("Tunisian"))
+                .build();
+
+        assertEquals(List.of("near"), index.search(criteria, FIRST_PAGE).orElseThrow().getContent());
+    }
+
+    @Test
+    void declinesFiltersItDoesNotHold() {
+        assertTrue(index.search(nearMe().features(List.of("wifi")).build(), FIRST_PAGE).isEmpty());
+        assertTrue(index.search(nearMe().filterOpenNow(true).build(), FIRST_PAGE).isEmpty());
+        assertTrue(index.search(nearMe().priceRanges(List.of("cheap")).build(), FIRST_PAGE).isEmpty());
+        assertTrue(index.search(nearMe().build(), PageRequest.of(0, 10, Sort.by("name"))).isEmpty());
+    }
+
+    @Test
+    void followsMovedAndRemovedRestaurants() {
+        index.apply(
+                List.of(restaurant("far", 5.0f, 2, "Tunisian", 36.802, 10.182)),
+                List.of("best", "unrated")
+        );
+
+        Optional<Page<String>> page = index.search(nearMe().build(), FIRST_PAGE);
+
+        assertEquals(List.of("far", "near", "close"), page.orElseThrow().getContent());
+    }
+
+    @Test
+    void dropsRestaurantsThatLoseTheirLocation() {
+        ReplicatedRestaurant unlocated = restaurant("close", 4.0f, 1, "Italian", 0, 0);
+        unlocated.setGeoLocation(null);
+
+        index.apply(List.of(unlocated), List.of());
+
+        assertEquals(List.of("best", "near", "unrated"),
+                index.search(nearMe().build(), FIRST_PAGE).orElseThrow().getContent());
+    }
+
+    private static RestaurantSearchCriteria.RestaurantSearchCriteriaBuilder nearMe() {
+        return RestaurantSearchCriteria.builder()
+                .latitude(36.800)
+                .longitude(10.180)
+                .maxDistanceKm(5.0);
+    }
+
+    private static ReplicatedRestaurant restaurant(String id, Float rating, Integer priceRange, String cuisineType,
+                                                   double latitude, double longitude) {
+        ReplicatedRestaurant restaurant = new ReplicatedRestaurant();
+        restaurant.setId(id);
+        restaurant.setAverageRating(rating);
+        restaurant.setPriceRange(priceRange);
+        restaurant.setCuisineType(cuisineType);
+        restaurant.setGeoLocation(new GeoPoint(latitude, longitude));
+        return restaurant;
+    }
+}
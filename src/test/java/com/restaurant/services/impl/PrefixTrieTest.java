@@ -0,0 +1,46 @@
+package com.restaurant.services.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PrefixTrieTest {
+
+    private final PrefixTrie<String> trie = PrefixTrie.of(
+            List.of("Crêperie", "Café", "Cafétéria", "Free Wi-Fi", "Couscous"),
+            value -> List.of(value, value.substring(value.indexOf(' ') + 1)),
+            Comparator.naturalOrder(),
+            3
+    );
+
+    @Test
+    void findsValuesByFoldedPrefixInRankOrder() {
+        assertEquals(List.of("Café", "Cafétéria"), trie.find("CAFE", 10));
+        assertEquals(List.of("Crêperie"), trie.find("crep", 10));
+    }
+
+    @Test
+    void capsResultsAtLimitAndMaxResults() {
+        assertEquals(List.of("Café"), trie.find("c", 1));
+        assertEquals(List.of("Café", "Cafétéria", "Couscous"), trie.find("c", 10));
+    }
+
+    @Test
+    void findsValueByAnyKeyOnce() {
+        assertEquals(List.of("Free Wi-Fi"), trie.find("wi", 10));
+        assertEquals(List.of("Free Wi-Fi"), trie.find("f", 10));
+    }
+
+    @Test
+    void returnsNothingForUnknownPrefix() {
+        assertEquals(List.of(), trie.find("pizza", 10));
+    }
+
+    @Test
+    void foldsCaseAccentsAndWhitespace() {
+        assertEquals("cafe creme", PrefixTrie.fold("  Café \t Crème "));
+    }
+}
@@ -0,0 +1,162 @@
+package com.restaurant.services.impl;
+
+import com.restaurant.domain.entities.MinuteRange;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.elasticsearch.core.geo.GeoPoint;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReplicaSnapshotFileTest {
+
+    @TempDir
+    Path directory;
+
+    private ReplicaSnapshotFile file;
+
+    @AfterEach
+    void close() {
+        if (file != null) {
+            file.close();
+        }
+    }
+
+    @Test
+    void readsBackARewrite() {
+        file = open();
+        List<ReplicatedRestaurant> restaurants = List.of(restaurant("a", "Tunisian"), restaurant("b", null));
+
+        file.rewrite(restaurants, 1000L);
+
+        ReplicaSnapshotFile.Snapshot snapshot = open().read().orElseThrow();
+        assertEquals(restaurants, snapshot.restaurants());
+        assertEquals(1000L, snapshot.watermark());
+    }
+
+    @Test
+    void appliesAppendedBatchesInOrder() {
+        file = open();
+        file.rewrite(List.of(restaurant("a", "Tunisian"), restaurant("b", "Italian")), 1000L);
+
+        file.append(List.of(restaurant("c", "Tunisian")), List.of("a"), 2000L);
+        ReplicatedRestaurant renamed = restaurant("b", "Thai");
+        file.append(List.of(renamed), List.of(), 3000L);
+
+        ReplicaSnapshotFile.Snapshot snapshot = open().read().orElseThrow();
+        assertEquals(List.of(renamed, restaurant("c", "Tunisian")), sortedById(snapshot.restaurants()));
+        assertEquals(3000L, snapshot.watermark());
+    }
+
+    @Test
+    void rollsBackABatchTornByACrash() throws IOException {
+        file = open();
+        file.rewrite(List.of(restaurant("a", "Tunisian")), 1000L);
+        file.append(List.of(restaurant("b", "Italian")), List.of(), 2000L);
+        file.append(List.of(restaurant("c", "Thai")), List.of("a"), 3000L);
+
+        // Cut the second batch short of its commit record.
+        try (RandomAccessFile raw = new RandomAccessFile(path().toFile(), "rw")) {
+            raw.setLength(raw.length() - 3);
+        }
+
+        ReplicaSnapshotFile.Snapshot snapshot = open().read().orElseThrow();
+        assertEquals(List.of(restaurant("a", "Tunisian"), restaurant("b", "Italian")), sortedById(snapshot.restaurants()));
+        assertEquals(2000L, snapshot.watermark());
+    }
+
+    @Test
+    void rollsBackABatchWithADamagedRecord() throws IOException {
+        file = open();
+        file.rewrite(List.of(restaurant("a", "Tunisian")), 1000L);
+        long committed = Files.size(path());
+        file.append(List.of(restaurant("b", "Italian")), List.of(), 2000L);
+
+        try (RandomAccessFile raw = new RandomAccessFile(path().toFile(), "rw")) {
+            // A byte inside the payload of the batch's first record, past its length and checksum.
+            long payload = committed + 8 + 4;
+            raw.seek(payload);
+            int original = raw.read();
+            raw.seek(payload);
+            raw.write(original ^ 0xFF);
+        }
+
+        ReplicaSnapshotFile.Snapshot snapshot = open().read().orElseThrow();
+        assertEquals(List.of(restaurant("a", "Tunisian")), snapshot.restaurants());
+        assertEquals(1000L, snapshot.watermark());
+    }
+
+    @Test
+    void compactsOnceAppendsOutgrowTheLastRewrite() throws IOException {
+        file = open();
+        file.rewrite(List.of(restaurant("a", "Tunisian")), 1000L);
+
+        // The same 1000 rows appended again and again: the file grows, the catalog does not.
+        List<ReplicatedRestaurant> batch = IntStream.range(0, 1000)
+                .mapToObj(i -> restaurant("r" + i, "Cuisine " + i % 10))
+                .toList();
+        long watermark = 1000L;
+        long largest = 0;
+        while (Files.size(path()) >= largest) {
+            largest = Files.size(path());
+            file.append(batch, List.of(), ++watermark);
+        }
+
+        assertTrue(Files.size(path()) < largest / 2);
+        ReplicaSnapshotFile.Snapshot snapshot = open().read().orElseThrow();
+        assertEquals(1001, snapshot.restaurants().size());
+        assertEquals(watermark, snapshot.watermark());
+    }
+
+    @Test
+    void ignoresAppendsBeforeTheFirstRewrite() {
+        file = open();
+
+        file.append(List.of(restaurant("a", "Tunisian")), List.of(), 1000L);
+
+        assertTrue(open().read().isEmpty());
+    }
+
+    @Test
+    void readsNothingWhenDisabled() {
+        file = open();
+        file.rewrite(List.of(restaurant("a", "Tunisian")), 1000L);
+
+        assertTrue(new ReplicaSnapshotFile(false, path()).read().isEmpty());
+    }
+
+    private ReplicaSnapshotFile open() {
+        return new ReplicaSnapshotFile(true, path());
+    }
+
+    private Path path() {
+        return directory.resolve("replica.snapshot");
+    }
+
+    private static List<ReplicatedRestaurant> sortedById(List<ReplicatedRestaurant> restaurants) {
+        List<ReplicatedRestaurant> sorted = new ArrayList<>(restaurants);
+        sorted.sort((a, b) -> a.getId().compareTo(b.getId()));
+        return sorted;
+    }
+
+    private static ReplicatedRestaurant restaurant(String id, String cuisineType) {
+        ReplicatedRestaurant restaurant = new ReplicatedRestaurant();
+        restaurant.setId(id);
+        restaurant.setCuisineType(cuisineType);
+        restaurant.setGeoLocation(new GeoPoint(36.8, 10.18));
+        restaurant.setAverageRating(4.5f);
+        restaurant.setPriceRange(2);
+        restaurant.setFeatures(List.of("terrace", "wifi"));
+        restaurant.setOpenIntervals(List.of(new MinuteRange(600, 900)));
+        return restaurant;
+    }
+}
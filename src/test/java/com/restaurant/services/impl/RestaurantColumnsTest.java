@@ -0,0 +1,240 @@
+package com.restaurant.services.impl;
+
+import com.restaurant.domain.entities.MinuteRange;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.elasticsearch.core.geo.GeoPoint;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RestaurantColumnsTest {
+
+    private final RestaurantColumns columns = RestaurantColumns.of(List.of(
+            restaurant("a", 4.5f, 2, "Tunisian", List.of("terrace"), 36.80, 10.18, new MinuteRange(600, 900)),
+            restaurant("b", 3.0f, 3, "Italian", List.of("wifi", "terrace"), 36.81, 10.19, new MinuteRange(1080, 1380)),
+            restaurant("c", null, 2, null, null, 36.90, 10.30),
+            restaurant("d", 4.5f, 1, "Tunisian", List.of("wifi"), null, null, new MinuteRange(0, 10079))
+    ));
+
+    @Test
+    void matchesEverythingWithoutFilters() {
+        RestaurantColumns.Result result = columns.scan(scan().build());
+
+        assertEquals(List.of("a", "d", "b", "c"), result.ids());
+        assertEquals(4, result.total());
+    }
+
+    @Test
+    void sortsRowsWithoutRatingLastInEitherDirection() {
+        assertEquals(List.of("b", "a", "d", "c"), columns.scan(scan().direction(Sort.Direction.ASC).build()).ids());
+    }
+
+    @Test
+    void filtersByMinRatingSkippingUnratedRows() {
+        assertEquals(List.of("a", "d"), columns.scan(scan().minRating(4.0f).build()).ids());
+    }
+
+    @Test
+    void filtersByAnyOfThePriceRanges() {
+        assertEquals(List.of("a", "d", "c"), columns.scan(scan().priceRanges(Set.of(1, 2)).build()).ids());
+    }
+
+    @Test
+    void filtersByCuisineAndMatchesNothingForUnknownCuisines() {
+        assertEquals(List.of("a", "d"), columns.scan(scan().cuisineTypes(List.of("Tunisian", "Thai")).build()).ids());
+        assertEquals(List.of(), columns.scan(scan().cuisineTypes(List.of("Thai")).build()).ids());
+    }
+
+    @Test
+    void filtersByAnyOfTheFeatures() {
+        assertEquals(List.of("d", "b"), columns.scan(scan().features(List.of("wifi")).build()).ids());
+        assertEquals(List.of("a", "d", "b"), columns.scan(scan().features(List.of("wifi", "terrace")).build()).ids());
+    }
+
+    @Test
+    void filtersByFeaturesBeyondTheFirstBitmapWord() {
+        List<String> features = IntStream.range(0, 70).mapToObj(i -> "feature-" + i).toList();
+        RestaurantColumns wide = RestaurantColumns.of(List.of(
+                restaurant("low", 1.0f, 1, null, features.subList(0, 60), null, null),
+                restaurant("high", 1.0f, 1, null, features.subList(60, 70), null, null)
+        ));
+
+        assertEquals(List.of("high"), wide.scan(scan().features(List.of("feature-65")).build()).ids());
+    }
+
+    @Test
+    void filtersByOpenMinute() {
+        assertEquals(List.of("a", "d"), columns.scan(scan().openMinute(700).build()).ids());
+        assertEquals(List.of("d", "b"), columns.scan(scan().openMinute(1380).build()).ids());
+    }
+
+    @Test
+    void filtersByDistanceSkippingRowsWithoutLocation() {
+        RestaurantColumns.Result result = columns.scan(scan().origin(36.81, 10.19).maxDistanceKm(5.0).build());
+
+        assertEquals(List.of("a", "b"), result.ids());
+        assertEquals(2, result.total());
+    }
+
+    @Test
+    void countsEveryMatchButReturnsOnlyTheLimit() {
+        RestaurantColumns.Result result = columns.scan(scan().limit(2).build());
+
+        assertEquals(List.of("a", "d"), result.ids());
+        assertEquals(4, result.total());
+    }
+
+    @Test
+    void applyReplacesAndRemovesRows() {
+        RestaurantColumns next = columns.apply(
+                List.of(restaurant("b", 5.0f, 3, "Thai", List.of("parking"), 36.81, 10.19),
+                        restaurant("e", 2.0f, 4, "Thai", null, null, null)),
+                List.of("a"));
+
+        assertEquals(List.of("b", "d", "e", "c"), next.scan(scan().build()).ids());
+        assertEquals(4, next.size());
+        assertEquals(List.of("b", "e"), next.scan(scan().cuisineTypes(List.of("Thai")).build()).ids());
+        assertEquals(List.of("b"), next.scan(scan().features(List.of("parking")).build()).ids());
+        assertEquals(List.of(), next.scan(scan().cuisineTypes(List.of("Italian")).build()).ids());
+    }
+
+    @Test
+    void applyLeavesEarlierSnapshotsUnchanged() {
+        columns.apply(List.of(restaurant("a", 1.0f, 2, "Thai", null, null, null)), List.of("b"));
+
+        assertEquals(List.of("a", "d", "b", "c"), columns.scan(scan().build()).ids());
+        assertEquals(List.of("a", "d"), columns.scan(scan().cuisineTypes(List.of("Tunisian")).build()).ids());
+        assertEquals(4, columns.size());
+    }
+
+    @Test
+    void onlyTheLatestSnapshotCanBePatched() {
+        columns.apply(List.of(), List.of("a"));
+
+        assertThrows(IllegalStateException.class, () -> columns.apply(List.of(), List.of("b")));
+    }
+
+    @Test
+    void keepsRowsAcrossCompactionsAndGrowth() {
+        RestaurantColumns current = columns;
+        for (int round = 0; round < 50; round++) {
+            current = current.apply(List.of(
+                    restaurant("b", round / 10f, 3, "Italian", List.of("wifi", "terrace"), 36.81, 10.19,
+                            new MinuteRange(1080, 1380)),
+                    restaurant("new-" + round, 0.0f, 1, null, null, null, null)), List.of());
+        }
+
+        assertEquals(54, current.size());
+        assertEquals(List.of("b", "a", "d"), current.scan(scan().limit(3).build()).ids());
+        assertEquals(List.of("b"), current.scan(scan().openMinute(1200).cuisineTypes(List.of("Italian")).build()).ids());
+        assertEquals(List.of("b"), current.scan(scan().minRating(4.9f).build()).ids());
+    }
+
+    @Test
+    void widensFeatureBitmapsForNewFeatures() {
+        List<String> features = IntStream.range(0, 70).mapToObj(i -> "feature-" + i).toList();
+
+        RestaurantColumns next = columns.apply(List.of(restaurant("wide", 1.0f, 1, null, features, null, null)), List.of());
+
+        assertEquals(List.of("wide"), next.scan(scan().features(List.of("feature-69")).build()).ids());
+        assertEquals(List.of("a", "d", "b", "wide"), next.scan(scan().features(List.of("wifi", "terrace", "feature-0")).build()).ids());
+    }
+
+    @Test
+    void listsARestaurantRepeatedInOneBatchOnce() {
+        RestaurantColumns next = columns.apply(List.of(
+                restaurant("e", 4.0f, 1, null, null, null, null),
+                restaurant("e", 2.0f, 1, null, null, null, null)), List.of());
+
+        assertEquals(List.of("a", "d", "b", "e", "c"), next.scan(scan().build()).ids());
+        assertEquals(5, next.size());
+    }
+
+    private static ReplicatedRestaurant restaurant(String id, Float rating, Integer priceRange, String cuisineType,
+                                                   List<String> features, Double latitude, Double longitude,
+                                                   MinuteRange... openIntervals) {
+        ReplicatedRestaurant restaurant = new ReplicatedRestaurant();
+        restaurant.setId(id);
+        restaurant.setAverageRating(rating);
+        restaurant.setPriceRange(priceRange);
+        restaurant.setCuisineType(cuisineType);
+        restaurant.setFeatures(features);
+        restaurant.setGeoLocation(latitude == null ? null : new GeoPoint(latitude, longitude));
+        restaurant.setOpenIntervals(new ArrayList<>(List.of(openIntervals)));
+        return restaurant;
+    }
+
+    private static ScanBuilder scan() {
+        return new ScanBuilder();
+    }
+
+    private static final class ScanBuilder {
+        private Float minRating;
+        private Set<Integer> priceRanges = Set.of();
+        private List<String> cuisineTypes;
+        private List<String> features;
+        private Integer openMinute;
+        private Double latitude;
+        private Double longitude;
+        private Double maxDistanceKm;
+        private Sort.Direction direction = Sort.Direction.DESC;
+        private int limit = 10;
+
+        ScanBuilder minRating(float minRating) {
+            this.minRating = minRating;
+            return this;
+        }
+
+        ScanBuilder priceRanges(Set<Integer> priceRanges) {
+            this.priceRanges = priceRanges;
+            return this;
+        }
+
+        ScanBuilder cuisineTypes(List<String> cuisineTypes) {
+            this.cuisineTypes = cuisineTypes;
+            return this;
+        }
+
+        ScanBuilder features(List<String> features) {
+            this.features = features;
+            return this;
+        }
+
+        ScanBuilder openMinute(int openMinute) {
+            this.openMinute = openMinute;
+            return this;
+        }
+
+        ScanBuilder origin(double latitude, double longitude) {
+            this.latitude = latitude;
+            this.longitude = longitude;
+            return this;
+        }
+
+        ScanBuilder maxDistanceKm(double maxDistanceKm) {
+            this.maxDistanceKm = maxDistanceKm;
+            return this;
+        }
+
+        ScanBuilder direction(Sort.Direction direction) {
+            this.direction = direction;
+            return this;
+        }
+
+        ScanBuilder limit(int limit) {
+            this.limit = limit;
+            return this;
+        }
+
+        RestaurantColumns.Scan build() {
+            return new RestaurantColumns.Scan(minRating, priceRanges, cuisineTypes, features, openMinute,
+                    latitude, longitude, maxDistanceKm, direction, limit);
+        }
+    }
+}
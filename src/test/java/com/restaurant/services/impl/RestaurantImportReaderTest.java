@@ -0,0 +1,119 @@
+package com.restaurant.services.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.restaurant.domain.RestaurantImportFormat;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RestaurantImportReaderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void readsCsvColumnsIntoNestedFields() throws IOException {
+        List<RestaurantImportReader.Row> rows = readCsv("""
+                name,cuisineType,address.city,priceRange,photoIds
+                Dar El Jeld,Tunisian,Tunis,3,p1|p2
+                """);
+
+        RestaurantImportReader.Row row = rows.get(0);
+        assertEquals(1, row.number());
+        assertNull(row.error());
+        assertEquals("Dar El Jeld", row.restaurant().getName());
+        assertEquals("Tunis", row.restaurant().getAddress().getCity());
+        assertEquals(3, row.restaurant().getPriceRange());
+        assertEquals(List.of("p1", "p2"), row.restaurant().getPhotoIds());
+    }
+
+    @Test
+    void readsQuotedCommasLineBreaksAndDoubledQuotes() throws IOException {
+        List<RestaurantImportReader.Row> rows = readCsv(
+                "name,contactInformation\r\n\"Chez \"\"Mamie\"\", Tunis\",\"line one\nline two\"\r\n");
+
+        assertEquals("Chez \"Mamie\", Tunis", rows.get(0).restaurant().getName());
+        assertEquals("line one\nline two", rows.get(0).restaurant().getContactInformation());
+    }
+
+    @Test
+    void skipsBlankLinesAndLeavesEmptyCellsUnset() throws IOException {
+        List<RestaurantImportReader.Row> rows = readCsv("""
+                name,website
+
+                Le Golfe,
+                """);
+
+        assertEquals(1, rows.size());
+        assertEquals(2, rows.get(0).number());
+        assertNull(rows.get(0).restaurant().getWebsite());
+    }
+
+    @Test
+    void reportsRowsThatCannotBeParsedAndCarriesOn() throws IOException {
+        List<RestaurantImportReader.Row> rows = readCsv("""
+                name,priceRange
+                Too,many,columns
+                Cheap,not-a-number
+                Fine,2
+                """);
+
+        assertEquals("Expected 2 columns, found 3", rows.get(0).error());
+        assertTrue(rows.get(1).error().startsWith("Invalid row: "));
+        assertEquals("Fine", rows.get(2).restaurant().getName());
+        assertEquals(3, rows.get(2).number());
+    }
+
+    @Test
+    void endsTheImportAtAnOverlongRecord() {
+        InputStream body = new SequenceInputStream(
+                new ByteArrayInputStream("name\n\"never closed".getBytes(StandardCharsets.UTF_8)),
+                new ByteArrayInputStream(new byte[2 << 20]));
+
+        IOException error = assertThrows(IOException.class, () -> readAll(RestaurantImportFormat.CSV, body));
+
+        assertTrue(error.getMessage().contains("unterminated quote"));
+    }
+
+    @Test
+    void readsNdjsonLinesAndReportsMalformedOnes() throws IOException {
+        List<RestaurantImportReader.Row> rows = readAll(RestaurantImportFormat.NDJSON, stream("""
+                {"name": "Dar El Jeld"}
+
+                {"name":
+                """));
+
+        assertEquals("Dar El Jeld", rows.get(0).restaurant().getName());
+        assertEquals(3, rows.get(1).number());
+        assertTrue(rows.get(1).error().startsWith("Malformed JSON: "));
+    }
+
+    private List<RestaurantImportReader.Row> readCsv(String body) throws IOException {
+        return readAll(RestaurantImportFormat.CSV, stream(body));
+    }
+
+    private List<RestaurantImportReader.Row> readAll(RestaurantImportFormat format, InputStream body) throws IOException {
+        List<RestaurantImportReader.Row> rows = new ArrayList<>();
+        try (RestaurantImportReader reader = RestaurantImportReader.of(format, body, objectMapper)) {
+            RestaurantImportReader.Row row;
+            while ((row = reader.next()) != null) {
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+
+    private static InputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,96 @@
+package com.restaurant.services.impl;
+
+import com.restaurant.domain.BoundingBox;
+import com.restaurant.domain.GeoLocation;
+import com.restaurant.domain.RestaurantSearchCriteria;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class RestaurantSearchCacheKeyTest {
+
+    private static final PageRequest PAGE = PageRequest.of(0, 20);
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 5, 6, 12, 7, 42);
+    private static final Duration BUCKET = Duration.ofMinutes(5);
+
+    @Test
+    void sharesOneKeyForEquivalentListsAndText() {
+        RestaurantSearchCriteria messy = RestaurantSearchCriteria.builder()
+                .cuisineTypes(List.of(" Tunisian", "Italian", "Tunisian", " "))
+                .priceRanges(List.of("2", "1"))
+                .name("  pizza ")
+                .address(" ")
+                .build();
+        RestaurantSearchCriteria clean = RestaurantSearchCriteria.builder()
+                .cuisineTypes(List.of("Italian", "Tunisian"))
+                .priceRanges(List.of("1", "2"))
+                .name("pizza")
+                .build();
+
+        assertEquals(key(clean), key(messy));
+    }
+
+    @Test
+    void treatsEmptyListsAsNoFilter() {
+        RestaurantSearchCriteria empty = RestaurantSearchCriteria.builder().features(List.of()).build();
+
+        assertEquals(key(new RestaurantSearchCriteria()), key(empty));
+    }
+
+    @Test
+    void roundsCoordinatesAndViewportCorners() {
+        RestaurantSearchCriteria precise = RestaurantSearchCriteria.builder()
+                .latitude(36.80049)
+                .longitude(10.18011)
+                .viewport(new BoundingBox(new GeoLocation(36.90012, 10.10049), new GeoLocation(36.70049, 10.30012)))
+                .build();
+
+        RestaurantSearchCriteria canonical = key(precise).criteria();
+
+        assertEquals(36.800, canonical.getLatitude());
+        assertEquals(10.180, canonical.getLongitude());
+        assertEquals(new GeoLocation(36.900, 10.100), canonical.getViewport().getTopLeft());
+        assertEquals(new GeoLocation(36.700, 10.300), canonical.getViewport().getBottomRight());
+        assertNotEquals(key(precise), key(precise.toBuilder().latitude(36.8006).build()));
+    }
+
+    @Test
+    void bucketsOpenNowToTheStartOfTheCurrentBucket() {
+        RestaurantSearchCriteria openNow = RestaurantSearchCriteria.builder().filterOpenNow(true).build();
+
+        RestaurantSearchCriteria canonical = key(openNow).criteria();
+
+        assertEquals(LocalDateTime.of(2024, 5, 6, 12, 5), canonical.getOpenAt());
+        assertEquals(key(openNow), RestaurantSearchCacheKey.of(openNow, PAGE, NOW.plusMinutes(2), BUCKET));
+        assertNotEquals(key(openNow), RestaurantSearchCacheKey.of(openNow, PAGE, NOW.plusMinutes(3), BUCKET));
+    }
+
+    @Test
+    void truncatesAnExplicitOpenAtToTheMinute() {
+        RestaurantSearchCriteria openAt = RestaurantSearchCriteria.builder()
+                .openAt(LocalDateTime.of(2024, 5, 7, 20, 30, 15))
+                .filterOpenNow(true)
+                .build();
+
+        assertEquals(LocalDateTime.of(2024, 5, 7, 20, 30), key(openAt).criteria().getOpenAt());
+    }
+
+    @Test
+    void keepsThePageInTheKey() {
+        RestaurantSearchCriteria criteria = new RestaurantSearchCriteria();
+
+        assertNotEquals(key(criteria), RestaurantSearchCacheKey.of(criteria, PageRequest.of(1, 20), NOW, BUCKET));
+        assertNull(key(criteria).criteria().getOpenAt());
+    }
+
+    private static RestaurantSearchCacheKey key(RestaurantSearchCriteria criteria) {
+        return RestaurantSearchCacheKey.of(criteria, PAGE, NOW, BUCKET);
+    }
+}